@@ -0,0 +1,257 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx.processor;
+
+import org.weakref.jmx.processor.Annotations.DescriptorValue;
+import org.weakref.jmx.processor.ManagedClassModel.AttributeKind;
+import org.weakref.jmx.processor.ManagedClassModel.AttributeModel;
+import org.weakref.jmx.processor.ManagedClassModel.OperationModel;
+import org.weakref.jmx.processor.ManagedClassModel.ParameterModel;
+
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes the source of the {@code org.weakref.jmx.MBeanAdapter} for a managed class.
+ */
+final class AdapterWriter
+{
+    static final String ADAPTER_SUFFIX = "_MBeanAdapter";
+
+    private final Elements elements;
+    private final TypeNames typeNames;
+
+    AdapterWriter(Elements elements, TypeNames typeNames)
+    {
+        this.elements = requireNonNull(elements, "elements is null");
+        this.typeNames = requireNonNull(typeNames, "typeNames is null");
+    }
+
+    /**
+     * Returns the qualified name of the adapter class. Adapters of nested classes are top level
+     * classes named after the binary name of the nested class, which is what the runtime looks up.
+     */
+    public String getAdapterName(TypeElement type)
+    {
+        return elements.getBinaryName(type) + ADAPTER_SUFFIX;
+    }
+
+    public String write(ManagedClassModel model)
+            throws UnsupportedTypeException
+    {
+        TypeElement type = model.getType();
+        PackageElement packageElement = elements.getPackageOf(type);
+        String adapterName = getAdapterName(type);
+        String simpleName = packageElement.isUnnamed() ? adapterName : adapterName.substring(packageElement.getQualifiedName().length() + 1);
+        String targetName = type.getQualifiedName().toString();
+
+        List<String> attributes = new ArrayList<>();
+        List<String> operations = new ArrayList<>();
+        List<String> calls = new ArrayList<>();
+        for (AttributeModel attribute : model.getAttributes()) {
+            int getter = attribute.getter() == null ? -1 : addCall(calls, targetName, attribute.getter());
+            String getterName = attribute.getter() == null ? "null" : quote(attribute.getter().getSimpleName().toString());
+            if (attribute.kind() != AttributeKind.ATTRIBUTE) {
+                String factory = attribute.kind() == AttributeKind.NESTED ? "nested" : "flatten";
+                attributes.add(String.format("MBeanAdapter.%s(%s, %s, %s)", factory, quote(attribute.name()), getter, getterName));
+                continue;
+            }
+
+            int setter = -1;
+            String setterName = "null";
+            String setterType = "null";
+            if (attribute.setter() != null) {
+                setter = addCall(calls, targetName, attribute.setter());
+                setterName = quote(attribute.setter().getSimpleName().toString());
+                setterType = typeNames.getSourceName(attribute.setter().getParameters().get(0).asType()) + ".class";
+            }
+            attributes.add(String.format(
+                    "MBeanAdapter.attribute(%n" +
+                            "                    new MBeanAttributeInfo(%s, %s, %s, %s, %s, %s, %s),%n" +
+                            "                    %s, %s, %s, %s, %s)",
+                    quote(attribute.name()),
+                    quote(attribute.type()),
+                    quote(attribute.description()),
+                    attribute.getter() != null,
+                    attribute.setter() != null,
+                    attribute.isIs(),
+                    descriptor(attribute.descriptor()),
+                    getter,
+                    getterName,
+                    setter,
+                    setterName,
+                    setterType));
+        }
+
+        for (OperationModel operation : model.getOperations()) {
+            int method = addCall(calls, targetName, operation.method());
+
+            List<String> parameters = new ArrayList<>();
+            for (ParameterModel parameter : operation.parameters()) {
+                parameters.add(String.format(
+                        "%n                            new MBeanParameterInfo(%s, %s, %s, %s)",
+                        quote(parameter.name()),
+                        quote(parameter.type()),
+                        quote(parameter.description()),
+                        descriptor(parameter.descriptor())));
+            }
+            StringBuilder parameterTypes = new StringBuilder();
+            for (VariableElement parameter : operation.method().getParameters()) {
+                parameterTypes.append(", ").append(typeNames.getSourceName(parameter.asType())).append(".class");
+            }
+
+            operations.add(String.format(
+                    "MBeanAdapter.operation(%n" +
+                            "                    new MBeanOperationInfo(%s, %s, new MBeanParameterInfo[] {%s}, %s, MBeanOperationInfo.UNKNOWN, %s),%n" +
+                            "                    %s%s)",
+                    quote(operation.method().getSimpleName().toString()),
+                    quote(operation.description()),
+                    String.join(",", parameters),
+                    quote(operation.returnType()),
+                    descriptor(operation.descriptor()),
+                    method,
+                    parameterTypes));
+        }
+
+        StringBuilder source = new StringBuilder();
+        if (!packageElement.isUnnamed()) {
+            source.append("package ").append(packageElement.getQualifiedName()).append(";\n\n");
+        }
+        source.append("import org.weakref.jmx.MBeanAdapter;\n\n")
+                .append("import javax.annotation.processing.Generated;\n")
+                .append("import javax.management.ImmutableDescriptor;\n")
+                .append("import javax.management.MBeanAttributeInfo;\n")
+                .append("import javax.management.MBeanOperationInfo;\n")
+                .append("import javax.management.MBeanParameterInfo;\n\n")
+                .append("import java.util.List;\n\n")
+                .append("@Generated(\"").append(MBeanAdapterProcessor.class.getName()).append("\")\n")
+                .append("public final class ").append(simpleName).append("\n")
+                .append("        implements MBeanAdapter\n")
+                .append("{\n")
+                .append("    private static final List<AdaptedAttribute> ATTRIBUTES = List.of(").append(list(attributes)).append(");\n\n")
+                .append("    private static final List<AdaptedOperation> OPERATIONS = List.of(").append(list(operations)).append(");\n\n")
+                .append("    @Override\n")
+                .append("    public String getDescription()\n")
+                .append("    {\n")
+                .append("        return ").append(quote(model.getDescription())).append(";\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public List<AdaptedAttribute> getAttributes()\n")
+                .append("    {\n")
+                .append("        return ATTRIBUTES;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public List<AdaptedOperation> getOperations()\n")
+                .append("    {\n")
+                .append("        return OPERATIONS;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    @SuppressWarnings({\"rawtypes\", \"unchecked\"})\n")
+                .append("    public Object invoke(int method, Object target, Object[] params)\n")
+                .append("            throws Throwable\n")
+                .append("    {\n")
+                .append("        switch (method) {\n");
+        for (int i = 0; i < calls.size(); i++) {
+            source.append("            case ").append(i).append(":\n").append(calls.get(i));
+        }
+        source.append("            default:\n")
+                .append("                throw new IndexOutOfBoundsException(method);\n")
+                .append("        }\n")
+                .append("    }\n")
+                .append("}\n");
+        return source.toString();
+    }
+
+    private int addCall(List<String> calls, String targetName, ExecutableElement method)
+            throws UnsupportedTypeException
+    {
+        StringBuilder call = new StringBuilder();
+        if (method.getModifiers().contains(Modifier.STATIC)) {
+            call.append(targetName);
+        }
+        else {
+            call.append("((").append(targetName).append(") target)");
+        }
+        call.append('.').append(method.getSimpleName()).append('(');
+
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) {
+                call.append(", ");
+            }
+            TypeMirror parameterType = parameters.get(i).asType();
+            if (parameterType.getKind().isPrimitive()) {
+                // the cast to the primitive type keeps overloads taking the wrapper type from being selected
+                call.append('(').append(typeNames.getSourceName(parameterType)).append(") ");
+                call.append('(').append(typeNames.getWrapperName(parameterType)).append(") ");
+            }
+            else {
+                call.append('(').append(typeNames.getSourceName(parameterType)).append(") ");
+            }
+            call.append("params[").append(i).append(']');
+        }
+        call.append(')');
+
+        if (method.getReturnType().getKind() == TypeKind.VOID) {
+            calls.add("                " + call + ";\n                return null;\n");
+        }
+        else {
+            calls.add("                return " + call + ";\n");
+        }
+        return calls.size() - 1;
+    }
+
+    private String descriptor(Map<String, DescriptorValue> fields)
+    {
+        if (fields.isEmpty()) {
+            return "ImmutableDescriptor.EMPTY_DESCRIPTOR";
+        }
+
+        List<String> names = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        for (Map.Entry<String, DescriptorValue> field : fields.entrySet()) {
+            names.add(quote(field.getKey()));
+            values.add(field.getValue().expression());
+        }
+        return "new ImmutableDescriptor(new String[] {" + String.join(", ", names) + "}, new Object[] {" + String.join(", ", values) + "})";
+    }
+
+    private String quote(String value)
+    {
+        if (value == null) {
+            return "null";
+        }
+        return elements.getConstantExpression(value);
+    }
+
+    private static String list(List<String> elements)
+    {
+        if (elements.isEmpty()) {
+            return "";
+        }
+        return "\n            " + String.join(",\n            ", elements);
+    }
+}
@@ -0,0 +1,362 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx.processor;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Compile-time equivalent of the annotation handling in {@code org.weakref.jmx.AnnotationUtils}.
+ * Only annotations retained at runtime are considered, since those are the only ones reflection sees.
+ */
+final class Annotations
+{
+    private static final String MANAGED_ANNOTATION = "org.weakref.jmx.ManagedAnnotation";
+    private static final String NESTED = "org.weakref.jmx.Nested";
+    private static final String FLATTEN = "org.weakref.jmx.Flatten";
+    private static final String DESCRIPTOR_KEY = "javax.management.DescriptorKey";
+    private static final String RETENTION = "java.lang.annotation.Retention";
+    private static final String INHERITED = "java.lang.annotation.Inherited";
+
+    private final Elements elements;
+    private final TypeNames typeNames;
+
+    Annotations(Elements elements, TypeNames typeNames)
+    {
+        this.elements = requireNonNull(elements, "elements is null");
+        this.typeNames = requireNonNull(typeNames, "typeNames is null");
+    }
+
+    /**
+     * Returns the annotations of the element visible to reflection, in declaration order.
+     */
+    public List<AnnotationMirror> getAnnotations(Element element)
+    {
+        List<AnnotationMirror> annotations = new ArrayList<>();
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (isRuntimeRetained(annotationType(annotation))) {
+                annotations.add(annotation);
+            }
+        }
+        return annotations;
+    }
+
+    /**
+     * Returns the annotations {@link Class#getAnnotations} reports for the type: inherited
+     * annotations of the superclass first, then the annotations declared on the type.
+     */
+    public List<AnnotationMirror> getClassAnnotations(TypeElement type)
+    {
+        Map<String, AnnotationMirror> annotations = new LinkedHashMap<>();
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() == TypeKind.DECLARED) {
+            for (AnnotationMirror annotation : getClassAnnotations((TypeElement) ((DeclaredType) superclass).asElement())) {
+                if (hasAnnotation(annotationType(annotation), INHERITED)) {
+                    annotations.put(annotationName(annotation), annotation);
+                }
+            }
+        }
+        for (AnnotationMirror annotation : getAnnotations(type)) {
+            annotations.put(annotationName(annotation), annotation);
+        }
+        return new ArrayList<>(annotations.values());
+    }
+
+    public boolean isManaged(ExecutableElement method)
+    {
+        for (AnnotationMirror annotation : getAnnotations(method)) {
+            if (hasAnnotation(annotationType(annotation), MANAGED_ANNOTATION)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isNested(ExecutableElement method)
+    {
+        return method != null && isAnnotationPresent(NESTED, new HashSet<>(), getAnnotations(method));
+    }
+
+    public boolean isFlatten(ExecutableElement method)
+    {
+        return method != null && isAnnotationPresent(FLATTEN, new HashSet<>(), getAnnotations(method));
+    }
+
+    private boolean isAnnotationPresent(String annotationName, Set<String> processedTypes, List<AnnotationMirror> annotations)
+    {
+        for (AnnotationMirror annotation : annotations) {
+            if (annotationName(annotation).equals(annotationName)) {
+                return true;
+            }
+        }
+
+        for (AnnotationMirror annotation : annotations) {
+            TypeElement annotationType = annotationType(annotation);
+            if (processedTypes.add(annotationName(annotation)) && isAnnotationPresent(annotationName, processedTypes, getAnnotations(annotationType))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the descriptor fields defined by the annotations and their meta-annotations,
+     * keyed by field name.
+     */
+    public Map<String, DescriptorValue> buildDescriptor(List<AnnotationMirror> annotations)
+            throws UnsupportedTypeException
+    {
+        Map<String, DescriptorValue> fields = new TreeMap<>();
+        for (AnnotationMirror annotation : computeWalkSequence(annotations)) {
+            processAnnotation(annotation, fields);
+        }
+
+        Set<String> names = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (String name : fields.keySet()) {
+            if (!names.add(name)) {
+                throw new UnsupportedTypeException("descriptor fields differ only in case: " + name);
+            }
+        }
+        return fields;
+    }
+
+    private List<AnnotationMirror> computeWalkSequence(List<AnnotationMirror> annotations)
+    {
+        List<AnnotationMirror> result = new ArrayList<>();
+        computeWalkSequence(new HashSet<>(), result, annotations);
+        return result;
+    }
+
+    private void computeWalkSequence(Set<String> seen, List<AnnotationMirror> result, List<AnnotationMirror> annotations)
+    {
+        for (AnnotationMirror annotation : annotations) {
+            seen.add(annotationKey(annotation));
+        }
+
+        for (AnnotationMirror annotation : annotations) {
+            for (AnnotationMirror parent : getAnnotations(annotationType(annotation))) {
+                if (!seen.contains(annotationKey(parent))) {
+                    computeWalkSequence(seen, result, List.of(parent));
+                }
+            }
+        }
+
+        result.addAll(annotations);
+    }
+
+    private void processAnnotation(AnnotationMirror annotation, Map<String, DescriptorValue> fields)
+            throws UnsupportedTypeException
+    {
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values = elements.getElementValuesWithDefaults(annotation);
+        for (ExecutableElement field : ElementFilter.methodsIn(annotationType(annotation).getEnclosedElements())) {
+            AnnotationMirror descriptorKey = findAnnotation(field, DESCRIPTOR_KEY);
+            if (descriptorKey == null) {
+                continue;
+            }
+
+            String name = (String) value(descriptorKey, "value").getValue();
+            AnnotationValue value = values.get(field);
+            if (value == null) {
+                continue;
+            }
+            fields.put(name, toDescriptorValue(field.getReturnType(), value.getValue()));
+        }
+    }
+
+    private DescriptorValue toDescriptorValue(TypeMirror type, Object value)
+            throws UnsupportedTypeException
+    {
+        if (value instanceof TypeMirror classValue) {
+            String name = typeNames.getBinaryName(classValue);
+            return new DescriptorValue(name, elements.getConstantExpression(name));
+        }
+        if (value instanceof VariableElement enumValue) {
+            String name = enumValue.getSimpleName().toString();
+            return new DescriptorValue(name, elements.getConstantExpression(name));
+        }
+        if (value instanceof List<?> list) {
+            TypeMirror componentType = ((ArrayType) type).getComponentType();
+            String componentName;
+            if (componentType.getKind().isPrimitive()) {
+                componentName = componentType.getKind().name().toLowerCase();
+            }
+            else if (isType(componentType, "java.lang.String") || isType(componentType, "java.lang.Class") || isEnum(componentType)) {
+                componentName = "String";
+            }
+            else {
+                throw new UnsupportedTypeException("unsupported descriptor array type: " + type);
+            }
+
+            StringBuilder expression = new StringBuilder("new ").append(componentName).append("[] {");
+            for (int i = 0; i < list.size(); i++) {
+                if (i > 0) {
+                    expression.append(", ");
+                }
+                DescriptorValue element = toDescriptorValue(componentType, ((AnnotationValue) list.get(i)).getValue());
+                expression.append(element.expression());
+            }
+            expression.append('}');
+            return new DescriptorValue(null, expression.toString());
+        }
+        if (value instanceof AnnotationMirror) {
+            throw new UnsupportedTypeException("@DescriptorKey applied to an annotation field");
+        }
+        return new DescriptorValue(value, elements.getConstantExpression(value));
+    }
+
+    /**
+     * Returns the description defined by the first annotation with a {@code description} element, or null.
+     */
+    public String getDescription(List<AnnotationMirror> annotations)
+            throws UnsupportedTypeException
+    {
+        for (AnnotationMirror annotation : annotations) {
+            for (ExecutableElement element : ElementFilter.methodsIn(annotationType(annotation).getEnclosedElements())) {
+                if (!element.getSimpleName().contentEquals("description")) {
+                    continue;
+                }
+                AnnotationValue value = elements.getElementValuesWithDefaults(annotation).get(element);
+                if (value == null) {
+                    break;
+                }
+                Object description = value.getValue();
+                if (description instanceof String || description instanceof Number || description instanceof Boolean || description instanceof Character) {
+                    return description.toString();
+                }
+                throw new UnsupportedTypeException("unsupported description type: " + element.getReturnType());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the description of the first annotation list with one, falling back to the
+     * {@code description} field of the descriptor.
+     */
+    public String getDescription(Map<String, DescriptorValue> descriptor, List<List<AnnotationMirror>> annotationLists)
+            throws UnsupportedTypeException
+    {
+        for (List<AnnotationMirror> annotations : annotationLists) {
+            String description = getDescription(annotations);
+            if (description != null) {
+                return description;
+            }
+        }
+
+        DescriptorValue value = descriptor.get("description");
+        if (value != null && value.value() instanceof String description) {
+            return description;
+        }
+        return null;
+    }
+
+    private boolean isRuntimeRetained(TypeElement annotationType)
+    {
+        AnnotationMirror retention = findAnnotation(annotationType, RETENTION);
+        if (retention == null) {
+            return false;
+        }
+        return ((VariableElement) value(retention, "value").getValue()).getSimpleName().contentEquals("RUNTIME");
+    }
+
+    private boolean hasAnnotation(TypeElement annotationType, String annotationName)
+    {
+        for (AnnotationMirror annotation : getAnnotations(annotationType)) {
+            if (annotationName(annotation).equals(annotationName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static AnnotationMirror findAnnotation(Element element, String annotationName)
+    {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (annotationName(annotation).equals(annotationName)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    private AnnotationValue value(AnnotationMirror annotation, String name)
+    {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : elements.getElementValuesWithDefaults(annotation).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue();
+            }
+        }
+        throw new IllegalArgumentException("annotation " + annotation + " has no element " + name);
+    }
+
+    // annotations are equal when their types and all element values are equal
+    private String annotationKey(AnnotationMirror annotation)
+    {
+        Map<String, String> values = new TreeMap<>();
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : elements.getElementValuesWithDefaults(annotation).entrySet()) {
+            values.put(entry.getKey().getSimpleName().toString(), entry.getValue().toString());
+        }
+        return annotationName(annotation) + values;
+    }
+
+    private static TypeElement annotationType(AnnotationMirror annotation)
+    {
+        return (TypeElement) annotation.getAnnotationType().asElement();
+    }
+
+    private static String annotationName(AnnotationMirror annotation)
+    {
+        return annotationType(annotation).getQualifiedName().toString();
+    }
+
+    private static boolean isType(TypeMirror type, String name)
+    {
+        return type.getKind() == TypeKind.DECLARED && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(name);
+    }
+
+    private static boolean isEnum(TypeMirror type)
+    {
+        return type.getKind() == TypeKind.DECLARED && ((DeclaredType) type).asElement().getKind() == ElementKind.ENUM;
+    }
+
+    /**
+     * A descriptor field value: the constant it evaluates to, when it is a string or boxed primitive,
+     * and the source expression that creates it.
+     */
+    record DescriptorValue(Object value, String expression)
+    {
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Generates an {@code org.weakref.jmx.MBeanAdapter} for every concrete class with managed methods,
+ * so the MBean for an instance of the class can be built without introspecting it at runtime.
+ * <p>
+ * Managed methods may be marked with any annotation meta-annotated with {@code @ManagedAnnotation},
+ * so every class is examined. Classes the adapter could not refer to, such as private nested
+ * classes, and classes using features only reflection reproduces faithfully are skipped with a note.
+ */
+@SupportedAnnotationTypes("*")
+public class MBeanAdapterProcessor
+        extends AbstractProcessor
+{
+    private TypeNames typeNames;
+    private Annotations annotations;
+    private AdapterWriter writer;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv)
+    {
+        super.init(processingEnv);
+        typeNames = new TypeNames(processingEnv.getElementUtils(), processingEnv.getTypeUtils());
+        annotations = new Annotations(processingEnv.getElementUtils(), typeNames);
+        writer = new AdapterWriter(processingEnv.getElementUtils(), typeNames);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion()
+    {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> ignored, RoundEnvironment roundEnv)
+    {
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            process(type);
+        }
+        // other processors may handle the same annotations
+        return false;
+    }
+
+    private void process(TypeElement type)
+    {
+        for (TypeElement member : ElementFilter.typesIn(type.getEnclosedElements())) {
+            process(member);
+        }
+
+        if (!isCandidate(type)) {
+            return;
+        }
+
+        try {
+            Optional<ManagedClassModel> model = ManagedClassModel.create(
+                    type,
+                    processingEnv.getElementUtils(),
+                    processingEnv.getTypeUtils(),
+                    typeNames,
+                    annotations);
+            if (model.isPresent()) {
+                writeAdapter(type, writer.write(model.get()));
+            }
+        }
+        catch (UnsupportedTypeException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "No MBean adapter generated: " + e.getMessage(), type);
+        }
+    }
+
+    private boolean isCandidate(TypeElement type)
+    {
+        if (type.getKind() != ElementKind.CLASS && type.getKind() != ElementKind.ENUM && type.getKind() != ElementKind.RECORD) {
+            return false;
+        }
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+        return typeNames.isAccessible(type, packageElement);
+    }
+
+    private void writeAdapter(Element type, String source)
+    {
+        String adapterName = writer.getAdapterName((TypeElement) type);
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(adapterName, type);
+            try (Writer out = file.openWriter()) {
+                out.write(source);
+            }
+        }
+        catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to write MBean adapter " + adapterName + ": " + e.getMessage(), type);
+        }
+    }
+}
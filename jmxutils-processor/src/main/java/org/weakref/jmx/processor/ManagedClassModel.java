@@ -0,0 +1,347 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx.processor;
+
+import org.weakref.jmx.processor.Annotations.DescriptorValue;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The MBean features of a managed class, computed the way {@code MBeanBuilder} computes them
+ * through reflection.
+ */
+final class ManagedClassModel
+{
+    private final TypeElement type;
+    private final String description;
+    private final List<AttributeModel> attributes;
+    private final List<OperationModel> operations;
+
+    private ManagedClassModel(TypeElement type, String description, List<AttributeModel> attributes, List<OperationModel> operations)
+    {
+        this.type = type;
+        this.description = description;
+        this.attributes = List.copyOf(attributes);
+        this.operations = List.copyOf(operations);
+    }
+
+    public TypeElement getType()
+    {
+        return type;
+    }
+
+    public String getDescription()
+    {
+        return description;
+    }
+
+    public List<AttributeModel> getAttributes()
+    {
+        return attributes;
+    }
+
+    public List<OperationModel> getOperations()
+    {
+        return operations;
+    }
+
+    /**
+     * Returns the model of the type, or empty when the type has no managed methods.
+     */
+    public static Optional<ManagedClassModel> create(TypeElement type, Elements elements, Types types, TypeNames typeNames, Annotations annotations)
+            throws UnsupportedTypeException
+    {
+        return new Scanner(elements, types, typeNames, annotations).scan(type);
+    }
+
+    enum AttributeKind
+    {
+        ATTRIBUTE, NESTED, FLATTEN
+    }
+
+    record AttributeModel(AttributeKind kind, String name, ExecutableElement getter, ExecutableElement setter, String type, String description, Map<String, DescriptorValue> descriptor)
+    {
+        public boolean isIs()
+        {
+            return getter != null && getter.getSimpleName().toString().startsWith("is");
+        }
+    }
+
+    record OperationModel(ExecutableElement method, String returnType, String description, Map<String, DescriptorValue> descriptor, List<ParameterModel> parameters)
+    {
+    }
+
+    record ParameterModel(String name, String type, String description, Map<String, DescriptorValue> descriptor)
+    {
+    }
+
+    private static final class Scanner
+    {
+        private final Elements elements;
+        private final Types types;
+        private final TypeNames typeNames;
+        private final Annotations annotations;
+
+        private Scanner(Elements elements, Types types, TypeNames typeNames, Annotations annotations)
+        {
+            this.elements = requireNonNull(elements, "elements is null");
+            this.types = requireNonNull(types, "types is null");
+            this.typeNames = requireNonNull(typeNames, "typeNames is null");
+            this.annotations = requireNonNull(annotations, "annotations is null");
+        }
+
+        public Optional<ManagedClassModel> scan(TypeElement type)
+                throws UnsupportedTypeException
+        {
+            Map<ExecutableElement, ExecutableElement> managedMethods = findManagedMethods(type);
+            if (managedMethods.isEmpty()) {
+                return Optional.empty();
+            }
+
+            PackageElement packageElement = elements.getPackageOf(type);
+            Map<String, AttributeMethods> attributeMethods = new TreeMap<>();
+            List<OperationModel> operations = new ArrayList<>();
+            for (Map.Entry<ExecutableElement, ExecutableElement> entry : managedMethods.entrySet()) {
+                ExecutableElement concreteMethod = entry.getKey();
+                ExecutableElement annotatedMethod = entry.getValue();
+
+                for (VariableElement parameter : concreteMethod.getParameters()) {
+                    if (!typeNames.isAccessible(parameter.asType(), packageElement)) {
+                        throw new UnsupportedTypeException("parameter type of " + concreteMethod + " is not accessible");
+                    }
+                }
+
+                if (isGetter(concreteMethod) || isSetter(concreteMethod)) {
+                    AttributeMethods methods = attributeMethods.computeIfAbsent(getAttributeName(concreteMethod), name -> new AttributeMethods());
+                    if (isGetter(concreteMethod)) {
+                        if (methods.concreteGetter != null) {
+                            throw new UnsupportedTypeException("multiple getters for attribute of " + concreteMethod);
+                        }
+                        methods.concreteGetter = concreteMethod;
+                        methods.annotatedGetter = annotatedMethod;
+                    }
+                    else {
+                        if (methods.concreteSetter != null) {
+                            throw new UnsupportedTypeException("multiple setters for attribute of " + concreteMethod);
+                        }
+                        methods.concreteSetter = concreteMethod;
+                        methods.annotatedSetter = annotatedMethod;
+                    }
+                }
+                else {
+                    operations.add(buildOperation(concreteMethod, annotatedMethod));
+                }
+            }
+
+            List<AttributeModel> attributes = new ArrayList<>();
+            for (Map.Entry<String, AttributeMethods> entry : attributeMethods.entrySet()) {
+                attributes.add(buildAttribute(entry.getKey(), entry.getValue()));
+            }
+
+            String description = annotations.getDescription(annotations.getClassAnnotations(type));
+            return Optional.of(new ManagedClassModel(type, description, attributes, operations));
+        }
+
+        private AttributeModel buildAttribute(String name, AttributeMethods methods)
+                throws UnsupportedTypeException
+        {
+            if (annotations.isFlatten(methods.annotatedGetter)) {
+                return new AttributeModel(AttributeKind.FLATTEN, name, methods.concreteGetter, null, null, null, null);
+            }
+            if (annotations.isNested(methods.annotatedGetter)) {
+                return new AttributeModel(AttributeKind.NESTED, name, methods.concreteGetter, null, null, null, null);
+            }
+
+            String type;
+            if (methods.concreteGetter != null) {
+                type = typeNames.getBinaryName(methods.concreteGetter.getReturnType());
+            }
+            else {
+                type = typeNames.getBinaryName(methods.concreteSetter.getParameters().get(0).asType());
+            }
+
+            Map<String, DescriptorValue> descriptor = new TreeMap<>();
+            List<List<AnnotationMirror>> annotationLists = new ArrayList<>();
+            if (methods.annotatedGetter != null) {
+                List<AnnotationMirror> getterAnnotations = annotations.getAnnotations(methods.annotatedGetter);
+                descriptor.putAll(annotations.buildDescriptor(getterAnnotations));
+                annotationLists.add(getterAnnotations);
+            }
+            if (methods.annotatedSetter != null) {
+                List<AnnotationMirror> setterAnnotations = annotations.getAnnotations(methods.annotatedSetter);
+                union(descriptor, annotations.buildDescriptor(setterAnnotations));
+                annotationLists.add(setterAnnotations);
+            }
+
+            String description = annotations.getDescription(descriptor, annotationLists);
+            return new AttributeModel(AttributeKind.ATTRIBUTE, name, methods.concreteGetter, methods.concreteSetter, type, description, descriptor);
+        }
+
+        // same as ImmutableDescriptor.union, which rejects fields with conflicting values
+        private static void union(Map<String, DescriptorValue> descriptor, Map<String, DescriptorValue> fields)
+                throws UnsupportedTypeException
+        {
+            for (Map.Entry<String, DescriptorValue> field : fields.entrySet()) {
+                for (Map.Entry<String, DescriptorValue> existing : descriptor.entrySet()) {
+                    if (existing.getKey().equalsIgnoreCase(field.getKey()) && (!existing.getKey().equals(field.getKey()) || !existing.getValue().equals(field.getValue()))) {
+                        throw new UnsupportedTypeException("getter and setter descriptors conflict on field " + field.getKey());
+                    }
+                }
+                descriptor.put(field.getKey(), field.getValue());
+            }
+        }
+
+        private OperationModel buildOperation(ExecutableElement concreteMethod, ExecutableElement annotatedMethod)
+                throws UnsupportedTypeException
+        {
+            // parameter annotations come from the annotated method, not the public method
+            List<ParameterModel> parameters = new ArrayList<>();
+            for (int i = 0; i < concreteMethod.getParameters().size(); i++) {
+                VariableElement parameter = concreteMethod.getParameters().get(i);
+                List<AnnotationMirror> parameterAnnotations = annotations.getAnnotations(annotatedMethod.getParameters().get(i));
+                Map<String, DescriptorValue> parameterDescriptor = annotations.buildDescriptor(parameterAnnotations);
+                parameters.add(new ParameterModel(
+                        parameter.getSimpleName().toString(),
+                        typeNames.getBinaryName(parameter.asType()),
+                        annotations.getDescription(parameterDescriptor, List.of(parameterAnnotations)),
+                        parameterDescriptor));
+            }
+
+            List<AnnotationMirror> methodAnnotations = annotations.getAnnotations(annotatedMethod);
+            Map<String, DescriptorValue> descriptor = annotations.buildDescriptor(methodAnnotations);
+            return new OperationModel(
+                    concreteMethod,
+                    typeNames.getBinaryName(concreteMethod.getReturnType()),
+                    annotations.getDescription(descriptor, List.of(methodAnnotations)),
+                    descriptor,
+                    parameters);
+        }
+
+        private Map<ExecutableElement, ExecutableElement> findManagedMethods(TypeElement type)
+        {
+            Map<ExecutableElement, ExecutableElement> result = new LinkedHashMap<>();
+            for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+                if (!method.getModifiers().contains(Modifier.PUBLIC) || isVisibilityBridged(type, method)) {
+                    continue;
+                }
+                ExecutableElement managedMethod = findManagedMethod(type, method);
+                if (managedMethod != null) {
+                    result.put(method, managedMethod);
+                }
+            }
+            return result;
+        }
+
+        // javac adds a synthetic bridge to a public class for each public method it inherits from a
+        // non-public superclass, and reflection skips synthetic methods
+        private static boolean isVisibilityBridged(TypeElement type, ExecutableElement method)
+        {
+            Element owner = method.getEnclosingElement();
+            return type.getModifiers().contains(Modifier.PUBLIC) &&
+                    !owner.equals(type) &&
+                    owner.getKind() == ElementKind.CLASS &&
+                    !owner.getModifiers().contains(Modifier.PUBLIC);
+        }
+
+        private ExecutableElement findManagedMethod(TypeElement type, ExecutableElement method)
+        {
+            for (ExecutableElement declaredMethod : ElementFilter.methodsIn(type.getEnclosedElements())) {
+                if (hasSameErasedSignature(declaredMethod, method) && annotations.isManaged(declaredMethod)) {
+                    return declaredMethod;
+                }
+            }
+
+            TypeMirror superclass = type.getSuperclass();
+            if (superclass.getKind() == TypeKind.DECLARED) {
+                ExecutableElement managedMethod = findManagedMethod((TypeElement) ((DeclaredType) superclass).asElement(), method);
+                if (managedMethod != null) {
+                    return managedMethod;
+                }
+            }
+
+            for (TypeMirror iface : type.getInterfaces()) {
+                ExecutableElement managedMethod = findManagedMethod((TypeElement) ((DeclaredType) iface).asElement(), method);
+                if (managedMethod != null) {
+                    return managedMethod;
+                }
+            }
+            return null;
+        }
+
+        private boolean hasSameErasedSignature(ExecutableElement left, ExecutableElement right)
+        {
+            if (!left.getSimpleName().equals(right.getSimpleName()) || left.getParameters().size() != right.getParameters().size()) {
+                return false;
+            }
+            for (int i = 0; i < left.getParameters().size(); i++) {
+                TypeMirror leftType = types.erasure(left.getParameters().get(i).asType());
+                TypeMirror rightType = types.erasure(right.getParameters().get(i).asType());
+                if (!types.isSameType(leftType, rightType)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isGetter(ExecutableElement method)
+        {
+            String name = method.getSimpleName().toString();
+            return (name.startsWith("get") || name.startsWith("is")) && method.getParameters().isEmpty() && method.getReturnType().getKind() != TypeKind.VOID;
+        }
+
+        private static boolean isSetter(ExecutableElement method)
+        {
+            return method.getSimpleName().toString().startsWith("set") && method.getParameters().size() == 1;
+        }
+
+        private static String getAttributeName(ExecutableElement method)
+        {
+            String name = method.getSimpleName().toString();
+            if (name.startsWith("is")) {
+                return name.substring(2);
+            }
+            return name.substring(3);
+        }
+    }
+
+    private static final class AttributeMethods
+    {
+        private ExecutableElement concreteGetter;
+        private ExecutableElement annotatedGetter;
+        private ExecutableElement concreteSetter;
+        private ExecutableElement annotatedSetter;
+    }
+}
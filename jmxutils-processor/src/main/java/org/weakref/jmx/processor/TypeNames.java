@@ -0,0 +1,125 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx.processor;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Names of erased types as reflection reports them and as generated source refers to them.
+ */
+final class TypeNames
+{
+    private final Elements elements;
+    private final Types types;
+
+    TypeNames(Elements elements, Types types)
+    {
+        this.elements = requireNonNull(elements, "elements is null");
+        this.types = requireNonNull(types, "types is null");
+    }
+
+    /**
+     * Returns the name {@link Class#getName} reports for the erasure of the type.
+     */
+    public String getBinaryName(TypeMirror type)
+            throws UnsupportedTypeException
+    {
+        TypeMirror erasure = types.erasure(type);
+        return switch (erasure.getKind()) {
+            case BOOLEAN, BYTE, SHORT, INT, LONG, CHAR, FLOAT, DOUBLE, VOID -> erasure.getKind().name().toLowerCase();
+            case ARRAY -> "[" + getDescriptor(((ArrayType) erasure).getComponentType());
+            case DECLARED -> elements.getBinaryName((TypeElement) ((DeclaredType) erasure).asElement()).toString();
+            default -> throw new UnsupportedTypeException("unsupported type: " + type);
+        };
+    }
+
+    private String getDescriptor(TypeMirror type)
+            throws UnsupportedTypeException
+    {
+        return switch (type.getKind()) {
+            case BOOLEAN -> "Z";
+            case BYTE -> "B";
+            case SHORT -> "S";
+            case INT -> "I";
+            case LONG -> "J";
+            case CHAR -> "C";
+            case FLOAT -> "F";
+            case DOUBLE -> "D";
+            case ARRAY -> "[" + getDescriptor(((ArrayType) type).getComponentType());
+            case DECLARED -> "L" + getBinaryName(type) + ";";
+            default -> throw new UnsupportedTypeException("unsupported type: " + type);
+        };
+    }
+
+    /**
+     * Returns the source name of the erasure of the type.
+     */
+    public String getSourceName(TypeMirror type)
+            throws UnsupportedTypeException
+    {
+        TypeMirror erasure = types.erasure(type);
+        return switch (erasure.getKind()) {
+            case BOOLEAN, BYTE, SHORT, INT, LONG, CHAR, FLOAT, DOUBLE, VOID -> erasure.getKind().name().toLowerCase();
+            case ARRAY -> getSourceName(((ArrayType) erasure).getComponentType()) + "[]";
+            case DECLARED -> ((TypeElement) ((DeclaredType) erasure).asElement()).getQualifiedName().toString();
+            default -> throw new UnsupportedTypeException("unsupported type: " + type);
+        };
+    }
+
+    /**
+     * Returns the source name of the wrapper of a primitive type.
+     */
+    public String getWrapperName(TypeMirror type)
+    {
+        return types.boxedClass(types.getPrimitiveType(type.getKind())).getQualifiedName().toString();
+    }
+
+    /**
+     * Checks that generated code in the given package can refer to the erasure of the type by name.
+     */
+    public boolean isAccessible(TypeMirror type, PackageElement fromPackage)
+    {
+        TypeMirror erasure = types.erasure(type);
+        return switch (erasure.getKind()) {
+            case ARRAY -> isAccessible(((ArrayType) erasure).getComponentType(), fromPackage);
+            case DECLARED -> isAccessible((TypeElement) ((DeclaredType) erasure).asElement(), fromPackage);
+            default -> erasure.getKind().isPrimitive();
+        };
+    }
+
+    public boolean isAccessible(TypeElement type, PackageElement fromPackage)
+    {
+        boolean samePackage = elements.getPackageOf(type).equals(fromPackage);
+        for (Element element = type; element.getKind() != ElementKind.PACKAGE; element = element.getEnclosingElement()) {
+            if (!(element instanceof TypeElement) || element.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (!samePackage && !element.getModifiers().contains(Modifier.PUBLIC)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,322 @@
+package org.weakref.jmx.processor;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.weakref.jmx.MBeanAdapter;
+import org.weakref.jmx.MBeanExporter;
+import org.weakref.jmx.MBeanExporterConfig;
+import org.weakref.jmx.testing.TestingMBeanServer;
+
+import javax.management.Attribute;
+import javax.management.MBeanException;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestMBeanAdapterProcessor
+{
+    private static final String SAMPLE = """
+            package sample;
+
+            import org.weakref.jmx.Cached;
+            import org.weakref.jmx.Flatten;
+            import org.weakref.jmx.Managed;
+            import org.weakref.jmx.ManagedAnnotation;
+            import org.weakref.jmx.Nested;
+
+            import javax.management.DescriptorKey;
+
+            import java.lang.annotation.ElementType;
+            import java.lang.annotation.Retention;
+            import java.lang.annotation.RetentionPolicy;
+            import java.lang.annotation.Target;
+            import java.util.List;
+            import java.util.concurrent.TimeUnit;
+
+            public class Sample
+                    extends Base<String>
+                    implements Api
+            {
+                private final Child child = new Child();
+                private int value;
+                private boolean enabled;
+
+                @Managed(description = "the value")
+                @Cached(ttl = 5, unit = TimeUnit.SECONDS)
+                public int getValue()
+                {
+                    return value;
+                }
+
+                @Managed
+                public void setValue(int value)
+                {
+                    this.value = value;
+                }
+
+                @Managed
+                public boolean isEnabled()
+                {
+                    return enabled;
+                }
+
+                @Managed
+                public void setEnabled(boolean enabled)
+                {
+                    this.enabled = enabled;
+                }
+
+                @Counter(description = "events", unit = TimeUnit.SECONDS, tags = {"a", "b"}, limits = {1, 2}, type = List.class)
+                public long getCount()
+                {
+                    return 7;
+                }
+
+                @Managed
+                public double add(long a, @Counter(description = "second operand") double b)
+                {
+                    return a + b;
+                }
+
+                @Managed
+                public String echo(int value)
+                {
+                    return "int";
+                }
+
+                @Managed
+                public String echo(Integer value)
+                {
+                    return "Integer";
+                }
+
+                @Managed
+                public static String version()
+                {
+                    return "1.0";
+                }
+
+                @Managed
+                public void fail()
+                        throws Exception
+                {
+                    throw new Exception("fail");
+                }
+
+                @Override
+                public String getName()
+                {
+                    return "sample";
+                }
+
+                @Nested
+                public Child getChild()
+                {
+                    return child;
+                }
+
+                @Flatten
+                public Child getFlat()
+                {
+                    return child;
+                }
+
+                @Retention(RetentionPolicy.RUNTIME)
+                @Target({ElementType.METHOD, ElementType.PARAMETER})
+                @ManagedAnnotation
+                public @interface Counter
+                {
+                    String description() default "";
+
+                    @DescriptorKey("units")
+                    TimeUnit unit() default TimeUnit.NANOSECONDS;
+
+                    @DescriptorKey("tags")
+                    String[] tags() default {};
+
+                    @DescriptorKey("limits")
+                    int[] limits() default {};
+
+                    @DescriptorKey("type")
+                    Class<?> type() default Object.class;
+                }
+
+                public static class Child
+                {
+                    @Managed
+                    public int getDepth()
+                    {
+                        return 1;
+                    }
+                }
+
+                private static class Hidden
+                {
+                    @Managed
+                    public int getValue()
+                    {
+                        return 0;
+                    }
+                }
+            }
+
+            abstract class Base<T>
+            {
+                @Managed
+                public T getItem()
+                {
+                    return null;
+                }
+            }
+
+            interface Api
+            {
+                @Managed(description = "from interface")
+                String getName();
+            }
+            """;
+
+    private ClassLoader classLoader;
+
+    @BeforeClass
+    public void compileSample()
+            throws Exception
+    {
+        Path directory = Files.createTempDirectory("jmxutils-processor");
+        Path source = directory.resolve("sample/Sample.java");
+        Files.createDirectories(source.getParent());
+        Files.writeString(source, SAMPLE, UTF_8);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, UTF_8)) {
+            List<String> options = List.of(
+                    "-d", directory.toString(),
+                    "-classpath", System.getProperty("java.class.path"),
+                    "-parameters",
+                    "-Xlint:all,-processing",
+                    "-Werror");
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, fileManager.getJavaFileObjects(source.toFile()));
+            task.setProcessors(List.of(new MBeanAdapterProcessor()));
+            boolean success = task.call();
+
+            List<String> messages = new ArrayList<>();
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                messages.add(diagnostic.toString());
+            }
+            assertTrue(success, "compilation failed: " + messages);
+        }
+
+        classLoader = new URLClassLoader(new URL[] {directory.toUri().toURL()}, getClass().getClassLoader());
+    }
+
+    @Test
+    public void testAdaptersAreGenerated()
+            throws Exception
+    {
+        assertTrue(MBeanAdapter.class.isAssignableFrom(classLoader.loadClass("sample.Sample_MBeanAdapter")));
+        assertTrue(MBeanAdapter.class.isAssignableFrom(classLoader.loadClass("sample.Sample$Child_MBeanAdapter")));
+
+        // private classes can not be referenced from the adapter
+        assertNoClass("sample.Sample$Hidden_MBeanAdapter");
+        // abstract types and types without managed methods get no adapter
+        assertNoClass("sample.Api_MBeanAdapter");
+        assertNoClass("sample.Base_MBeanAdapter");
+    }
+
+    @Test
+    public void testMatchesReflection()
+            throws Exception
+    {
+        Object sample = classLoader.loadClass("sample.Sample").getConstructor().newInstance();
+        MBeanInfo adapted = export(sample, true).getMBeanInfo(name());
+        MBeanInfo reflected = export(sample, false).getMBeanInfo(name());
+
+        assertEquals(adapted.getClassName(), reflected.getClassName());
+        assertEquals(adapted.getDescription(), reflected.getDescription());
+        assertEquals(Set.of(adapted.getAttributes()), Set.of(reflected.getAttributes()));
+        assertEquals(Set.of(adapted.getOperations()), Set.of(reflected.getOperations()));
+        assertFalse(new HashSet<>(List.of(adapted.getAttributes())).isEmpty());
+    }
+
+    @Test
+    public void testDispatch()
+            throws Exception
+    {
+        Object sample = classLoader.loadClass("sample.Sample").getConstructor().newInstance();
+        MBeanServer server = export(sample, true);
+        ObjectName name = name();
+
+        server.setAttribute(name, new Attribute("Value", 42));
+        assertEquals(server.getAttribute(name, "Value"), 42);
+        assertEquals(server.getAttribute(name, "Value"), 42);
+        assertEquals(server.getAttribute(name, "Value.CacheHits"), 1L);
+        server.setAttribute(name, new Attribute("Enabled", true));
+        assertEquals(server.getAttribute(name, "Enabled"), true);
+        assertEquals(server.getAttribute(name, "Count"), 7L);
+        assertEquals(server.getAttribute(name, "Name"), "sample");
+        assertEquals(server.getAttribute(name, "Child.Depth"), 1);
+        assertEquals(server.getAttribute(name, "Depth"), 1);
+
+        assertEquals(server.invoke(name, "add", new Object[] {1, 'a'}, new String[] {"long", "double"}), 98.0);
+        assertEquals(server.invoke(name, "echo", new Object[] {1}, new String[] {"int"}), "int");
+        assertEquals(server.invoke(name, "echo", new Object[] {1}, new String[] {Integer.class.getName()}), "Integer");
+        assertEquals(server.invoke(name, "version", new Object[0], new String[0]), "1.0");
+
+        try {
+            server.invoke(name, "fail", new Object[0], new String[0]);
+            fail("expected MBeanException");
+        }
+        catch (MBeanException e) {
+            assertEquals(e.getMessage(), "Exception occurred while invoking fail()");
+            assertEquals(e.getCause().getMessage(), "fail");
+        }
+    }
+
+    private void assertNoClass(String name)
+    {
+        try {
+            classLoader.loadClass(name);
+            fail("expected no class " + name);
+        }
+        catch (ClassNotFoundException expected) {
+        }
+    }
+
+    private static MBeanServer export(Object object, boolean generatedAdaptersEnabled)
+            throws Exception
+    {
+        MBeanServer server = new TestingMBeanServer();
+        MBeanExporterConfig config = new MBeanExporterConfig().setGeneratedAdaptersEnabled(generatedAdaptersEnabled);
+        new MBeanExporter(server, Optional.empty(), Optional.of(config)).export(name(), object);
+        return server;
+    }
+
+    private static ObjectName name()
+            throws Exception
+    {
+        return new ObjectName("sample:name=Sample");
+    }
+}
@@ -0,0 +1,557 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Emits one {@link ClassAccessor} per managed class as a hidden class whose {@code invoke} method is a
+ * {@code tableswitch} over direct {@code invokevirtual}/{@code invokeinterface} calls. The generated class
+ * is cached per managed class, so repeated exports of the same class reuse it.
+ * <p>
+ * Only methods the generated class can link against are included: public methods of public classes that
+ * are visible from this library's class loader. Everything else keeps using method handles.
+ */
+final class AccessorGenerator
+{
+    // Java 5 class files are verified by type inference, so the generated code needs no StackMapTable
+    private static final int CLASS_VERSION = 49;
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final String CLASS_NAME = internalName(AccessorGenerator.class.getPackageName()) + "/GeneratedAccessor";
+    private static final String INVOKE_DESCRIPTOR = "(ILjava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;";
+
+    private static final ClassValue<Map<Method, MethodInvoker>> INVOKERS = new ClassValue<>()
+    {
+        @Override
+        protected Map<Method, MethodInvoker> computeValue(Class<?> type)
+        {
+            return generateInvokers(type);
+        }
+    };
+
+    private AccessorGenerator()
+    {
+    }
+
+    /**
+     * Returns an invoker for a managed method of the given class, backed by the generated accessor
+     * when the method could be included in it.
+     */
+    public static MethodInvoker invokerFor(Class<?> type, Method method)
+    {
+        MethodInvoker invoker = INVOKERS.get(type).get(method);
+        if (invoker == null) {
+            return MethodInvoker.of(method);
+        }
+        return invoker;
+    }
+
+    private static Map<Method, MethodInvoker> generateInvokers(Class<?> type)
+    {
+        List<Method> methods = new ArrayList<>();
+        for (Method method : AnnotationUtils.findManagedMethods(type).keySet()) {
+            if (isLinkable(method)) {
+                methods.add(method);
+            }
+        }
+        if (methods.isEmpty()) {
+            return ImmutableMap.of();
+        }
+
+        ClassAccessor accessor;
+        try {
+            MethodHandles.Lookup lookup = LOOKUP.defineHiddenClass(generate(methods), true);
+            accessor = (ClassAccessor) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+        }
+        catch (Throwable e) {
+            // the generated class is only an optimization
+            return ImmutableMap.of();
+        }
+
+        ImmutableMap.Builder<Method, MethodInvoker> invokers = ImmutableMap.builder();
+        for (int i = 0; i < methods.size(); i++) {
+            invokers.put(methods.get(i), MethodInvoker.of(methods.get(i), accessor, i));
+        }
+        return invokers.build();
+    }
+
+    private static boolean isLinkable(Method method)
+    {
+        Class<?> owner = method.getDeclaringClass();
+        if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(owner.getModifiers())) {
+            return false;
+        }
+        // static interface methods need a newer class file version than the one generated here
+        if (owner.isInterface() && Modifier.isStatic(method.getModifiers())) {
+            return false;
+        }
+        if (!owner.getModule().isExported(owner.getPackageName(), AccessorGenerator.class.getModule())) {
+            return false;
+        }
+
+        if (!isVisible(owner) || !isVisible(method.getReturnType())) {
+            return false;
+        }
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (!isVisible(parameterType)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isVisible(Class<?> type)
+    {
+        if (type.isPrimitive()) {
+            return true;
+        }
+        try {
+            return Class.forName(type.getName(), false, AccessorGenerator.class.getClassLoader()) == type;
+        }
+        catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static byte[] generate(List<Method> methods)
+    {
+        ConstantPool pool = new ConstantPool();
+        int thisClass = pool.classRef(CLASS_NAME);
+        int superClass = pool.classRef("java/lang/Object");
+        int accessorInterface = pool.classRef(internalName(ClassAccessor.class.getName()));
+        int code = pool.utf8("Code");
+        int constructorName = pool.utf8("<init>");
+        int constructorDescriptor = pool.utf8("()V");
+        int invokeName = pool.utf8("invoke");
+        int invokeDescriptor = pool.utf8(INVOKE_DESCRIPTOR);
+
+        byte[] constructor = generateConstructor(pool);
+        CodeBuffer invoke = generateInvoke(pool, methods);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(CLASS_VERSION);
+            pool.writeTo(out);
+            out.writeShort(Modifier.PUBLIC | Modifier.FINAL | 0x0020); // ACC_SUPER
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(accessorInterface);
+            out.writeShort(0); // fields
+
+            out.writeShort(2); // methods
+            writeMethod(out, constructorName, constructorDescriptor, code, 1, 1, constructor);
+            writeMethod(out, invokeName, invokeDescriptor, code, invoke.maxStack, 4, invoke.toByteArray());
+
+            out.writeShort(0); // attributes
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] generateConstructor(ConstantPool pool)
+    {
+        CodeBuffer code = new CodeBuffer();
+        code.op(Opcode.ALOAD_0);
+        code.op(Opcode.INVOKESPECIAL).u2(pool.methodRef("java/lang/Object", "<init>", "()V", false));
+        code.op(Opcode.RETURN);
+        return code.toByteArray();
+    }
+
+    private static CodeBuffer generateInvoke(ConstantPool pool, List<Method> methods)
+    {
+        CodeBuffer code = new CodeBuffer();
+        code.maxStack = 2;
+
+        // switch (method) { ... }
+        code.op(Opcode.ILOAD_1);
+        int switchStart = code.size();
+        code.op(Opcode.TABLESWITCH);
+        while (code.size() % 4 != 0) {
+            code.u1(0);
+        }
+        int defaultOffset = code.size();
+        code.u4(0);
+        code.u4(0);
+        code.u4(methods.size() - 1);
+        int firstCaseOffset = code.size();
+        for (int i = 0; i < methods.size(); i++) {
+            code.u4(0);
+        }
+
+        // default: throw new IndexOutOfBoundsException()
+        code.patch(defaultOffset, code.size() - switchStart);
+        code.op(Opcode.NEW).u2(pool.classRef("java/lang/IndexOutOfBoundsException"));
+        code.op(Opcode.DUP);
+        code.op(Opcode.INVOKESPECIAL).u2(pool.methodRef("java/lang/IndexOutOfBoundsException", "<init>", "()V", false));
+        code.op(Opcode.ATHROW);
+
+        for (int i = 0; i < methods.size(); i++) {
+            code.patch(firstCaseOffset + 4 * i, code.size() - switchStart);
+            generateCall(code, pool, methods.get(i));
+        }
+        return code;
+    }
+
+    private static void generateCall(CodeBuffer code, ConstantPool pool, Method method)
+    {
+        Class<?> owner = method.getDeclaringClass();
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+
+        int stack = 0;
+        if (!isStatic) {
+            code.op(Opcode.ALOAD_2);
+            code.op(Opcode.CHECKCAST).u2(pool.classRef(internalName(owner)));
+            stack++;
+        }
+
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        int argumentSlots = 0;
+        for (int i = 0; i < parameterTypes.length; i++) {
+            code.op(Opcode.ALOAD_3);
+            code.pushInt(i);
+            code.op(Opcode.AALOAD);
+            code.maxStack = Math.max(code.maxStack, stack + 2);
+            unbox(code, pool, parameterTypes[i]);
+            stack += slots(parameterTypes[i]);
+            argumentSlots += slots(parameterTypes[i]);
+        }
+        code.maxStack = Math.max(code.maxStack, Math.max(stack, slots(method.getReturnType())));
+
+        String descriptor = methodDescriptor(method);
+        if (isStatic) {
+            code.op(Opcode.INVOKESTATIC).u2(pool.methodRef(internalName(owner), method.getName(), descriptor, false));
+        }
+        else if (owner.isInterface()) {
+            code.op(Opcode.INVOKEINTERFACE).u2(pool.methodRef(internalName(owner), method.getName(), descriptor, true));
+            code.u1(argumentSlots + 1);
+            code.u1(0);
+        }
+        else {
+            code.op(Opcode.INVOKEVIRTUAL).u2(pool.methodRef(internalName(owner), method.getName(), descriptor, false));
+        }
+
+        box(code, pool, method.getReturnType());
+        code.op(Opcode.ARETURN);
+    }
+
+    private static void unbox(CodeBuffer code, ConstantPool pool, Class<?> type)
+    {
+        if (type.isPrimitive()) {
+            // the helpers apply the widening conversions Method.invoke allows
+            String helper = "to" + Character.toUpperCase(type.getName().charAt(0)) + type.getName().substring(1);
+            code.op(Opcode.INVOKESTATIC).u2(pool.methodRef(internalName(AccessorGenerator.class), helper, "(Ljava/lang/Object;)" + descriptor(type), false));
+        }
+        else if (type != Object.class) {
+            code.op(Opcode.CHECKCAST).u2(pool.classRef(internalName(type)));
+        }
+    }
+
+    private static void box(CodeBuffer code, ConstantPool pool, Class<?> type)
+    {
+        if (type == void.class) {
+            code.op(Opcode.ACONST_NULL);
+        }
+        else if (type.isPrimitive()) {
+            String wrapper = internalName(MethodType.methodType(type).wrap().returnType());
+            code.op(Opcode.INVOKESTATIC).u2(pool.methodRef(wrapper, "valueOf", "(" + descriptor(type) + ")L" + wrapper + ";", false));
+        }
+    }
+
+    private static int slots(Class<?> type)
+    {
+        if (type == void.class) {
+            return 0;
+        }
+        return (type == long.class || type == double.class) ? 2 : 1;
+    }
+
+    private static String methodDescriptor(Method method)
+    {
+        return MethodType.methodType(method.getReturnType(), method.getParameterTypes()).toMethodDescriptorString();
+    }
+
+    private static String descriptor(Class<?> type)
+    {
+        return MethodType.methodType(type).toMethodDescriptorString().substring(2);
+    }
+
+    private static String internalName(Class<?> type)
+    {
+        // array classes are referenced by descriptor, everything else by binary name
+        return type.isArray() ? descriptor(type) : internalName(type.getName());
+    }
+
+    private static String internalName(String name)
+    {
+        return name.replace('.', '/');
+    }
+
+    // Unboxing helpers called from generated code. Arguments have already been checked with
+    // ReflectionUtils.isValidArgument, so only the wrappers allowed for each type reach here.
+
+    static boolean toBoolean(Object value)
+    {
+        return (Boolean) value;
+    }
+
+    static char toChar(Object value)
+    {
+        return (Character) value;
+    }
+
+    static byte toByte(Object value)
+    {
+        return (Byte) value;
+    }
+
+    static short toShort(Object value)
+    {
+        return ((Number) value).shortValue();
+    }
+
+    static int toInt(Object value)
+    {
+        if (value instanceof Character character) {
+            return character;
+        }
+        return ((Number) value).intValue();
+    }
+
+    static long toLong(Object value)
+    {
+        if (value instanceof Character character) {
+            return character;
+        }
+        return ((Number) value).longValue();
+    }
+
+    static float toFloat(Object value)
+    {
+        if (value instanceof Character character) {
+            return character;
+        }
+        return ((Number) value).floatValue();
+    }
+
+    static double toDouble(Object value)
+    {
+        if (value instanceof Character character) {
+            return character;
+        }
+        return ((Number) value).doubleValue();
+    }
+
+    private static void writeMethod(DataOutputStream out, int name, int descriptor, int codeAttribute, int maxStack, int maxLocals, byte[] code)
+            throws IOException
+    {
+        out.writeShort(Modifier.PUBLIC);
+        out.writeShort(name);
+        out.writeShort(descriptor);
+        out.writeShort(1);
+        out.writeShort(codeAttribute);
+        out.writeInt(12 + code.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0); // exception table
+        out.writeShort(0); // attributes
+    }
+
+    private static final class Opcode
+    {
+        static final int ACONST_NULL = 0x01;
+        static final int ICONST_0 = 0x03;
+        static final int BIPUSH = 0x10;
+        static final int SIPUSH = 0x11;
+        static final int ILOAD_1 = 0x1b;
+        static final int ALOAD_0 = 0x2a;
+        static final int ALOAD_2 = 0x2c;
+        static final int ALOAD_3 = 0x2d;
+        static final int AALOAD = 0x32;
+        static final int DUP = 0x59;
+        static final int TABLESWITCH = 0xaa;
+        static final int ARETURN = 0xb0;
+        static final int RETURN = 0xb1;
+        static final int INVOKEVIRTUAL = 0xb6;
+        static final int INVOKESPECIAL = 0xb7;
+        static final int INVOKESTATIC = 0xb8;
+        static final int INVOKEINTERFACE = 0xb9;
+        static final int NEW = 0xbb;
+        static final int ATHROW = 0xbf;
+        static final int CHECKCAST = 0xc0;
+    }
+
+    private static final class CodeBuffer
+    {
+        private byte[] code = new byte[256];
+        private int size;
+        private int maxStack;
+
+        CodeBuffer op(int opcode)
+        {
+            return u1(opcode);
+        }
+
+        CodeBuffer u1(int value)
+        {
+            if (size == code.length) {
+                code = Arrays.copyOf(code, size * 2);
+            }
+            code[size++] = (byte) value;
+            return this;
+        }
+
+        CodeBuffer u2(int value)
+        {
+            u1(value >>> 8);
+            return u1(value);
+        }
+
+        CodeBuffer u4(int value)
+        {
+            u2(value >>> 16);
+            return u2(value);
+        }
+
+        void pushInt(int value)
+        {
+            if (value <= 5) {
+                op(Opcode.ICONST_0 + value);
+            }
+            else if (value <= Byte.MAX_VALUE) {
+                op(Opcode.BIPUSH).u1(value);
+            }
+            else {
+                op(Opcode.SIPUSH).u2(value);
+            }
+        }
+
+        int size()
+        {
+            return size;
+        }
+
+        void patch(int offset, int value)
+        {
+            code[offset] = (byte) (value >>> 24);
+            code[offset + 1] = (byte) (value >>> 16);
+            code[offset + 2] = (byte) (value >>> 8);
+            code[offset + 3] = (byte) value;
+        }
+
+        byte[] toByteArray()
+        {
+            return Arrays.copyOf(code, size);
+        }
+    }
+
+    private static final class ConstantPool
+    {
+        private static final int UTF8 = 1;
+        private static final int CLASS = 7;
+        private static final int METHOD_REF = 10;
+        private static final int INTERFACE_METHOD_REF = 11;
+        private static final int NAME_AND_TYPE = 12;
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String, Integer> entries = new HashMap<>();
+        private int count = 1;
+
+        int utf8(String value)
+        {
+            return entry("utf8:" + value, () -> {
+                out.writeByte(UTF8);
+                out.writeUTF(value);
+            });
+        }
+
+        int classRef(String internalName)
+        {
+            int name = utf8(internalName);
+            return entry("class:" + internalName, () -> {
+                out.writeByte(CLASS);
+                out.writeShort(name);
+            });
+        }
+
+        int methodRef(String owner, String name, String descriptor, boolean isInterface)
+        {
+            int ownerClass = classRef(owner);
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            int nameAndType = entry("nameAndType:" + name + descriptor, () -> {
+                out.writeByte(NAME_AND_TYPE);
+                out.writeShort(nameIndex);
+                out.writeShort(descriptorIndex);
+            });
+            return entry("method:" + isInterface + owner + "." + name + descriptor, () -> {
+                out.writeByte(isInterface ? INTERFACE_METHOD_REF : METHOD_REF);
+                out.writeShort(ownerClass);
+                out.writeShort(nameAndType);
+            });
+        }
+
+        void writeTo(DataOutputStream target)
+                throws IOException
+        {
+            out.flush();
+            target.writeShort(count);
+            target.write(bytes.toByteArray());
+        }
+
+        private int entry(String key, EntryWriter writer)
+        {
+            Integer index = entries.get(key);
+            if (index != null) {
+                return index;
+            }
+            try {
+                writer.write();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            entries.put(key, count);
+            return count++;
+        }
+
+        private interface EntryWriter
+        {
+            void write()
+                    throws IOException;
+        }
+    }
+}
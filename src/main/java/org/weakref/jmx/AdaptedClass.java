@@ -0,0 +1,137 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import org.weakref.jmx.MBeanAdapter.AdaptedAttribute;
+import org.weakref.jmx.MBeanAdapter.AdaptedOperation;
+import org.weakref.jmx.MBeanAdapter.AttributeKind;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A managed class with a generated {@link MBeanAdapter}, along with the invokers for its methods.
+ * Adapters are looked up once per class.
+ */
+final class AdaptedClass
+{
+    private static final ClassValue<Optional<AdaptedClass>> ADAPTED_CLASSES = new ClassValue<>()
+    {
+        @Override
+        protected Optional<AdaptedClass> computeValue(Class<?> type)
+        {
+            return loadAdapter(type).map(AdaptedClass::new);
+        }
+    };
+
+    private final String description;
+    private final List<Attribute> attributes = new ArrayList<>();
+    private final List<Operation> operations = new ArrayList<>();
+
+    private AdaptedClass(MBeanAdapter adapter)
+    {
+        description = adapter.getDescription();
+
+        for (AdaptedAttribute attribute : adapter.getAttributes()) {
+            MethodInvoker getter = null;
+            if (attribute.getter() >= 0) {
+                getter = MethodInvoker.of(adapter, attribute.getter(), new Signature(attribute.getterName()));
+            }
+            MethodInvoker setter = null;
+            if (attribute.setter() >= 0) {
+                setter = MethodInvoker.of(adapter, attribute.setter(), new Signature(attribute.setterName(), attribute.setterType().getName()), attribute.setterType());
+            }
+            attributes.add(new Attribute(attribute, getter, setter));
+        }
+
+        for (AdaptedOperation operation : adapter.getOperations()) {
+            MethodInvoker invoker = MethodInvoker.of(adapter, operation.method(), new Signature(operation.info()), operation.parameterTypes().toArray(new Class<?>[0]));
+            operations.add(new Operation(operation, invoker));
+        }
+    }
+
+    /**
+     * Returns the adapted class for objects whose class is exactly {@code type}.
+     */
+    public static Optional<AdaptedClass> forClass(Class<?> type)
+    {
+        requireNonNull(type, "type is null");
+        return ADAPTED_CLASSES.get(type);
+    }
+
+    public String getDescription()
+    {
+        return description;
+    }
+
+    /**
+     * Whether any attribute is replaced by the features of its value.
+     */
+    public boolean hasChildren()
+    {
+        return attributes.stream().anyMatch(attribute -> attribute.adapted().kind() != AttributeKind.ATTRIBUTE);
+    }
+
+    public Collection<MBeanFeature> getFeatures(ManagedObject managedObject, MBeanExporterConfig config)
+    {
+        Object target = managedObject.getTarget();
+        List<MBeanFeature> features = new ArrayList<>();
+        for (Attribute attribute : attributes) {
+            AdaptedAttribute adapted = attribute.adapted();
+            if (adapted.kind() == AttributeKind.ATTRIBUTE) {
+                features.addAll(MBeanAttributeBuilder.decorate(new ReflectionMBeanAttribute(adapted.info(), target, attribute.getter(), attribute.setter()), config));
+                continue;
+            }
+
+            ManagedObject value = managedObject.getChild(adapted.getterName());
+            features.addAll(MBeanAttributeBuilder.getChildFeatures(adapted.name(), value, adapted.kind() == AttributeKind.FLATTEN, config));
+        }
+        for (Operation operation : operations) {
+            features.add(new ReflectionMBeanOperation(operation.adapted().info(), target, operation.invoker()));
+        }
+        return features;
+    }
+
+    private static Optional<MBeanAdapter> loadAdapter(Class<?> type)
+    {
+        ClassLoader classLoader = type.getClassLoader();
+        if (classLoader == null || type.isHidden() || type.isArray()) {
+            return Optional.empty();
+        }
+
+        try {
+            Class<?> adapterClass = Class.forName(type.getName() + MBeanAdapter.CLASS_NAME_SUFFIX, true, classLoader);
+            if (!MBeanAdapter.class.isAssignableFrom(adapterClass)) {
+                return Optional.empty();
+            }
+            return Optional.of((MBeanAdapter) adapterClass.getConstructor().newInstance());
+        }
+        catch (ReflectiveOperationException | LinkageError e) {
+            // no usable adapter; the class is introspected through reflection, which reports any real problem
+            return Optional.empty();
+        }
+    }
+
+    private record Attribute(AdaptedAttribute adapted, MethodInvoker getter, MethodInvoker setter)
+    {
+    }
+
+    private record Operation(AdaptedOperation adapted, MethodInvoker invoker)
+    {
+    }
+}
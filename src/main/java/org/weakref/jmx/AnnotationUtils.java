@@ -15,6 +15,8 @@
  */
 package org.weakref.jmx;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import org.weakref.jmx.JmxException.Reason;
 
 import javax.management.Descriptor;
@@ -34,19 +36,107 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Stream;
 
 import static java.util.Arrays.asList;
 
 final class AnnotationUtils
 {
+    // managed methods only depend on the class, and a ClassValue does not keep the class from unloading
+    private static final ClassValue<Map<Method, Method>> MANAGED_METHODS = new ClassValue<>()
+    {
+        @Override
+        protected Map<Method, Method> computeValue(Class<?> type)
+        {
+            managedMethodsMisses.increment();
+            return Collections.unmodifiableMap(computeManagedMethods(type));
+        }
+    };
+
+    private static final LongAdder managedMethodsLookups = new LongAdder();
+    private static final LongAdder managedMethodsMisses = new LongAdder();
+
+    // annotation metadata of each method, held by the declaring class
+    private static final ClassValue<Map<Method, MethodMetadata>> METHOD_METADATA = new ClassValue<>()
+    {
+        @Override
+        protected Map<Method, MethodMetadata> computeValue(Class<?> type)
+        {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final LongAdder methodMetadataLookups = new LongAdder();
+    private static final LongAdder methodMetadataMisses = new LongAdder();
+
+    // descriptors only hold strings, primitives and arrays of them, so equal descriptors are interchangeable
+    private static final Interner<Descriptor> DESCRIPTORS = Interners.newWeakInterner();
+
     private AnnotationUtils()
     {
     }
 
+    /**
+     * Returns the descriptor of the method annotations. The descriptor is built once per method.
+     */
     public static Descriptor buildDescriptor(Method annotatedMethod)
     {
-        return buildDescriptor(annotatedMethod.getAnnotations());
+        return getMetadata(annotatedMethod).descriptor();
+    }
+
+    /**
+     * Returns the descriptor of the annotations of a method parameter. The descriptor is built once per method.
+     */
+    public static Descriptor buildParameterDescriptor(Method annotatedMethod, int parameter)
+    {
+        return getMetadata(annotatedMethod).parameterDescriptors()[parameter];
+    }
+
+    /**
+     * Returns an instance equal to the descriptor that is shared by all equal descriptors.
+     */
+    public static Descriptor intern(Descriptor descriptor)
+    {
+        return DESCRIPTORS.intern(descriptor);
+    }
+
+    private static MethodMetadata getMetadata(Method method)
+    {
+        methodMetadataLookups.increment();
+        return METHOD_METADATA.get(method.getDeclaringClass()).computeIfAbsent(method, AnnotationUtils::resolveMetadata);
+    }
+
+    private static MethodMetadata resolveMetadata(Method method)
+    {
+        methodMetadataMisses.increment();
+
+        Annotation[] annotations = method.getAnnotations();
+        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        Descriptor[] parameterDescriptors = new Descriptor[parameterAnnotations.length];
+        String[] parameterDescriptions = new String[parameterAnnotations.length];
+        for (int i = 0; i < parameterAnnotations.length; i++) {
+            parameterDescriptors[i] = intern(buildDescriptor(parameterAnnotations[i]));
+            parameterDescriptions[i] = getDescription(parameterDescriptors[i], parameterAnnotations[i]);
+        }
+
+        return new MethodMetadata(
+                intern(buildDescriptor(annotations)),
+                getDescription(annotations),
+                getName(annotations),
+                parameterDescriptors,
+                parameterDescriptions);
+    }
+
+    static long getMethodMetadataHits()
+    {
+        return Math.max(methodMetadataLookups.sum() - methodMetadataMisses.sum(), 0);
+    }
+
+    static long getMethodMetadataMisses()
+    {
+        return methodMetadataMisses.sum();
     }
 
     public static Descriptor buildDescriptor(Annotation... annotations)
@@ -199,7 +289,15 @@ final class AnnotationUtils
 
     public static String getDescription(Method annotatedMethod)
     {
-        return getDescription(annotatedMethod.getAnnotations());
+        return getMetadata(annotatedMethod).description();
+    }
+
+    /**
+     * Returns the description of a method parameter, from its annotations or its descriptor.
+     */
+    public static String getParameterDescription(Method annotatedMethod, int parameter)
+    {
+        return getMetadata(annotatedMethod).parameterDescriptions()[parameter];
     }
 
     public static String getDescription(Annotation... annotations)
@@ -217,7 +315,7 @@ final class AnnotationUtils
 
     public static String getName(Method annotatedMethod)
     {
-        return getName(annotatedMethod.getAnnotations());
+        return getMetadata(annotatedMethod).name();
     }
 
     public static String getName(Annotation... annotations)
@@ -238,10 +336,27 @@ final class AnnotationUtils
      * Find methods that are tagged as managed somewhere in the hierarchy
      *
      * @param clazz the class to analyze
-     * @return a map that associates a concrete method to the actual method tagged as managed
-     *         (which may belong to a different class in clazz's hierarchy)
+     * @return an unmodifiable map that associates a concrete method to the actual method tagged as managed
+     *         (which may belong to a different class in clazz's hierarchy), computed once per class
      */
     public static Map<Method, Method> findManagedMethods(Class<?> clazz)
+    {
+        managedMethodsLookups.increment();
+        return MANAGED_METHODS.get(clazz);
+    }
+
+    static long getManagedMethodsHits()
+    {
+        // a miss computed concurrently with a lookup can briefly be counted before the lookup
+        return Math.max(managedMethodsLookups.sum() - managedMethodsMisses.sum(), 0);
+    }
+
+    static long getManagedMethodsMisses()
+    {
+        return managedMethodsMisses.sum();
+    }
+
+    private static Map<Method, Method> computeManagedMethods(Class<?> clazz)
     {
         Map<Method, Method> result = new HashMap<>();
 
@@ -344,4 +459,8 @@ final class AnnotationUtils
             return Optional.empty();
         }
     }
+
+    private record MethodMetadata(Descriptor descriptor, String description, String name, Descriptor[] parameterDescriptors, String[] parameterDescriptions)
+    {
+    }
 }
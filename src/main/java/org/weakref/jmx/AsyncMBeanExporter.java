@@ -0,0 +1,344 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import org.weakref.jmx.JmxException.Reason;
+
+import jakarta.annotation.PreDestroy;
+import javax.management.ObjectName;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Exports and unexports objects through an {@link MBeanExporter} on a background thread, so the
+ * introspection and the MBeanServer registration do not run on the calling thread. Requests are
+ * queued without locking and applied in order, in batches of whatever has been queued. An unexport
+ * that directly follows the export of the same name in a batch cancels that export. The unexport is
+ * still applied, since the name may have been exported by an earlier batch, and succeeds if the name
+ * is not exported. Names with any other sequence of requests in a batch have them applied in order.
+ * <p>
+ * Each request returns a future completed once it is applied, exceptionally if it failed or was
+ * cancelled. Failures are also counted by {@link #getFailedRequests()}. Instances can be exported
+ * like any other managed object.
+ */
+public class AsyncMBeanExporter
+{
+    private static final int MAX_BATCH_SIZE = 1024;
+
+    private final MBeanExporter exporter;
+    private final ConcurrentLinkedQueue<Request> queue = new ConcurrentLinkedQueue<>();
+    private final LongAdder queueDepth = new LongAdder();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final ExecutorService executor;
+    private volatile boolean closed;
+    // callers between their check of closed and queueing, which close waits out
+    private final AtomicInteger enqueuing = new AtomicInteger();
+
+    private final LongAdder appliedRequests = new LongAdder();
+    private final LongAdder cancelledRequests = new LongAdder();
+    private final LongAdder failedRequests = new LongAdder();
+
+    public AsyncMBeanExporter(MBeanExporter exporter)
+    {
+        this.exporter = requireNonNull(exporter, "exporter is null");
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jmxutils-async-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues the export of the object under the name.
+     *
+     * @return a handle whose {@link MBeanExport#unexport()} queues the unexport of the name, and
+     * whose {@link QueuedExport#getExported()} tells whether the export was applied
+     */
+    public QueuedExport export(ObjectName objectName, Object object)
+    {
+        requireNonNull(objectName, "objectName is null");
+        requireNonNull(object, "object is null");
+        Request request = new Request(objectName, object);
+        enqueue(request);
+        return new QueuedExport(objectName, () -> unexport(objectName), request.applied);
+    }
+
+    /**
+     * Queues the unexport of the name, cancelling its export if that directly precedes it in the queue.
+     *
+     * @return a future completed once the unexport is applied
+     */
+    public CompletableFuture<Void> unexport(ObjectName objectName)
+    {
+        requireNonNull(objectName, "objectName is null");
+        Request request = new Request(objectName, null);
+        enqueue(request);
+        return request.applied;
+    }
+
+    /**
+     * Returns a future completed once every request queued before this call has been applied or
+     * has failed. Use the future of each request to learn whether it succeeded.
+     */
+    public CompletableFuture<Void> flush()
+    {
+        Request request = new Request(null, null);
+        enqueue(request);
+        return request.applied;
+    }
+
+    /**
+     * Applies the queued requests and stops the background thread. Requests made afterwards are rejected.
+     */
+    @PreDestroy
+    public synchronized void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // callers that saw the exporter open queue their requests ahead of the final flush
+        while (enqueuing.get() != 0) {
+            Thread.onSpinWait();
+        }
+        Request flush = new Request(null, null);
+        add(flush);
+        flush.applied.join();
+        executor.shutdown();
+    }
+
+    @Managed(description = "Requests queued and not yet applied")
+    public long getQueueDepth()
+    {
+        return queueDepth.sum();
+    }
+
+    @Managed(description = "Time the oldest queued request has been waiting, in milliseconds")
+    public long getQueueLagMillis()
+    {
+        Request oldest = queue.peek();
+        if (oldest == null) {
+            return 0;
+        }
+        return NANOSECONDS.toMillis(Math.max(0, System.nanoTime() - oldest.queuedNanos));
+    }
+
+    @Managed(description = "Exports and unexports applied to the exporter")
+    public long getAppliedRequests()
+    {
+        return appliedRequests.sum();
+    }
+
+    @Managed(description = "Exports cancelled by an unexport of the same name")
+    public long getCancelledRequests()
+    {
+        return cancelledRequests.sum();
+    }
+
+    @Managed(description = "Exports and unexports that failed when applied")
+    public long getFailedRequests()
+    {
+        return failedRequests.sum();
+    }
+
+    private void enqueue(Request request)
+    {
+        enqueuing.incrementAndGet();
+        try {
+            if (closed) {
+                throw new IllegalStateException("exporter is closed");
+            }
+            add(request);
+        }
+        finally {
+            enqueuing.decrementAndGet();
+        }
+    }
+
+    private void add(Request request)
+    {
+        queueDepth.increment();
+        queue.add(request);
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain()
+    {
+        while (true) {
+            List<Request> batch = nextBatch();
+            while (!batch.isEmpty()) {
+                apply(batch);
+                batch = nextBatch();
+            }
+            draining.set(false);
+            // a request queued after the last poll, but before the flag was cleared, has no drain scheduled
+            if (queue.isEmpty() || !draining.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Polls the queued requests up to the first flush, leaving out each export that is directly
+     * followed by an unexport of the same name.
+     */
+    private List<Request> nextBatch()
+    {
+        List<Request> batch = new ArrayList<>();
+        Set<ObjectName> seen = new HashSet<>();
+        // position of the export of each name whose only request so far in the batch is that export
+        Map<ObjectName, Integer> cancellable = new HashMap<>();
+        Request request;
+        while (batch.size() < MAX_BATCH_SIZE && (request = queue.poll()) != null) {
+            queueDepth.decrement();
+            if (request.isFlush()) {
+                batch.add(request);
+                break;
+            }
+            if (request.isExport()) {
+                if (seen.add(request.objectName)) {
+                    cancellable.put(request.objectName, batch.size());
+                }
+                else {
+                    // the name has other requests in the batch, which must be applied in order
+                    cancellable.remove(request.objectName);
+                }
+                batch.add(request);
+                continue;
+            }
+            Integer export = cancellable.remove(request.objectName);
+            if (export != null) {
+                batch.get(export).applied.cancel(false);
+                batch.set(export, null);
+                cancelledRequests.increment();
+                // the name may still be exported by an earlier batch, which the unexport must remove
+                request.cancelledExport = true;
+            }
+            seen.add(request.objectName);
+            batch.add(request);
+        }
+        batch.removeIf(Objects::isNull);
+        return batch;
+    }
+
+    private void apply(List<Request> batch)
+    {
+        for (Request request : batch) {
+            if (request.isFlush()) {
+                request.applied.complete(null);
+                continue;
+            }
+            try {
+                if (request.isExport()) {
+                    exporter.export(request.objectName, request.object);
+                }
+                else {
+                    exporter.unexport(request.objectName);
+                }
+                appliedRequests.increment();
+                request.applied.complete(null);
+            }
+            catch (JmxException e) {
+                if (request.cancelledExport && e.getReason() == Reason.INSTANCE_NOT_FOUND) {
+                    // nothing was left to remove once the export was cancelled
+                    appliedRequests.increment();
+                    request.applied.complete(null);
+                }
+                else {
+                    failed(request, e);
+                }
+            }
+            catch (Throwable e) {
+                // errors too, or the drain would stop with the flag set and nothing queued would be applied again
+                failed(request, e);
+            }
+        }
+    }
+
+    private void failed(Request request, Throwable cause)
+    {
+        failedRequests.increment();
+        request.applied.completeExceptionally(cause);
+    }
+
+    /**
+     * The handle of a queued export.
+     */
+    public static final class QueuedExport
+            extends MBeanExport
+    {
+        private final CompletableFuture<Void> exported;
+
+        private QueuedExport(ObjectName objectName, Runnable unexport, CompletableFuture<Void> exported)
+        {
+            super(objectName, unexport);
+            this.exported = exported;
+        }
+
+        /**
+         * Returns a future completed once the object is exported, exceptionally with the failure
+         * of the export, or cancelled if an unexport of the name cancelled it first.
+         */
+        public CompletableFuture<Void> getExported()
+        {
+            return exported;
+        }
+    }
+
+    private static final class Request
+    {
+        // null for a flush
+        private final ObjectName objectName;
+        // null for an unexport or a flush
+        private final Object object;
+        private final CompletableFuture<Void> applied = new CompletableFuture<>();
+        private final long queuedNanos = System.nanoTime();
+        // set on an unexport that cancelled the export before it, only touched by the draining thread
+        private boolean cancelledExport;
+
+        private Request(ObjectName objectName, Object object)
+        {
+            this.objectName = objectName;
+            this.object = object;
+        }
+
+        private boolean isFlush()
+        {
+            return objectName == null;
+        }
+
+        private boolean isExport()
+        {
+            return object != null;
+        }
+    }
+}
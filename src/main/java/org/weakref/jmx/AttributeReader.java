@@ -0,0 +1,133 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import javax.management.AttributeNotFoundException;
+import javax.management.MBeanException;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads the attributes of an exported MBean in process, returned by
+ * {@link MBeanExporter#getAttributeReader}. The primitive reads avoid boxing the value where the
+ * attribute allows it, see {@link MBeanAttribute#getLong()}.
+ * <p>
+ * A reader that polls the same attributes can resolve each name to an ordinal once with
+ * {@link #getAttributeOrdinal} and read by ordinal afterwards, skipping the name lookup.
+ */
+public final class AttributeReader
+{
+    private final ObjectName objectName;
+    private final MBean mbean;
+
+    AttributeReader(ObjectName objectName, MBean mbean)
+    {
+        this.objectName = requireNonNull(objectName, "objectName is null");
+        this.mbean = requireNonNull(mbean, "mbean is null");
+    }
+
+    public ObjectName getObjectName()
+    {
+        return objectName;
+    }
+
+    /**
+     * Returns the ordinal of the named attribute, or -1 if there is no such attribute.
+     */
+    public int getAttributeOrdinal(String name)
+    {
+        return mbean.getAttributeOrdinal(name);
+    }
+
+    public Object getValue(int ordinal)
+            throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        return mbean.getAttribute(ordinal);
+    }
+
+    public long getLong(int ordinal)
+            throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        return attribute(ordinal).getLong();
+    }
+
+    public double getDouble(int ordinal)
+            throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        return attribute(ordinal).getDouble();
+    }
+
+    public boolean getBoolean(int ordinal)
+            throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        return attribute(ordinal).getBoolean();
+    }
+
+    public Object getValue(String name)
+            throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        return mbean.getAttribute(name);
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the attribute is not of an integral primitive type or {@code char}
+     */
+    public long getLong(String name)
+            throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        return attribute(name).getLong();
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the attribute is not of a numeric primitive type or {@code char}
+     */
+    public double getDouble(String name)
+            throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        return attribute(name).getDouble();
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the attribute is not of type {@code boolean}
+     */
+    public boolean getBoolean(String name)
+            throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        return attribute(name).getBoolean();
+    }
+
+    private MBeanAttribute attribute(String name)
+            throws AttributeNotFoundException
+    {
+        int ordinal = mbean.getAttributeOrdinal(name);
+        if (ordinal < 0) {
+            throw new AttributeNotFoundException(name);
+        }
+        return mbean.getAttributes().get(ordinal);
+    }
+
+    private MBeanAttribute attribute(int ordinal)
+            throws AttributeNotFoundException
+    {
+        List<MBeanAttribute> attributes = mbean.getAttributes();
+        if (ordinal < 0 || ordinal >= attributes.size()) {
+            throw new AttributeNotFoundException("No attribute with ordinal " + ordinal);
+        }
+        return attributes.get(ordinal);
+    }
+}
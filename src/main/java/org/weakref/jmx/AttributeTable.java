@@ -0,0 +1,156 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Attributes of an MBean in an open addressing table built once from their names. Each attribute
+ * has an ordinal, its position in name order, which in-process readers can resolve once and then use
+ * instead of the name.
+ */
+final class AttributeTable
+{
+    private final MBeanAttribute[] attributes;
+    private final List<MBeanAttribute> attributeList;
+
+    // ordinal -> index of the attribute in the collection the table was built from
+    private final int[] sources;
+
+    // slot -> name, name hash and ordinal; capacity is a power of two at least twice the size
+    private final String[] names;
+    private final int[] hashes;
+    private final int[] ordinals;
+    private final int mask;
+
+    public AttributeTable(Collection<MBeanAttribute> attributes)
+    {
+        // a later attribute replaces an earlier one with the same name
+        Map<String, Integer> byName = new TreeMap<>();
+        int index = 0;
+        for (MBeanAttribute attribute : attributes) {
+            byName.put(attribute.getName(), index++);
+        }
+        this.sources = byName.values().stream().mapToInt(Integer::intValue).toArray();
+        this.attributes = select(List.copyOf(attributes), sources);
+        this.attributeList = Collections.unmodifiableList(Arrays.asList(this.attributes));
+
+        int capacity = Integer.highestOneBit(Math.max(this.attributes.length, 1) * 2 - 1) << 1;
+        names = new String[capacity];
+        hashes = new int[capacity];
+        ordinals = new int[capacity];
+        mask = capacity - 1;
+
+        for (int ordinal = 0; ordinal < this.attributes.length; ordinal++) {
+            String name = this.attributes[ordinal].getName();
+            int hash = spread(name.hashCode());
+            int slot = hash & mask;
+            while (names[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            names[slot] = name;
+            hashes[slot] = hash;
+            ordinals[slot] = ordinal;
+        }
+    }
+
+    private AttributeTable(AttributeTable table, MBeanAttribute[] attributes)
+    {
+        this.attributes = attributes;
+        this.attributeList = Collections.unmodifiableList(Arrays.asList(attributes));
+        this.sources = table.sources;
+        this.names = table.names;
+        this.hashes = table.hashes;
+        this.ordinals = table.ordinals;
+        this.mask = table.mask;
+    }
+
+    /**
+     * Returns a table of the given attributes that shares the lookup structure of this table. The
+     * attributes must have the names, in the same order, of those this table was built from.
+     */
+    public AttributeTable withAttributes(List<MBeanAttribute> attributes)
+    {
+        MBeanAttribute[] selected = select(attributes, sources);
+        for (int ordinal = 0; ordinal < selected.length; ordinal++) {
+            if (!selected[ordinal].getName().equals(this.attributes[ordinal].getName())) {
+                throw new IllegalArgumentException("Expected attribute " + this.attributes[ordinal].getName() + " but was " + selected[ordinal].getName());
+            }
+        }
+        return new AttributeTable(this, selected);
+    }
+
+    private static MBeanAttribute[] select(List<MBeanAttribute> attributes, int[] sources)
+    {
+        MBeanAttribute[] selected = new MBeanAttribute[sources.length];
+        for (int ordinal = 0; ordinal < sources.length; ordinal++) {
+            selected[ordinal] = attributes.get(sources[ordinal]);
+        }
+        return selected;
+    }
+
+    public int size()
+    {
+        return attributes.length;
+    }
+
+    /**
+     * Returns the attributes in ordinal order.
+     */
+    public List<MBeanAttribute> getAttributes()
+    {
+        return attributeList;
+    }
+
+    /**
+     * Returns the ordinal of the attribute with the given name, or -1 if there is no such attribute.
+     */
+    public int ordinalOf(String name)
+    {
+        int hash = spread(name.hashCode());
+        int slot = hash & mask;
+        String candidate;
+        while ((candidate = names[slot]) != null) {
+            if (hashes[slot] == hash && candidate.equals(name)) {
+                return ordinals[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the attribute with the given name, or null.
+     */
+    public MBeanAttribute get(String name)
+    {
+        int ordinal = ordinalOf(name);
+        return ordinal < 0 ? null : attributes[ordinal];
+    }
+
+    public MBeanAttribute get(int ordinal)
+    {
+        return attributes[ordinal];
+    }
+
+    private static int spread(int hash)
+    {
+        return hash ^ (hash >>> 16);
+    }
+}
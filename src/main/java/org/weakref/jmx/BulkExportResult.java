@@ -0,0 +1,75 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import javax.management.ObjectName;
+
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The outcome of {@link MBeanExporter#exportAll} and {@link MBeanExporter#exportAllOrNothing}: the
+ * names that were exported and the exception that kept each other name from being exported.
+ */
+public final class BulkExportResult
+{
+    private final Set<ObjectName> exported;
+    private final Map<ObjectName, Exception> failures;
+    private final boolean rolledBack;
+
+    BulkExportResult(Set<ObjectName> exported, Map<ObjectName, Exception> failures, boolean rolledBack)
+    {
+        this.exported = ImmutableSet.copyOf(requireNonNull(exported, "exported is null"));
+        this.failures = ImmutableMap.copyOf(requireNonNull(failures, "failures is null"));
+        this.rolledBack = rolledBack;
+    }
+
+    public Set<ObjectName> getExported()
+    {
+        return exported;
+    }
+
+    /**
+     * Returns the exception for each name that failed to be introspected or registered. Names that
+     * were not attempted because an all-or-nothing export was rolled back are not included.
+     */
+    public Map<ObjectName, Exception> getFailures()
+    {
+        return failures;
+    }
+
+    /**
+     * Whether an all-or-nothing export failed and unexported the names it had already registered.
+     */
+    public boolean isRolledBack()
+    {
+        return rolledBack;
+    }
+
+    public boolean isSuccessful()
+    {
+        return failures.isEmpty();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "exported " + exported.size() + ", failed " + failures.keySet() + (rolledBack ? ", rolled back" : "");
+    }
+}
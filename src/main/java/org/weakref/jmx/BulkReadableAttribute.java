@@ -0,0 +1,42 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+/**
+ * An attribute that {@link MBean#getAttributes(String[])} can read without building the exceptions a
+ * failed {@link MBeanAttribute#getValue()} reports. Bulk reads drop failed attributes, so the wrapping
+ * exceptions, their stack traces and messages would be thrown away immediately.
+ */
+interface BulkReadableAttribute
+{
+    /**
+     * Returned by {@link #getValueOrFailed()} when the attribute can not be read.
+     */
+    Object FAILED = new Object();
+
+    Object getValueOrFailed();
+
+    static Object getValueOrFailed(MBeanAttribute attribute)
+    {
+        if (attribute instanceof BulkReadableAttribute readable) {
+            return readable.getValueOrFailed();
+        }
+        try {
+            return attribute.getValue();
+        }
+        catch (Exception e) {
+            return FAILED;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import javax.management.DescriptorKey;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the value of a managed attribute for the given time. It applies to getters that are also
+ * annotated {@link Managed}; on its own it does not export the method. Reads within the TTL return
+ * the last value read from the getter, and setting the attribute discards the cached value. The
+ * number of reads served from the cache and from the getter are exported as the {@code CacheHits}
+ * and {@code CacheMisses} attributes, prefixed with the name of the cached attribute.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Cached
+{
+    String TTL_FIELD = "cacheTtl";
+    String TTL_UNIT_FIELD = "cacheTtlUnit";
+
+    @DescriptorKey(TTL_FIELD)
+    long ttl();
+
+    @DescriptorKey(TTL_UNIT_FIELD)
+    TimeUnit unit() default TimeUnit.MILLISECONDS;
+}
@@ -0,0 +1,252 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import com.google.common.base.Ticker;
+
+import javax.management.AttributeNotFoundException;
+import javax.management.Descriptor;
+import javax.management.InvalidAttributeValueException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanException;
+import javax.management.ReflectionException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Serves the last value read from an attribute declared {@link Cached} until its TTL expires.
+ * Failed reads are not cached.
+ */
+class CachingMBeanAttribute implements MBeanAttribute, BulkReadableAttribute, RebindableFeature
+{
+    private final MBeanAttribute delegate;
+    private final long ttlNanos;
+    private final Ticker ticker;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private final AtomicReference<CachedValue> cachedValue = new AtomicReference<>();
+
+    CachingMBeanAttribute(MBeanAttribute delegate, long ttlNanos, Ticker ticker)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.ttlNanos = ttlNanos;
+        this.ticker = requireNonNull(ticker, "ticker is null");
+    }
+
+    /**
+     * Returns the attribute, or when its descriptor declares a cache TTL, the caching attribute and
+     * its statistics.
+     */
+    public static Collection<MBeanAttribute> withCaching(MBeanAttribute attribute)
+    {
+        return withCaching(attribute, Ticker.systemTicker());
+    }
+
+    static Collection<MBeanAttribute> withCaching(MBeanAttribute attribute, Ticker ticker)
+    {
+        long ttlNanos = getTtlNanos(attribute.getInfo().getDescriptor());
+        if (ttlNanos <= 0 || !attribute.getInfo().isReadable()) {
+            return List.of(attribute);
+        }
+
+        CachingMBeanAttribute caching = new CachingMBeanAttribute(attribute, ttlNanos, ticker);
+        String name = attribute.getName();
+        return List.of(
+                caching,
+                new CounterAttribute(name + ".CacheHits", "Reads of " + name + " served from the cache", caching, caching.hits),
+                new CounterAttribute(name + ".CacheMisses", "Reads of " + name + " served by the getter", caching, caching.misses));
+    }
+
+    private static long getTtlNanos(Descriptor descriptor)
+    {
+        if (descriptor == null || !(descriptor.getFieldValue(Cached.TTL_FIELD) instanceof Long ttl)) {
+            return 0;
+        }
+
+        TimeUnit unit = TimeUnit.MILLISECONDS;
+        if (descriptor.getFieldValue(Cached.TTL_UNIT_FIELD) instanceof String unitName) {
+            unit = TimeUnit.valueOf(unitName);
+        }
+        return unit.toNanos(ttl);
+    }
+
+    @Override
+    public MBeanAttributeInfo getInfo()
+    {
+        return delegate.getInfo();
+    }
+
+    @Override
+    public String getName()
+    {
+        return delegate.getName();
+    }
+
+    @Override
+    public boolean isBoundTo(Object target)
+    {
+        return RebindableFeature.isBoundTo(delegate, target);
+    }
+
+    @Override
+    public List<MBeanFeature> rebind(Object target)
+    {
+        return List.copyOf(withCaching(RebindableFeature.rebindAttribute(delegate, target), ticker));
+    }
+
+    @Override
+    public Object getValue()
+            throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        long now = ticker.read();
+        CachedValue cached = cachedValue.get();
+        if (cached != null && cached.isValidAt(now)) {
+            hits.increment();
+            return cached.value();
+        }
+
+        misses.increment();
+        Object value = delegate.getValue();
+        cache(cached, value, now);
+        return value;
+    }
+
+    @Override
+    public Object getValueOrFailed()
+    {
+        long now = ticker.read();
+        CachedValue cached = cachedValue.get();
+        if (cached != null && cached.isValidAt(now)) {
+            hits.increment();
+            return cached.value();
+        }
+
+        misses.increment();
+        Object value = BulkReadableAttribute.getValueOrFailed(delegate);
+        if (value != FAILED) {
+            cache(cached, value, now);
+        }
+        return value;
+    }
+
+    @Override
+    public void setValue(Object value)
+            throws AttributeNotFoundException, InvalidAttributeValueException, MBeanException, ReflectionException
+    {
+        delegate.setValue(value);
+        // a fresh expired entry, so reads that started before the write cannot install their value
+        cachedValue.set(new CachedValue(null, ticker.read()));
+    }
+
+    private void cache(CachedValue snapshot, Object value, long now)
+    {
+        // a set since the snapshot was taken means the value may predate the write
+        cachedValue.compareAndSet(snapshot, new CachedValue(value, now + ttlNanos));
+    }
+
+    MBeanAttribute getDelegate()
+    {
+        return delegate;
+    }
+
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+    private record CachedValue(Object value, long expiresAt)
+    {
+        boolean isValidAt(long now)
+        {
+            return now - expiresAt < 0;
+        }
+    }
+
+    private static class CounterAttribute
+            implements MBeanAttribute, RebindableFeature
+    {
+        private final MBeanAttributeInfo info;
+        private final CachingMBeanAttribute owner;
+        private final LongAdder counter;
+
+        private CounterAttribute(String name, String description, CachingMBeanAttribute owner, LongAdder counter)
+        {
+            this.info = new MBeanAttributeInfo(name, long.class.getName(), description, true, false, false);
+            this.owner = owner;
+            this.counter = counter;
+        }
+
+        @Override
+        public MBeanAttributeInfo getInfo()
+        {
+            return info;
+        }
+
+        @Override
+        public String getName()
+        {
+            return info.getName();
+        }
+
+        @Override
+        public Object getValue()
+        {
+            return counter.sum();
+        }
+
+        @Override
+        public boolean isBoundTo(Object target)
+        {
+            return owner.isBoundTo(target);
+        }
+
+        @Override
+        public List<MBeanFeature> rebind(Object target)
+        {
+            // recreated by the caching attribute
+            return List.of();
+        }
+
+        @Override
+        public long getLong()
+        {
+            return counter.sum();
+        }
+
+        @Override
+        public double getDouble()
+        {
+            return counter.sum();
+        }
+
+        @Override
+        public void setValue(Object value)
+                throws AttributeNotFoundException
+        {
+            throw new AttributeNotFoundException(info.getName() + " is read-only");
+        }
+    }
+}
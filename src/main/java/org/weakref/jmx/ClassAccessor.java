@@ -0,0 +1,27 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+/**
+ * Implemented by the classes {@link AccessorGenerator} emits for each managed class.
+ */
+interface ClassAccessor
+{
+    /**
+     * Calls the method with the given index directly on the target. Arguments must already
+     * have been checked against the method's parameter types.
+     */
+    Object invoke(int method, Object target, Object[] params)
+            throws Throwable;
+}
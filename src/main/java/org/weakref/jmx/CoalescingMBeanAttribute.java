@@ -0,0 +1,154 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import javax.management.AttributeNotFoundException;
+import javax.management.InvalidAttributeValueException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanException;
+import javax.management.ReflectionException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Shares one in-flight getter call between concurrent reads of an attribute. The first read
+ * publishes its call with a compare-and-set and reads the delegate; reads arriving before it
+ * completes wait for its result instead of calling the getter again.
+ */
+class CoalescingMBeanAttribute implements MBeanAttribute, BulkReadableAttribute, RebindableFeature
+{
+    private final MBeanAttribute delegate;
+    private final AtomicReference<CompletableFuture<Object>> inFlight = new AtomicReference<>();
+
+    public CoalescingMBeanAttribute(MBeanAttribute delegate)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+    }
+
+    @Override
+    public MBeanAttributeInfo getInfo()
+    {
+        return delegate.getInfo();
+    }
+
+    @Override
+    public String getName()
+    {
+        return delegate.getName();
+    }
+
+    @Override
+    public boolean isBoundTo(Object target)
+    {
+        return RebindableFeature.isBoundTo(delegate, target);
+    }
+
+    @Override
+    public List<MBeanFeature> rebind(Object target)
+    {
+        return List.of(new CoalescingMBeanAttribute(RebindableFeature.rebindAttribute(delegate, target)));
+    }
+
+    @Override
+    public Object getValue()
+            throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.compareAndExchange(null, call);
+        if (existing == null) {
+            try {
+                Object value = delegate.getValue();
+                complete(call, value);
+                return value;
+            }
+            catch (Throwable e) {
+                inFlight.set(null);
+                call.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        Object value;
+        try {
+            value = existing.join();
+        }
+        catch (CompletionException e) {
+            throw rethrow(e.getCause());
+        }
+        if (value == FAILED) {
+            // the shared call was a bulk read, which does not keep the exception
+            return delegate.getValue();
+        }
+        return value;
+    }
+
+    @Override
+    public Object getValueOrFailed()
+    {
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.compareAndExchange(null, call);
+        if (existing == null) {
+            Object value = BulkReadableAttribute.getValueOrFailed(delegate);
+            complete(call, value);
+            return value;
+        }
+
+        try {
+            return existing.join();
+        }
+        catch (CompletionException e) {
+            return FAILED;
+        }
+    }
+
+    @Override
+    public void setValue(Object value)
+            throws AttributeNotFoundException, InvalidAttributeValueException, MBeanException, ReflectionException
+    {
+        delegate.setValue(value);
+    }
+
+    private void complete(CompletableFuture<Object> call, Object value)
+    {
+        // unpublish first, so reads after this point call the getter again
+        inFlight.set(null);
+        call.complete(value);
+    }
+
+    private static RuntimeException rethrow(Throwable e)
+            throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        if (e instanceof AttributeNotFoundException exception) {
+            throw exception;
+        }
+        if (e instanceof MBeanException exception) {
+            throw exception;
+        }
+        if (e instanceof ReflectionException exception) {
+            throw exception;
+        }
+        if (e instanceof RuntimeException exception) {
+            throw exception;
+        }
+        if (e instanceof Error error) {
+            throw error;
+        }
+        throw new AssertionError(e);
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads the attributes of a bulk read concurrently and returns the values read before a deadline.
+ * At most one read of each attribute runs at a time: a read that outlived an earlier deadline is
+ * waited for again instead of being started again, so a stuck getter holds at most one thread.
+ * <p>
+ * Getters run on a shared pool of a bounded number of threads, not on the thread of the JMX
+ * caller, so they do not see its ThreadLocals or its access control Subject. When every thread is
+ * held by a stuck getter, further reads queue and miss their deadline.
+ */
+final class DeadlineAttributeReader
+{
+    private final AttributeTable attributes;
+    private final IntFunction<Object> reader;
+    private final long deadlineNanos;
+    private final boolean staleValuesOnTimeout;
+
+    // by ordinal
+    private final AtomicReferenceArray<CompletableFuture<Object>> reads;
+    private final AtomicReferenceArray<Attribute> lastValues;
+    private final AtomicLongArray timeouts;
+
+    /**
+     * @param reader reads the attribute with the given ordinal, returning {@link BulkReadableAttribute#FAILED} on failure
+     */
+    public DeadlineAttributeReader(AttributeTable attributes, IntFunction<Object> reader, Duration deadline, boolean staleValuesOnTimeout)
+    {
+        this.attributes = requireNonNull(attributes, "attributes is null");
+        this.reader = requireNonNull(reader, "reader is null");
+        this.deadlineNanos = deadline.toNanos();
+        this.staleValuesOnTimeout = staleValuesOnTimeout;
+        this.reads = new AtomicReferenceArray<>(attributes.size());
+        this.lastValues = new AtomicReferenceArray<>(attributes.size());
+        this.timeouts = new AtomicLongArray(attributes.size());
+    }
+
+    /**
+     * Reads the attributes with the given ordinals; negative ordinals are skipped.
+     */
+    public AttributeList read(int[] ordinals)
+    {
+        long deadline = System.nanoTime() + deadlineNanos;
+
+        List<CompletableFuture<Object>> futures = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            futures.add(ordinal >= 0 ? startRead(ordinal) : null);
+        }
+
+        AttributeList attributeList = new AttributeList();
+        for (int i = 0; i < ordinals.length; i++) {
+            int ordinal = ordinals[i];
+            if (ordinal < 0) {
+                continue;
+            }
+
+            Object value;
+            try {
+                value = futures.get(i).get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            }
+            catch (TimeoutException e) {
+                timeouts.incrementAndGet(ordinal);
+                Attribute lastValue = lastValues.get(ordinal);
+                if (staleValuesOnTimeout && lastValue != null) {
+                    attributeList.add(lastValue);
+                }
+                continue;
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            catch (ExecutionException e) {
+                continue;
+            }
+
+            if (value != BulkReadableAttribute.FAILED) {
+                attributeList.add(new Attribute(attributes.get(ordinal).getName(), value));
+            }
+        }
+        return attributeList;
+    }
+
+    private CompletableFuture<Object> startRead(int ordinal)
+    {
+        CompletableFuture<Object> read = reads.get(ordinal);
+        if (read != null && !read.isDone()) {
+            return read;
+        }
+
+        CompletableFuture<Object> newRead = new CompletableFuture<>();
+        if (!reads.compareAndSet(ordinal, read, newRead)) {
+            // another bulk read started it
+            return reads.get(ordinal);
+        }
+
+        ReaderThreads.EXECUTOR.execute(() -> {
+            try {
+                Object value = reader.apply(ordinal);
+                if (staleValuesOnTimeout && value != BulkReadableAttribute.FAILED) {
+                    lastValues.set(ordinal, new Attribute(attributes.get(ordinal).getName(), value));
+                }
+                newRead.complete(value);
+            }
+            catch (Throwable e) {
+                newRead.completeExceptionally(e);
+            }
+        });
+        return newRead;
+    }
+
+    public long getTimeouts(int ordinal)
+    {
+        return timeouts.get(ordinal);
+    }
+
+    private static final class ReaderThreads
+    {
+        private static final AtomicInteger THREAD_IDS = new AtomicInteger();
+
+        private static final int MAX_THREADS = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+        // bounded, so getters that keep hanging cannot grow the thread count; threads are only kept while reads are running or recently ran
+        private static final ExecutorService EXECUTOR = createExecutor();
+
+        private static ExecutorService createExecutor()
+        {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "jmxutils-attribute-reader-" + THREAD_IDS.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+}
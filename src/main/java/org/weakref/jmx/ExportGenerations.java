@@ -0,0 +1,154 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import org.weakref.jmx.JmxException.Reason;
+
+import javax.management.ObjectName;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A set of names exported through an {@link MBeanExporter}, given one generation at a time. Each
+ * generation is the complete set of objects that should be exported; {@link #apply} diffs it
+ * against the names of the previous generation and only exports the new names, unexports the
+ * missing ones and {@linkplain MBeanExporter#replace replaces} the objects of names whose object
+ * changed. Names whose object is unchanged keep their registration.
+ * <p>
+ * The diff only cuts the number of registration changes; it does not make a generation switch
+ * atomic. The changes reach the MBeanServer one name at a time, so a client reading it while
+ * {@link #apply} runs can see names of both generations.
+ */
+public final class ExportGenerations
+{
+    private final MBeanExporter exporter;
+    private final Set<ObjectName> live = new HashSet<>();
+    private long generation;
+
+    ExportGenerations(MBeanExporter exporter)
+    {
+        this.exporter = requireNonNull(exporter, "exporter is null");
+    }
+
+    /**
+     * Makes the objects the exported set of this instance. The new names are introspected in
+     * parallel and registered one by one, then the changed objects are replaced and finally the
+     * missing names unexported. A name of the previous generation that was unexported elsewhere
+     * is exported again. A name that fails stays as it was in the previous generation.
+     */
+    public synchronized GenerationResult apply(Map<ObjectName, ?> objects)
+    {
+        requireNonNull(objects, "objects is null");
+        for (Map.Entry<ObjectName, ?> entry : objects.entrySet()) {
+            requireNonNull(entry.getKey(), "objectName is null");
+            requireNonNull(entry.getValue(), "object is null");
+        }
+        generation++;
+
+        Map<ObjectName, Object> added = new LinkedHashMap<>();
+        Map<ObjectName, Object> changed = new LinkedHashMap<>();
+        Set<ObjectName> unchanged = new LinkedHashSet<>();
+        for (Map.Entry<ObjectName, ?> entry : objects.entrySet()) {
+            ObjectName objectName = entry.getKey();
+            Object object = entry.getValue();
+            if (!live.contains(objectName)) {
+                added.put(objectName, object);
+                continue;
+            }
+            Optional<Object> current = exporter.getExportedObject(objectName);
+            if (current.isEmpty()) {
+                // unexported elsewhere, so there is nothing to replace
+                live.remove(objectName);
+                added.put(objectName, object);
+            }
+            else if (current.get() == object) {
+                unchanged.add(objectName);
+            }
+            else {
+                changed.put(objectName, object);
+            }
+        }
+        Set<ObjectName> removed = new LinkedHashSet<>(live);
+        removed.removeAll(objects.keySet());
+
+        Map<ObjectName, Exception> failures = new LinkedHashMap<>();
+        BulkExportResult exported = exporter.exportAll(added);
+        failures.putAll(exported.getFailures());
+        live.addAll(exported.getExported());
+
+        Set<ObjectName> replaced = new LinkedHashSet<>();
+        for (Map.Entry<ObjectName, Object> entry : changed.entrySet()) {
+            try {
+                exporter.replace(entry.getKey(), entry.getValue());
+                replaced.add(entry.getKey());
+            }
+            catch (JmxException e) {
+                if (e.getReason() == Reason.INSTANCE_NOT_FOUND) {
+                    // unexported elsewhere, so it no longer belongs to this set
+                    live.remove(entry.getKey());
+                }
+                failures.put(entry.getKey(), e);
+            }
+            catch (RuntimeException e) {
+                failures.put(entry.getKey(), e);
+            }
+        }
+
+        Set<ObjectName> unexported = new LinkedHashSet<>();
+        for (ObjectName objectName : removed) {
+            try {
+                exporter.unexport(objectName);
+                unexported.add(objectName);
+                live.remove(objectName);
+            }
+            catch (JmxException e) {
+                if (e.getReason() == Reason.INSTANCE_NOT_FOUND) {
+                    // already unexported elsewhere
+                    unexported.add(objectName);
+                    live.remove(objectName);
+                }
+                else {
+                    failures.put(objectName, e);
+                }
+            }
+            catch (RuntimeException e) {
+                failures.put(objectName, e);
+            }
+        }
+        return new GenerationResult(generation, exported.getExported(), replaced, unexported, unchanged, failures);
+    }
+
+    /**
+     * Returns the number of generations applied.
+     */
+    public synchronized long getGeneration()
+    {
+        return generation;
+    }
+
+    /**
+     * Returns the names currently exported by this instance.
+     */
+    public synchronized Set<ObjectName> getExported()
+    {
+        return Set.copyOf(live);
+    }
+}
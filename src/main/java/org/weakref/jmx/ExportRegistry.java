@@ -0,0 +1,204 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import javax.management.DynamicMBean;
+import javax.management.ObjectName;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The MBeans registered by an exporter, by name. A name is reserved with an atomic insert before
+ * its MBean is registered with the MBeanServer and released if that fails, so no lock is held
+ * while calling the server. A reserved name is taken until it is released or removed, exactly as
+ * an exported one is.
+ * <p>
+ * Exported objects are weakly referenced. A name whose object has been collected is free to be
+ * reserved again, unless it was exported weakly, in which case the exporter unexports it first.
+ */
+final class ExportRegistry
+{
+    private final ConcurrentMap<ObjectName, Registration> registrations = new ConcurrentHashMap<>();
+
+    /**
+     * Reserves the name for the object, or returns null if it is already reserved or exported.
+     */
+    public Registration reserve(ObjectName objectName, Object object, DynamicMBean mbean, ManagedClass managedClass, boolean weak)
+    {
+        Registration registration = new Registration(objectName, object, mbean, managedClass, weak);
+        Registration winner = registrations.compute(objectName, (name, existing) -> existing == null || existing.isCollected() ? registration : existing);
+        return winner == registration ? registration : null;
+    }
+
+    /**
+     * Marks a reserved name as exported, once its MBean is registered with the server.
+     */
+    public void exported(Registration registration)
+    {
+        registration.exported = true;
+    }
+
+    /**
+     * Releases a reservation whose MBean could not be registered, or a registration whose MBean was
+     * unregistered. Does nothing if the name has since been reserved by another registration.
+     *
+     * @return whether the registration was released by this call
+     */
+    public boolean release(Registration registration)
+    {
+        return registrations.remove(registration.getObjectName(), registration);
+    }
+
+    /**
+     * Replaces an exported registration with one for another object served by the same MBean.
+     *
+     * @return the new registration, or null if the name is no longer registered by {@code registration}
+     */
+    public Registration replace(Registration registration, Object object, ManagedClass managedClass)
+    {
+        Registration replacement = new Registration(registration.objectName, object, registration.mbean, requireNonNull(managedClass, "managedClass is null"), registration.weak);
+        replacement.exported = true;
+        return registrations.replace(registration.objectName, registration, replacement) ? replacement : null;
+    }
+
+    public void remove(ObjectName objectName)
+    {
+        registrations.remove(objectName);
+    }
+
+    /**
+     * Returns the registration of an exported name, or null if the name is not exported or only reserved.
+     */
+    public Registration get(ObjectName objectName)
+    {
+        Registration registration = registrations.get(objectName);
+        if (registration == null || !registration.isExported()) {
+            return null;
+        }
+        return registration;
+    }
+
+    /**
+     * Returns the registrations of all exported names, excluding reserved ones.
+     */
+    public List<Registration> getExported()
+    {
+        List<Registration> exported = new ArrayList<>(registrations.size());
+        for (Registration registration : registrations.values()) {
+            if (registration.isExported()) {
+                exported.add(registration);
+            }
+        }
+        return exported;
+    }
+
+    static final class Registration
+    {
+        private final ObjectName objectName;
+        private final WeakReference<Object> object;
+        // an MBean, or a LazyMBean
+        private final DynamicMBean mbean;
+        // null for a LazyMBean that has not been replaced, which builds its own
+        private final ManagedClass managedClass;
+        private final boolean weak;
+        private volatile boolean exported;
+
+        private Registration(ObjectName objectName, Object object, DynamicMBean mbean, ManagedClass managedClass, boolean weak)
+        {
+            this.objectName = requireNonNull(objectName, "objectName is null");
+            this.object = new WeakReference<>(requireNonNull(object, "object is null"));
+            this.mbean = requireNonNull(mbean, "mbean is null");
+            this.managedClass = managedClass;
+            if (managedClass == null && !(mbean instanceof LazyMBean)) {
+                throw new NullPointerException("managedClass is null");
+            }
+            this.weak = weak;
+        }
+
+        public ObjectName getObjectName()
+        {
+            return objectName;
+        }
+
+        /**
+         * Returns the exported object, or null if it has been collected.
+         */
+        public Object getObject()
+        {
+            return object.get();
+        }
+
+        /**
+         * Returns the MBean registered with the server.
+         */
+        public DynamicMBean getRegisteredMBean()
+        {
+            return mbean;
+        }
+
+        /**
+         * Returns the MBean of the object, or null if it is lazy and has not been built.
+         */
+        public MBean getMBean()
+        {
+            if (mbean instanceof LazyMBean lazy) {
+                return lazy.getBuiltMBean();
+            }
+            return (MBean) mbean;
+        }
+
+        /**
+         * Returns the MBean of the object, building a lazy MBean if it has not been built.
+         */
+        public MBean buildMBean()
+        {
+            if (mbean instanceof LazyMBean lazy) {
+                return lazy.getMBean();
+            }
+            return (MBean) mbean;
+        }
+
+        /**
+         * Returns the managed class of the object, building a lazy MBean if it has not been built.
+         */
+        public ManagedClass getManagedClass()
+        {
+            if (managedClass == null) {
+                return ((LazyMBean) mbean).getManagedClass();
+            }
+            return managedClass;
+        }
+
+        public boolean isExported()
+        {
+            return exported;
+        }
+
+        public boolean isWeak()
+        {
+            return weak;
+        }
+
+        private boolean isCollected()
+        {
+            return exported && !weak && object.get() == null;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import javax.management.ObjectName;
+
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The outcome of {@link ExportGenerations#apply}: the names that were added, replaced, removed and
+ * left alone, and the exception that kept each other name from changing.
+ */
+public final class GenerationResult
+{
+    private final long generation;
+    private final Set<ObjectName> added;
+    private final Set<ObjectName> replaced;
+    private final Set<ObjectName> removed;
+    private final Set<ObjectName> unchanged;
+    private final Map<ObjectName, Exception> failures;
+
+    GenerationResult(long generation, Set<ObjectName> added, Set<ObjectName> replaced, Set<ObjectName> removed, Set<ObjectName> unchanged, Map<ObjectName, Exception> failures)
+    {
+        this.generation = generation;
+        this.added = ImmutableSet.copyOf(requireNonNull(added, "added is null"));
+        this.replaced = ImmutableSet.copyOf(requireNonNull(replaced, "replaced is null"));
+        this.removed = ImmutableSet.copyOf(requireNonNull(removed, "removed is null"));
+        this.unchanged = ImmutableSet.copyOf(requireNonNull(unchanged, "unchanged is null"));
+        this.failures = ImmutableMap.copyOf(requireNonNull(failures, "failures is null"));
+    }
+
+    public long getGeneration()
+    {
+        return generation;
+    }
+
+    public Set<ObjectName> getAdded()
+    {
+        return added;
+    }
+
+    /**
+     * Returns the names whose object changed. See {@link MBeanExporter#replace}.
+     */
+    public Set<ObjectName> getReplaced()
+    {
+        return replaced;
+    }
+
+    public Set<ObjectName> getRemoved()
+    {
+        return removed;
+    }
+
+    public Set<ObjectName> getUnchanged()
+    {
+        return unchanged;
+    }
+
+    public Map<ObjectName, Exception> getFailures()
+    {
+        return failures;
+    }
+
+    public boolean isSuccessful()
+    {
+        return failures.isEmpty();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "generation " + generation + ": added " + added.size() + ", replaced " + replaced.size() + ", removed " + removed.size() + ", unchanged " + unchanged.size() + ", failed " + failures.keySet();
+    }
+}
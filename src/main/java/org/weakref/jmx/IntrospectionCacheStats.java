@@ -0,0 +1,57 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+/**
+ * Statistics of the per-class introspection caches shared by all exporters in the class loader
+ * of this library. Instances can be exported like any other managed object.
+ */
+public class IntrospectionCacheStats
+{
+    @Managed(description = "Lookups of the managed methods of a class served from the cache")
+    public long getManagedMethodsHits()
+    {
+        return AnnotationUtils.getManagedMethodsHits();
+    }
+
+    @Managed(description = "Lookups of the managed methods of a class that introspected the class")
+    public long getManagedMethodsMisses()
+    {
+        return AnnotationUtils.getManagedMethodsMisses();
+    }
+
+    @Managed(description = "Lookups of the descriptor, description or name of a managed method served from the cache")
+    public long getMethodMetadataHits()
+    {
+        return AnnotationUtils.getMethodMetadataHits();
+    }
+
+    @Managed(description = "Lookups of the descriptor, description or name of a managed method that read its annotations")
+    public long getMethodMetadataMisses()
+    {
+        return AnnotationUtils.getMethodMetadataMisses();
+    }
+
+    @Managed(description = "Exports of an object whose class already had a template, or was known to have none")
+    public long getMBeanTemplateHits()
+    {
+        return MBeanTemplate.getTemplateHits();
+    }
+
+    @Managed(description = "Exports of an object that looked for a template of its class for the first time")
+    public long getMBeanTemplateMisses()
+    {
+        return MBeanTemplate.getTemplateMisses();
+    }
+}
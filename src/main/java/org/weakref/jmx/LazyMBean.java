@@ -0,0 +1,156 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.InvalidAttributeValueException;
+import javax.management.MBeanException;
+import javax.management.MBeanInfo;
+import javax.management.ReflectionException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Stands in for the MBean of an exported object until the MBean is first used, so objects whose
+ * MBeans are never looked at are never introspected. The MBean and the {@link ManagedClass} are
+ * built from one introspection, exactly once, by whichever call needs them first.
+ * <p>
+ * An MBeanServer reads the MBeanInfo of a dynamic MBean to register it. That read is answered
+ * with an MBeanInfo carrying only the class name, so registering does not build the MBean.
+ */
+final class LazyMBean
+        implements DynamicMBean
+{
+    // the object, or a WeakTarget for a weak export
+    private final Object target;
+    private final String className;
+    private final MBeanExporterConfig config;
+    private final boolean weak;
+    private volatile Thread registeringThread;
+    private volatile Built built;
+
+    public LazyMBean(Object target, MBeanExporterConfig config, boolean weak)
+    {
+        requireNonNull(target, "target is null");
+        this.target = weak ? new WeakTarget(target) : target;
+        this.className = target.getClass().getName();
+        this.config = requireNonNull(config, "config is null");
+        this.weak = weak;
+    }
+
+    /**
+     * Answers MBeanInfo reads of the current thread without building the MBean, until
+     * {@link #endRegistration()}.
+     */
+    public void beginRegistration()
+    {
+        registeringThread = Thread.currentThread();
+    }
+
+    public void endRegistration()
+    {
+        registeringThread = null;
+    }
+
+    /**
+     * Returns the MBean, or null if it has not been built.
+     */
+    public MBean getBuiltMBean()
+    {
+        Built built = this.built;
+        return built == null ? null : built.mbean();
+    }
+
+    /**
+     * Returns the MBean, building it if it has not been built.
+     */
+    public MBean getMBean()
+    {
+        return built().mbean();
+    }
+
+    public ManagedClass getManagedClass()
+    {
+        return built().managedClass();
+    }
+
+    private Built built()
+    {
+        Built built = this.built;
+        if (built == null) {
+            synchronized (this) {
+                built = this.built;
+                if (built == null) {
+                    Object object = WeakTarget.resolveOrNull(target);
+                    if (object == null) {
+                        throw new IllegalStateException("Exported object has been garbage collected");
+                    }
+                    ManagedObject managedObject = ManagedObject.introspect(object);
+                    built = new Built(MBeanTemplate.createMBean(managedObject, config, weak), ManagedClass.fromManagedObject(managedObject));
+                    this.built = built;
+                }
+            }
+        }
+        return built;
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo()
+    {
+        if (built == null && registeringThread == Thread.currentThread()) {
+            return new MBeanInfo(className, null, null, null, null, null);
+        }
+        return built().mbean().getMBeanInfo();
+    }
+
+    @Override
+    public Object getAttribute(String attribute)
+            throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        return built().mbean().getAttribute(attribute);
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute)
+            throws AttributeNotFoundException, InvalidAttributeValueException, MBeanException, ReflectionException
+    {
+        built().mbean().setAttribute(attribute);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes)
+    {
+        return built().mbean().getAttributes(attributes);
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes)
+    {
+        return built().mbean().setAttributes(attributes);
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature)
+            throws MBeanException, ReflectionException
+    {
+        return built().mbean().invoke(actionName, params, signature);
+    }
+
+    private record Built(MBean mbean, ManagedClass managedClass)
+    {
+    }
+}
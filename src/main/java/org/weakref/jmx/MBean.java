@@ -29,13 +29,14 @@ import javax.management.RuntimeOperationsException;
 import javax.management.ServiceNotFoundException;
 import javax.management.modelmbean.ModelMBeanConstructorInfo;
 import javax.management.modelmbean.ModelMBeanNotificationInfo;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntToLongFunction;
 
 import static java.util.Objects.requireNonNull;
 
@@ -45,28 +46,49 @@ class MBean implements DynamicMBean
     private static final String[] NO_ARGS = new String[0];
 
     private final MBeanInfo mbeanInfo;
-    private final Map<String, MBeanAttribute> attributes;
-    private final Map<Signature, MBeanOperation> operations;
+    // null when the features are built with the MBean
+    private final MBeanTemplate template;
+    // cleared once the features are bound, so a replaced target is not kept reachable
+    private Object target;
+    private volatile Features features;
 
     public MBean(String className, String description, Collection<MBeanAttribute> attributes, Collection<MBeanOperation> operations)
+    {
+        this(className, description, attributes, operations, new MBeanExporterConfig());
+    }
+
+    public MBean(String className, String description, Collection<MBeanAttribute> attributes, Collection<MBeanOperation> operations, MBeanExporterConfig config)
+    {
+        this.mbeanInfo = buildMBeanInfo(className, description, attributes, operations);
+        this.template = null;
+        this.target = null;
+        this.features = new Features(new AttributeTable(attributes), new OperationIndex(operations), config.getAttributeReadDeadline(), config.isStaleValuesOnTimeout());
+    }
+
+    /**
+     * Creates an MBean for {@code target} that shares the MBeanInfo of the template. The features
+     * are bound to the target on first use.
+     */
+    public MBean(MBeanTemplate template, Object target)
+    {
+        this.mbeanInfo = template.getMBeanInfo();
+        this.template = template;
+        this.target = requireNonNull(target, "target is null");
+    }
+
+    static MBeanInfo buildMBeanInfo(String className, String description, Collection<MBeanAttribute> attributes, Collection<MBeanOperation> operations)
     {
         List<MBeanAttributeInfo> attributeInfos = new ArrayList<>();
-        Map<String, MBeanAttribute> attributesBuilder = new TreeMap<>();
         for (MBeanAttribute attribute : attributes) {
-            attributesBuilder.put(attribute.getName(), attribute);
             attributeInfos.add(attribute.getInfo());
         }
-        this.attributes = Collections.unmodifiableMap(attributesBuilder);
 
-        Map<Signature, MBeanOperation> operationsBuilder = new HashMap<>();
         List<MBeanOperationInfo> operationsInfos = new ArrayList<>();
         for (MBeanOperation operation : operations) {
-            operationsBuilder.put(operation.getSignature(), operation);
             operationsInfos.add(operation.getInfo());
         }
-        this.operations = Collections.unmodifiableMap(operationsBuilder);
 
-        mbeanInfo = new MBeanInfo(className,
+        return new MBeanInfo(className,
                 description,
                 attributeInfos.toArray(new MBeanAttributeInfo[0]),
                 new ModelMBeanConstructorInfo[0],
@@ -74,20 +96,66 @@ class MBean implements DynamicMBean
                 new ModelMBeanNotificationInfo[0]);
     }
 
+    private Features features()
+    {
+        Features features = this.features;
+        if (features == null) {
+            synchronized (this) {
+                features = this.features;
+                if (features == null) {
+                    features = new Features(template.bindAttributes(target), template.bindOperations(target), template.getAttributeReadDeadline(), template.isStaleValuesOnTimeout());
+                    this.features = features;
+                    target = null;
+                }
+            }
+        }
+        return features;
+    }
+
+    /**
+     * Rebinds this MBean to the features of another MBean with an equal MBeanInfo, typically built
+     * for a new target of the same class. Calls that already hold the old features complete on the
+     * old target; failure and timeout counts start over.
+     *
+     * @return whether the features were replaced, which requires equal MBeanInfos
+     */
+    synchronized boolean replaceFeatures(MBean replacement)
+    {
+        if (!mbeanInfo.equals(replacement.getMBeanInfo())) {
+            return false;
+        }
+        this.features = replacement.features();
+        target = null;
+        return true;
+    }
+
     @Override
     public MBeanInfo getMBeanInfo()
     {
         return mbeanInfo;
     }
 
-    public Collection<MBeanAttribute> getAttributes()
+    /**
+     * Returns the attributes in ordinal order.
+     */
+    public List<MBeanAttribute> getAttributes()
     {
-        return attributes.values();
+        return features().attributes.getAttributes();
+    }
+
+    /**
+     * Returns the ordinal of the named attribute, or -1 if there is no such attribute.
+     * The ordinal can be passed to {@link #getAttribute(int)} to skip the name lookup.
+     */
+    public int getAttributeOrdinal(String name)
+    {
+        requireNonNull(name, "name is null");
+        return features().attributes.ordinalOf(name);
     }
 
     public Collection<MBeanOperation> getOperations()
     {
-        return operations.values();
+        return features().operations.getOperations();
     }
 
     @Override
@@ -105,13 +173,15 @@ class MBean implements DynamicMBean
         }
 
         for (int i = 0; i < argTypes.length; i++) {
-            requireNonNull(argTypes[i], "argTypes[" + i + "] is null");
+            if (argTypes[i] == null) {
+                throw new NullPointerException("argTypes[" + i + "] is null");
+            }
         }
 
-        Signature signature = new Signature(actionName, argTypes);
-        MBeanOperation operation = operations.get(signature);
+        // matched in place; the signature is only built to report a missing operation
+        MBeanOperation operation = features().operations.get(actionName, argTypes);
         if (operation == null) {
-            String message = "Operation " + signature + " not found";
+            String message = "Operation " + new Signature(actionName, argTypes) + " not found";
             throw new MBeanException(new ServiceNotFoundException(message), message);
         }
 
@@ -124,14 +194,72 @@ class MBean implements DynamicMBean
             throws AttributeNotFoundException, MBeanException, ReflectionException
     {
         requireNonNull(name, "name is null");
-        MBeanAttribute mbeanAttribute = attributes.get(name);
-        if (mbeanAttribute == null) {
+        Features features = features();
+        int ordinal = features.attributes.ordinalOf(name);
+        if (ordinal < 0) {
             throw new AttributeNotFoundException(name);
         }
-        Object value = mbeanAttribute.getValue();
+        Object value = features.readAttribute(ordinal);
         return value;
     }
 
+    public Object getAttribute(int ordinal)
+            throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        Features features = features();
+        if (ordinal < 0 || ordinal >= features.attributes.size()) {
+            throw new AttributeNotFoundException("No attribute with ordinal " + ordinal);
+        }
+        return features.readAttribute(ordinal);
+    }
+
+    /**
+     * Returns the number of failed reads of the attribute with the given ordinal. Reads of write-only
+     * attributes are not counted.
+     */
+    public long getAttributeFailures(int ordinal)
+    {
+        return features().attributeFailures.get(ordinal);
+    }
+
+    /**
+     * Returns the number of failed reads of each attribute that has failed at least once.
+     */
+    public Map<String, Long> getAttributeFailures()
+    {
+        // an MBean whose features are not bound yet has not been read
+        Features features = this.features;
+        if (features == null) {
+            return Map.of();
+        }
+        return nonZeroCounts(features.attributes, features.attributeFailures::get);
+    }
+
+    /**
+     * Returns the number of bulk reads that gave up waiting for each attribute that has missed the
+     * read deadline at least once.
+     */
+    public Map<String, Long> getAttributeTimeouts()
+    {
+        Features features = this.features;
+        if (features == null || features.deadlineReader == null) {
+            return Map.of();
+        }
+        return nonZeroCounts(features.attributes, features.deadlineReader::getTimeouts);
+    }
+
+    private static Map<String, Long> nonZeroCounts(AttributeTable attributes, IntToLongFunction counts)
+    {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int ordinal = 0; ordinal < attributes.size(); ordinal++) {
+            long count = counts.applyAsLong(ordinal);
+            if (count > 0) {
+                result.put(attributes.get(ordinal).getName(), count);
+            }
+        }
+        return result;
+    }
+
     @Override
     public void setAttribute(Attribute attribute)
             throws AttributeNotFoundException, InvalidAttributeValueException, MBeanException, ReflectionException
@@ -141,7 +269,7 @@ class MBean implements DynamicMBean
         requireNonNull(name, "attribute.name is null");
 
         Object value = attribute.getValue();
-        MBeanAttribute mbeanAttribute = attributes.get(name);
+        MBeanAttribute mbeanAttribute = features().attributes.get(name);
         if (mbeanAttribute == null) {
             throw new AttributeNotFoundException(name);
         }
@@ -156,13 +284,28 @@ class MBean implements DynamicMBean
             return null;
         }
 
+        Features features = features();
+        int[] ordinals = new int[attributes.length];
+        for (int i = 0; i < attributes.length; i++) {
+            int ordinal = attributes[i] == null ? -1 : features.attributes.ordinalOf(attributes[i]);
+            if (ordinal >= 0 && !features.attributes.get(ordinal).getInfo().isReadable()) {
+                ordinal = -1;
+            }
+            ordinals[i] = ordinal;
+        }
+
+        if (features.deadlineReader != null) {
+            return features.deadlineReader.read(ordinals);
+        }
+
         AttributeList attributeList = new AttributeList();
-        for (String attribute : attributes) {
-            try {
-                attributeList.add(new Attribute(attribute, getAttribute(attribute)));
+        for (int ordinal : ordinals) {
+            if (ordinal < 0) {
+                continue;
             }
-            catch (Exception e) {
-                // todo log me
+            Object value = features.readForBulk(ordinal);
+            if (value != BulkReadableAttribute.FAILED) {
+                attributeList.add(new Attribute(features.attributes.get(ordinal).getName(), value));
             }
         }
         return attributeList;
@@ -187,4 +330,52 @@ class MBean implements DynamicMBean
         }
         return response;
     }
+
+    /**
+     * The features of the MBean bound to its target, with the state kept for them.
+     */
+    private static final class Features
+    {
+        private final AttributeTable attributes;
+        private final OperationIndex operations;
+        // read failures of each attribute, by ordinal
+        private final AtomicLongArray attributeFailures;
+        // null when bulk reads run on the calling thread
+        private final DeadlineAttributeReader deadlineReader;
+
+        private Features(AttributeTable attributes, OperationIndex operations, Duration attributeReadDeadline, boolean staleValuesOnTimeout)
+        {
+            this.attributes = attributes;
+            this.operations = operations;
+            this.attributeFailures = new AtomicLongArray(attributes.size());
+            if (attributeReadDeadline == null) {
+                this.deadlineReader = null;
+            }
+            else {
+                this.deadlineReader = new DeadlineAttributeReader(attributes, this::readForBulk, attributeReadDeadline, staleValuesOnTimeout);
+            }
+        }
+
+        private Object readAttribute(int ordinal)
+                throws AttributeNotFoundException, MBeanException, ReflectionException
+        {
+            try {
+                return attributes.get(ordinal).getValue();
+            }
+            catch (MBeanException | ReflectionException | RuntimeException e) {
+                attributeFailures.incrementAndGet(ordinal);
+                throw e;
+            }
+        }
+
+        // failed reads are dropped, so they are detected without building the exceptions getAttribute reports
+        private Object readForBulk(int ordinal)
+        {
+            Object value = BulkReadableAttribute.getValueOrFailed(attributes.get(ordinal));
+            if (value == BulkReadableAttribute.FAILED) {
+                attributeFailures.incrementAndGet(ordinal);
+            }
+            return value;
+        }
+    }
 }
@@ -0,0 +1,111 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanOperationInfo;
+
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Metadata and direct method dispatch for a managed class, computed at compile time by the
+ * {@code jmxutils-processor} annotation processor.
+ * <p>
+ * The adapter for class {@code com.example.Foo$Bar} is the class {@code com.example.Foo$Bar_MBeanAdapter}.
+ * It is used for objects whose class is exactly the adapted class; objects of other classes, including
+ * subclasses of an adapted class, are introspected through reflection.
+ */
+public interface MBeanAdapter
+{
+    String CLASS_NAME_SUFFIX = "_MBeanAdapter";
+
+    /**
+     * Returns the description of the MBean, or null.
+     */
+    String getDescription();
+
+    /**
+     * Returns the attributes of the managed class, including nested and flattened attributes.
+     */
+    List<AdaptedAttribute> getAttributes();
+
+    List<AdaptedOperation> getOperations();
+
+    /**
+     * Calls the method with the given index on the target. Arguments of primitive parameters are
+     * boxed in the wrapper of the parameter type; all other arguments have been checked against the
+     * parameter types.
+     */
+    Object invoke(int method, Object target, Object[] params)
+            throws Throwable;
+
+    static AdaptedAttribute attribute(MBeanAttributeInfo info, int getter, String getterName, int setter, String setterName, Class<?> setterType)
+    {
+        return new AdaptedAttribute(AttributeKind.ATTRIBUTE, info.getName(), info, getter, getterName, setter, setterName, setterType);
+    }
+
+    static AdaptedAttribute nested(String name, int getter, String getterName)
+    {
+        return new AdaptedAttribute(AttributeKind.NESTED, name, null, getter, getterName, -1, null, null);
+    }
+
+    static AdaptedAttribute flatten(String name, int getter, String getterName)
+    {
+        return new AdaptedAttribute(AttributeKind.FLATTEN, name, null, getter, getterName, -1, null, null);
+    }
+
+    static AdaptedOperation operation(MBeanOperationInfo info, int method, Class<?>... parameterTypes)
+    {
+        return new AdaptedOperation(info, method, List.of(parameterTypes));
+    }
+
+    enum AttributeKind
+    {
+        ATTRIBUTE, NESTED, FLATTEN
+    }
+
+    /**
+     * An attribute of the managed class. Nested and flattened attributes have no info of their own;
+     * their features come from the object their getter returns.
+     */
+    record AdaptedAttribute(AttributeKind kind, String name, MBeanAttributeInfo info, int getter, String getterName, int setter, String setterName, Class<?> setterType)
+    {
+        public AdaptedAttribute
+        {
+            requireNonNull(kind, "kind is null");
+            requireNonNull(name, "name is null");
+            if (kind == AttributeKind.ATTRIBUTE) {
+                requireNonNull(info, "info is null");
+            }
+            if (getter >= 0) {
+                requireNonNull(getterName, "getterName is null");
+            }
+            if (setter >= 0) {
+                requireNonNull(setterName, "setterName is null");
+                requireNonNull(setterType, "setterType is null");
+            }
+        }
+    }
+
+    record AdaptedOperation(MBeanOperationInfo info, int method, List<Class<?>> parameterTypes)
+    {
+        public AdaptedOperation
+        {
+            requireNonNull(info, "info is null");
+            parameterTypes = List.copyOf(requireNonNull(parameterTypes, "parameterTypes is null"));
+        }
+    }
+}
@@ -33,4 +33,58 @@ public interface MBeanAttribute extends MBeanFeature
 
     void setValue(Object value)
                     throws AttributeNotFoundException, InvalidAttributeValueException, MBeanException, ReflectionException;
+
+    /**
+     * Returns the value of an attribute of type {@code long}, {@code int}, {@code short}, {@code byte}
+     * or {@code char}. Implementations avoid boxing the value where they can.
+     *
+     * @throws UnsupportedOperationException if the attribute has a different type
+     */
+    default long getLong()
+            throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        checkReadableAs(long.class);
+        Object value = getValue();
+        if (value instanceof Character character) {
+            return character;
+        }
+        return ((Number) value).longValue();
+    }
+
+    /**
+     * Returns the value of an attribute of a numeric primitive type or {@code char}.
+     * Implementations avoid boxing the value where they can.
+     *
+     * @throws UnsupportedOperationException if the attribute has a different type
+     */
+    default double getDouble()
+            throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        checkReadableAs(double.class);
+        Object value = getValue();
+        if (value instanceof Character character) {
+            return character;
+        }
+        return ((Number) value).doubleValue();
+    }
+
+    /**
+     * Returns the value of an attribute of type {@code boolean}. Implementations avoid boxing the
+     * value where they can.
+     *
+     * @throws UnsupportedOperationException if the attribute has a different type
+     */
+    default boolean getBoolean()
+            throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        checkReadableAs(boolean.class);
+        return (Boolean) getValue();
+    }
+
+    private void checkReadableAs(Class<?> primitiveType)
+    {
+        if (!ReflectionUtils.isReadableAs(getInfo().getType(), primitiveType)) {
+            throw new UnsupportedOperationException("Attribute " + getName() + " of type " + getInfo().getType() + " can not be read as " + primitiveType.getName());
+        }
+    }
 }
@@ -34,6 +34,8 @@ public class MBeanAttributeBuilder
 {
     private static final Pattern getterOrSetterPattern = Pattern.compile("(get|set|is)(.+)");
     private Object target;
+    // the introspected target, whose child values are used instead of calling the getter again
+    private ManagedObject managedObject;
     private String name;
     private Method concreteGetter;
     private Method annotatedGetter;
@@ -41,10 +43,19 @@ public class MBeanAttributeBuilder
     private Method annotatedSetter;
     private boolean flatten;
     private boolean nested;
+    private MBeanExporterConfig config = new MBeanExporterConfig();
 
     public MBeanAttributeBuilder onInstance(Object target)
     {
         this.target = requireNonNull(target, "target is null");
+        this.managedObject = null;
+        return this;
+    }
+
+    MBeanAttributeBuilder onManagedObject(ManagedObject managedObject)
+    {
+        this.managedObject = requireNonNull(managedObject, "managedObject is null");
+        this.target = managedObject.getTarget();
         return this;
     }
 
@@ -94,6 +105,12 @@ public class MBeanAttributeBuilder
         return this;
     }
 
+    MBeanAttributeBuilder withConfig(MBeanExporterConfig config)
+    {
+        this.config = requireNonNull(config, "config is null");
+        return this;
+    }
+
     public MBeanAttributeBuilder flatten()
     {
         this.flatten = true;
@@ -106,6 +123,14 @@ public class MBeanAttributeBuilder
         return this;
     }
 
+    /**
+     * Whether the attribute is replaced by the features of its value.
+     */
+    boolean hasChildren()
+    {
+        return flatten || nested || AnnotationUtils.isFlatten(annotatedGetter) || AnnotationUtils.isNested(annotatedGetter);
+    }
+
     public Collection<? extends MBeanFeature> build()
     {
         if (target == null) {
@@ -124,22 +149,7 @@ public class MBeanAttributeBuilder
                 throw new IllegalArgumentException("Flattened JmxAttribute must have a concrete getter");
             }
 
-            Object value = null;
-            try {
-                value = concreteGetter.invoke(target);
-            }
-            catch (Exception e) {
-                // todo log me
-            }
-            if (value == null) {
-                return Collections.emptySet();
-            }
-
-            MBean mbean = new MBeanBuilder(value).build();
-            ArrayList<MBeanFeature> features = new ArrayList<>();
-            features.addAll(mbean.getAttributes());
-            features.addAll(mbean.getOperations());
-            return Collections.unmodifiableCollection(features);
+            return getChildFeatures(attributeName, readChild(), true, config);
         }
         else if (nested || AnnotationUtils.isNested(annotatedGetter)) {
             // must have a getter
@@ -147,26 +157,7 @@ public class MBeanAttributeBuilder
                 throw new IllegalArgumentException("Nested JmxAttribute must have a concrete getter");
             }
 
-            Object value = null;
-            try {
-                value = concreteGetter.invoke(target);
-            }
-            catch (Exception e) {
-                // todo log me
-            }
-            if (value == null) {
-                return Collections.emptySet();
-            }
-
-            MBean mbean = new MBeanBuilder(value).build();
-            ArrayList<MBeanFeature> features = new ArrayList<>();
-            for (MBeanAttribute attribute : mbean.getAttributes()) {
-                features.add(new NestedMBeanAttribute(attributeName, attribute));
-            }
-            for (MBeanOperation operation : mbean.getOperations()) {
-                features.add(new NestedMBeanOperation(attributeName, operation));
-            }
-            return Collections.unmodifiableCollection(features);
+            return getChildFeatures(attributeName, readChild(), false, config);
         }
 
         // We must have a getter or a setter
@@ -194,7 +185,7 @@ public class MBeanAttributeBuilder
                 descriptor = setterDescriptor;
             }
             else {
-                descriptor = ImmutableDescriptor.union(descriptor, setterDescriptor);
+                descriptor = AnnotationUtils.intern(ImmutableDescriptor.union(descriptor, setterDescriptor));
             }
         }
 
@@ -211,7 +202,68 @@ public class MBeanAttributeBuilder
                 descriptor);
 
 
-        return Collections.singleton(new ReflectionMBeanAttribute(mbeanAttributeInfo, target, concreteGetter, concreteSetter));
+        boolean generated = config.isAccessorGenerationEnabled();
+        return decorate(new ReflectionMBeanAttribute(
+                mbeanAttributeInfo,
+                target,
+                concreteGetter == null ? null : MethodInvoker.forTarget(target.getClass(), concreteGetter, generated),
+                concreteSetter == null ? null : MethodInvoker.forTarget(target.getClass(), concreteSetter, generated)),
+                config);
+    }
+
+    private ManagedObject readChild()
+    {
+        if (managedObject != null) {
+            return managedObject.getChild(concreteGetter.getName());
+        }
+
+        Object value = null;
+        try {
+            value = concreteGetter.invoke(target);
+        }
+        catch (Exception e) {
+            // todo log me
+        }
+        return value == null ? null : ManagedObject.introspect(value);
+    }
+
+    /**
+     * Applies the read coalescing and caching configured for the attribute. Returns the attribute
+     * followed by any attributes added for it.
+     */
+    static Collection<MBeanAttribute> decorate(MBeanAttribute attribute, MBeanExporterConfig config)
+    {
+        if (config.isCoalescedReadsEnabled() && attribute.getInfo().isReadable()) {
+            attribute = new CoalescingMBeanAttribute(attribute);
+        }
+        return CachingMBeanAttribute.withCaching(attribute);
+    }
+
+    /**
+     * Returns the features of the value of a flattened or nested attribute. Features of a nested
+     * attribute are prefixed with the attribute name.
+     */
+    static Collection<? extends MBeanFeature> getChildFeatures(String attributeName, ManagedObject value, boolean flatten, MBeanExporterConfig config)
+    {
+        if (value == null) {
+            return Collections.emptySet();
+        }
+
+        MBean mbean = MBeanTemplate.createMBean(value, config);
+        ArrayList<MBeanFeature> features = new ArrayList<>();
+        if (flatten) {
+            features.addAll(mbean.getAttributes());
+            features.addAll(mbean.getOperations());
+        }
+        else {
+            for (MBeanAttribute attribute : mbean.getAttributes()) {
+                features.add(new NestedMBeanAttribute(attributeName, attribute));
+            }
+            for (MBeanOperation operation : mbean.getOperations()) {
+                features.add(new NestedMBeanOperation(attributeName, operation));
+            }
+        }
+        return Collections.unmodifiableCollection(features);
     }
 
     private static String getAttributeName(Method... methods)
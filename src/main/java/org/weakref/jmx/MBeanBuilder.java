@@ -17,8 +17,10 @@ package org.weakref.jmx;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.TreeMap;
 
 import static java.util.Objects.requireNonNull;
@@ -29,13 +31,21 @@ import static org.weakref.jmx.ReflectionUtils.isSetter;
 final class MBeanBuilder
 {
     private final String className;
+    private final MBeanExporterConfig config;
     private final List<MBeanAttributeBuilder> attributeBuilders = new ArrayList<>();
     private final List<MBeanOperationBuilder> operationBuilders = new ArrayList<>();
+    private final Object target;
+    private final ManagedObject managedObject;
+    private final AdaptedClass adaptedClass;
     private String description;
 
     private MBeanBuilder(String className)
     {
         this.className = className;
+        this.config = new MBeanExporterConfig();
+        this.target = null;
+        this.managedObject = null;
+        this.adaptedClass = null;
     }
 
     public static MBeanBuilder from(String className)
@@ -48,9 +58,37 @@ final class MBeanBuilder
         return new MBeanBuilder(object);
     }
 
+    public static MBeanBuilder from(Object object, MBeanExporterConfig config)
+    {
+        return new MBeanBuilder(object, config);
+    }
+
     public MBeanBuilder(Object target)
     {
-        requireNonNull(target, "target is null");
+        this(target, new MBeanExporterConfig());
+    }
+
+    public MBeanBuilder(Object target, MBeanExporterConfig config)
+    {
+        this(ManagedObject.introspect(requireNonNull(target, "target is null")), config);
+    }
+
+    MBeanBuilder(ManagedObject managedObject, MBeanExporterConfig config)
+    {
+        this.managedObject = requireNonNull(managedObject, "managedObject is null");
+        this.target = managedObject.getTarget();
+        this.config = requireNonNull(config, "config is null");
+        this.className = target.getClass().getName();
+
+        if (config.isGeneratedAdaptersEnabled()) {
+            Optional<AdaptedClass> adaptedClass = AdaptedClass.forClass(target.getClass());
+            if (adaptedClass.isPresent()) {
+                this.adaptedClass = adaptedClass.get();
+                this.description = this.adaptedClass.getDescription();
+                return;
+            }
+        }
+        this.adaptedClass = null;
 
         Map<String, MBeanAttributeBuilder> attributeBuilders = new TreeMap<>();
 
@@ -63,7 +101,7 @@ final class MBeanBuilder
 
                 MBeanAttributeBuilder attributeBuilder = attributeBuilders.get(attributeName);
                 if (attributeBuilder == null) {
-                    attributeBuilder = new MBeanAttributeBuilder().named(attributeName).onInstance(target);
+                    attributeBuilder = new MBeanAttributeBuilder().named(attributeName).onManagedObject(managedObject).withConfig(config);
                 }
                 
                 if (isGetter(concreteMethod)) {
@@ -84,6 +122,7 @@ final class MBeanBuilder
                 //       in the builder
                 addOperation()
                         .onInstance(target)
+                        .withConfig(config)
                         .withConcreteMethod(concreteMethod)
                         .withAnnotatedMethod(annotatedMethod)
                         .build();
@@ -92,7 +131,6 @@ final class MBeanBuilder
 
         this.attributeBuilders.addAll(attributeBuilders.values());
 
-        className = target.getClass().getName();
         description = AnnotationUtils.getDescription(target.getClass().getAnnotations());
     }
 
@@ -115,23 +153,84 @@ final class MBeanBuilder
     }
 
     public MBean build()
+    {
+        return build(false);
+    }
+
+    /**
+     * Builds the MBean, binding the features that call the target to a {@link WeakTarget} if
+     * {@code weak} is set.
+     */
+    MBean build(boolean weak)
     {
         List<MBeanAttribute> attributes = new ArrayList<>();
         List<MBeanOperation> operations = new ArrayList<>();
-        for (MBeanAttributeBuilder attributeBuilder : attributeBuilders) {
-            for (MBeanFeature feature : attributeBuilder.build()) {
-                if (feature instanceof MBeanAttribute attribute) {
-                    attributes.add(attribute);
-                }
-                if (feature instanceof MBeanOperation operation) {
-                    operations.add(operation);
-                }
+        buildFeatures(attributes, operations);
+        if (weak && target != null) {
+            WeakTarget weakTarget = new WeakTarget(target);
+            attributes = rebindTarget(attributes, weakTarget, MBeanAttribute.class);
+            operations = rebindTarget(operations, weakTarget, MBeanOperation.class);
+        }
+        
+        return new MBean(className, description, attributes, operations, config);
+    }
+
+    private <T extends MBeanFeature> List<T> rebindTarget(List<T> features, WeakTarget weakTarget, Class<T> type)
+    {
+        List<T> rebound = new ArrayList<>(features.size());
+        for (T feature : features) {
+            if (!RebindableFeature.isBoundTo(feature, target)) {
+                rebound.add(feature);
+                continue;
             }
+            for (MBeanFeature replacement : ((RebindableFeature) feature).rebind(weakTarget)) {
+                rebound.add(type.cast(replacement));
+            }
+        }
+        return rebound;
+    }
+
+    /**
+     * Builds a template for the class of the target, or returns empty if the features of the target
+     * depend on more than its class, as with nested and flattened attributes.
+     */
+    Optional<MBeanTemplate> buildTemplate()
+    {
+        if (target == null) {
+            return Optional.empty();
+        }
+        if (adaptedClass != null ? adaptedClass.hasChildren() : attributeBuilders.stream().anyMatch(MBeanAttributeBuilder::hasChildren)) {
+            return Optional.empty();
+        }
+
+        List<MBeanAttribute> attributes = new ArrayList<>();
+        List<MBeanOperation> operations = new ArrayList<>();
+        buildFeatures(attributes, operations);
+        return MBeanTemplate.of(className, description, target, attributes, operations, config);
+    }
+
+    private void buildFeatures(List<MBeanAttribute> attributes, List<MBeanOperation> operations)
+    {
+        if (adaptedClass != null) {
+            addFeatures(adaptedClass.getFeatures(managedObject, config), attributes, operations);
+        }
+        for (MBeanAttributeBuilder attributeBuilder : attributeBuilders) {
+            addFeatures(attributeBuilder.build(), attributes, operations);
         }
         for (MBeanOperationBuilder operationBuilder : operationBuilders) {
             operations.add(operationBuilder.build());
         }
-        
-        return new MBean(className, description, attributes, operations);
+    }
+
+    private static void addFeatures(Collection<? extends MBeanFeature> features, List<MBeanAttribute> attributes, List<MBeanOperation> operations)
+    {
+        for (MBeanFeature feature : features) {
+            if (feature instanceof MBeanAttribute attribute) {
+                attributes.add(attribute);
+            }
+            if (feature instanceof MBeanOperation operation) {
+                operations.add(operation);
+            }
+        }
     }
 }
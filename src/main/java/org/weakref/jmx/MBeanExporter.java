@@ -16,11 +16,13 @@
 package org.weakref.jmx;
 
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.MapMaker;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
+import org.weakref.jmx.ExportRegistry.Registration;
 import org.weakref.jmx.JmxException.Reason;
 
 import jakarta.annotation.PreDestroy;
+import javax.management.DynamicMBean;
 import javax.management.InstanceAlreadyExistsException;
 import javax.management.InstanceNotFoundException;
 import javax.management.MBeanRegistrationException;
@@ -30,22 +32,47 @@ import javax.management.NotCompliantMBeanException;
 import javax.management.ObjectName;
 
 import java.lang.management.ManagementFactory;
+import java.lang.ref.Cleaner;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 public class MBeanExporter
 {
     private final MBeanServer server;
-    private final Map<ObjectName, Object> exportedObjects;
+    private static final int UNEXPORT_BATCH_SIZE = 256;
+
+    private final ExportRegistry registry = new ExportRegistry();
+    private final LongAdder leakedExports = new LongAdder();
+    private final LongAdder materializedDeferredExports = new LongAdder();
+    private final LongAdder skippedDeferredExports = new LongAdder();
+    private final LongAdder failedDeferredExports = new LongAdder();
     private final ObjectNameGenerator objectNameGenerator;
-    private final Map<ObjectName, ManagedClass> exportedManagedClasses = new ConcurrentHashMap<>();
+    private final MBeanExporterConfig config;
+    private final ObjectNameCache generatedNames;
 
     MBeanExporter()
     {
@@ -57,12 +84,18 @@ public class MBeanExporter
         this(server, Optional.empty());
     }
 
-    @Inject
     public MBeanExporter(MBeanServer server, Optional<ObjectNameGenerator> objectNameGenerator)
+    {
+        this(server, objectNameGenerator, Optional.empty());
+    }
+
+    @Inject
+    public MBeanExporter(MBeanServer server, Optional<ObjectNameGenerator> objectNameGenerator, Optional<MBeanExporterConfig> config)
     {
         this.server = server;
         this.objectNameGenerator = objectNameGenerator.orElseGet(ObjectNameGenerator::defaultObjectNameGenerator);
-        exportedObjects = new MapMaker().weakValues().makeMap();
+        this.config = config.orElseGet(MBeanExporterConfig::new);
+        this.generatedNames = new ObjectNameCache(this.config.getObjectNameCacheSize());
     }
 
     @PreDestroy
@@ -79,7 +112,7 @@ public class MBeanExporter
     public MBeanExport exportWithGeneratedName(Object object)
     {
         requireNonNull(object, "object is null");
-        ObjectName objectName = createObjectName(objectNameGenerator.generatedNameOf(object.getClass()));
+        ObjectName objectName = generatedNameOf(object.getClass());
         export(objectName, object);
         return new MBeanExport(objectName, () -> unexport(objectName));
     }
@@ -88,7 +121,7 @@ public class MBeanExporter
     {
         requireNonNull(object, "object is null");
         requireNonNull(type, "type is null");
-        ObjectName objectName = createObjectName(objectNameGenerator.generatedNameOf(type));
+        ObjectName objectName = generatedNameOf(type);
         export(objectName, object);
         return new MBeanExport(objectName, () -> unexport(objectName));
     }
@@ -98,7 +131,7 @@ public class MBeanExporter
         requireNonNull(object, "object is null");
         requireNonNull(type, "type is null");
         requireNonNull(name, "name is null");
-        ObjectName objectName = createObjectName(objectNameGenerator.generatedNameOf(type, name));
+        ObjectName objectName = generatedNameOf(type, name);
         export(objectName, object);
         return new MBeanExport(objectName, () -> unexport(objectName));
     }
@@ -108,7 +141,7 @@ public class MBeanExporter
         requireNonNull(object, "object is null");
         requireNonNull(type, "type is null");
         requireNonNull(properties, "properties is null");
-        ObjectName objectName = createObjectName(objectNameGenerator.generatedNameOf(type, properties));
+        ObjectName objectName = generatedNameOf(type, properties);
         export(objectName, object);
         return new MBeanExport(objectName, () -> unexport(objectName));
     }
@@ -120,19 +153,251 @@ public class MBeanExporter
 
     public void export(ObjectName objectName, Object object)
     {
+        register(prepare(objectName, object, false));
+    }
+
+    public void exportWeakly(String name, Object object)
+    {
+        exportWeakly(createObjectName(name), object);
+    }
+
+    /**
+     * Exports an object without keeping it reachable. The MBean refers to the object weakly, and
+     * once the object is garbage collected its name is unexported in the background and counted
+     * by {@link #getLeakedExports()}. Values of nested and flattened attributes are still referred
+     * to strongly, so they must not refer back to the object.
+     */
+    public void exportWeakly(ObjectName objectName, Object object)
+    {
+        register(prepare(objectName, object, true));
+    }
+
+    /**
+     * Replaces the object exported under a name. When the MBean of the new object has the same
+     * MBeanInfo as the registered one, which is the case for objects of the same class, the
+     * registered MBean is switched to the new object in place, so the name stays registered
+     * throughout. Otherwise the name is unexported and the new object exported under it. A weak
+     * export stays weak. If exporting the new object fails, the previous object is exported again
+     * before the failure is thrown; if that fails as well, or a weakly exported previous object has
+     * already been collected, the name is left unregistered.
+     *
+     * @return whether the object was replaced in place rather than by registering a new MBean
+     */
+    public boolean replace(ObjectName objectName, Object object)
+    {
+        requireNonNull(objectName, "objectName is null");
+        requireNonNull(object, "object is null");
+        while (true) {
+            Registration registration = registry.get(objectName);
+            if (registration == null) {
+                throw new JmxException(Reason.INSTANCE_NOT_FOUND, "key not exported: %s", objectName);
+            }
+            boolean weak = registration.isWeak();
+            ManagedObject managedObject = ManagedObject.introspect(object);
+            MBean replacement = MBeanTemplate.createMBean(managedObject, config, weak);
+            ManagedClass managedClass = ManagedClass.fromManagedObject(managedObject);
+
+            MBean current = registration.buildMBean();
+            if (!current.getMBeanInfo().equals(replacement.getMBeanInfo())) {
+                Object previous = registration.getObject();
+                unexport(objectName);
+                try {
+                    register(new PreparedExport(objectName, object, replacement, managedClass, weak));
+                }
+                catch (RuntimeException e) {
+                    // put the previous object back so the name does not stay unregistered
+                    if (previous != null) {
+                        try {
+                            register(prepare(objectName, previous, weak));
+                        }
+                        catch (RuntimeException restoreFailure) {
+                            e.addSuppressed(restoreFailure);
+                        }
+                    }
+                    throw e;
+                }
+                return false;
+            }
+
+            // the registry and the MBean switch together, so concurrent replaces cannot leave them disagreeing
+            synchronized (current) {
+                Registration replaced = registry.replace(registration, object, managedClass);
+                if (replaced == null) {
+                    // unexported or replaced meanwhile
+                    continue;
+                }
+                current.replaceFeatures(replacement);
+                if (weak) {
+                    CollectedExports.CLEANER.register(object, () -> unexportCollected(replaced));
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Exports an object only if it outlives {@code minimumLifetime}, so short-lived objects never
+     * reach the MBeanServer. Until then the object is referred to weakly; if it is garbage collected
+     * or the returned handle is unexported first, the export is skipped. Either outcome is counted,
+     * by {@link #getMaterializedDeferredExports()} and {@link #getSkippedDeferredExports()}.
+     * A deferred export that fails, for example because the name was taken meanwhile, is counted by
+     * {@link #getFailedDeferredExports()}.
+     * <p>
+     * Deferred exports of every exporter in the JVM are introspected and registered on one shared
+     * scheduler thread, so a slow {@code @Nested} getter delays all other deferred exports that fall due.
+     */
+    public MBeanExport exportDeferred(ObjectName objectName, Object object, Duration minimumLifetime)
+    {
+        requireNonNull(objectName, "objectName is null");
+        requireNonNull(object, "object is null");
+        requireNonNull(minimumLifetime, "minimumLifetime is null");
+        DeferredExport deferred = new DeferredExport(objectName, object);
+        deferred.schedule(minimumLifetime);
+        return new MBeanExport(objectName, deferred::unexport);
+    }
+
+    /**
+     * Exports each object under its name. The objects are introspected in parallel on a pool of one
+     * thread per processor, shared by the bulk exports of all exporters and separate from the common
+     * pool, so blocking {@link Nested} getters cannot starve unrelated work. Once all are
+     * introspected, they are registered one after another. A name that fails does not stop the
+     * others from being exported.
+     *
+     * @return the names that were exported and the failure of each name that was not
+     */
+    public BulkExportResult exportAll(Map<ObjectName, ?> objects)
+    {
+        return exportAll(objects, false);
+    }
+
+    /**
+     * Like {@link #exportAll}, but exports nothing if any name fails: objects are only registered
+     * when all of them were introspected, and a failed registration unexports the names already
+     * registered by this call.
+     */
+    public BulkExportResult exportAllOrNothing(Map<ObjectName, ?> objects)
+    {
+        return exportAll(objects, true);
+    }
+
+    private BulkExportResult exportAll(Map<ObjectName, ?> objects, boolean allOrNothing)
+    {
+        requireNonNull(objects, "objects is null");
+
+        Map<ObjectName, Exception> failures = new ConcurrentHashMap<>();
+        List<PreparedExport> exports = prepareAll(objects, failures);
+        if (allOrNothing && !failures.isEmpty()) {
+            return new BulkExportResult(Set.of(), failures, false);
+        }
+
+        Set<ObjectName> exported = new LinkedHashSet<>();
+        for (PreparedExport export : exports) {
+            try {
+                register(export);
+                exported.add(export.objectName());
+            }
+            catch (RuntimeException e) {
+                failures.put(export.objectName(), e);
+                if (allOrNothing) {
+                    rollBack(exported, failures);
+                    return new BulkExportResult(Set.of(), failures, true);
+                }
+            }
+        }
+        return new BulkExportResult(exported, failures, false);
+    }
+
+    /**
+     * Returns a new, empty set of names to be exported a generation at a time. See {@link ExportGenerations}.
+     */
+    public ExportGenerations newExportGenerations()
+    {
+        return new ExportGenerations(this);
+    }
+
+    private List<PreparedExport> prepareAll(Map<ObjectName, ?> objects, Map<ObjectName, Exception> failures)
+    {
+        for (ObjectName objectName : objects.keySet()) {
+            requireNonNull(objectName, "objectName is null");
+        }
+
+        Map<ObjectName, Future<PreparedExport>> futures = new LinkedHashMap<>();
         try {
-            MBeanBuilder builder = new MBeanBuilder(object);
-            MBean mbean = builder.build();
+            for (Map.Entry<ObjectName, ?> entry : objects.entrySet()) {
+                futures.put(entry.getKey(), BulkExports.EXECUTOR.submit(() -> prepare(entry.getKey(), entry.getValue(), false)));
+            }
 
-            synchronized(exportedObjects) {
-                if(exportedObjects.containsKey(objectName)) {
-                    throw new JmxException(Reason.INSTANCE_ALREADY_EXISTS, "key already exported: %s", objectName);
+            List<PreparedExport> exports = new ArrayList<>(futures.size());
+            for (Map.Entry<ObjectName, Future<PreparedExport>> entry : futures.entrySet()) {
+                try {
+                    exports.add(entry.getValue().get());
                 }
-                server.registerMBean(mbean, objectName);
-                exportedObjects.put(objectName, object);
+                catch (ExecutionException e) {
+                    if (e.getCause() instanceof Error error) {
+                        throw error;
+                    }
+                    // prepare only throws unchecked exceptions
+                    failures.put(entry.getKey(), (RuntimeException) e.getCause());
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failures.put(entry.getKey(), e);
+                }
+            }
+            return exports;
+        }
+        finally {
+            // the pool is shared, so work this call no longer waits for must not hold its threads
+            for (Future<PreparedExport> future : futures.values()) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private void rollBack(Set<ObjectName> exported, Map<ObjectName, Exception> failures)
+    {
+        for (ObjectName objectName : exported) {
+            try {
+                unexport(objectName);
             }
+            catch (JmxException e) {
+                failures.put(objectName, e);
+            }
+        }
+    }
+
+    private PreparedExport prepare(ObjectName objectName, Object object, boolean weak)
+    {
+        requireNonNull(objectName, "objectName is null");
+        if (config.isLazyMBeansEnabled()) {
+            return new PreparedExport(objectName, object, new LazyMBean(object, config, weak), null, weak);
+        }
+        ManagedObject managedObject = ManagedObject.introspect(object);
+        MBean mbean = MBeanTemplate.createMBean(managedObject, config, weak);
+        return new PreparedExport(objectName, object, mbean, ManagedClass.fromManagedObject(managedObject), weak);
+    }
 
-            exportedManagedClasses.put(objectName, ManagedClass.fromExportedObject(object));
+    private void register(PreparedExport export)
+    {
+        ObjectName objectName = export.objectName();
+        Registration registration = registry.reserve(objectName, export.object(), export.mbean(), export.managedClass(), export.weak());
+        if (registration == null) {
+            throw new JmxException(Reason.INSTANCE_ALREADY_EXISTS, "key already exported: %s", objectName);
+        }
+
+        boolean registered = false;
+        LazyMBean lazy = export.mbean() instanceof LazyMBean lazyMBean ? lazyMBean : null;
+        try {
+            if (lazy != null) {
+                lazy.beginRegistration();
+            }
+            server.registerMBean(export.mbean(), objectName);
+            registry.exported(registration);
+            registered = true;
+            if (export.weak()) {
+                // the action must not refer to the object, or it would never become unreachable
+                CollectedExports.CLEANER.register(export.object(), () -> unexportCollected(registration));
+            }
         }
         catch (InstanceAlreadyExistsException e) {
             throw new JmxException(Reason.INSTANCE_ALREADY_EXISTS, e.getMessage());
@@ -144,26 +409,88 @@ public class MBeanExporter
             // MBeanBuilder should never construct invalid mbeans
             throw new AssertionError(e);
         }
+        finally {
+            if (lazy != null) {
+                lazy.endRegistration();
+            }
+            if (!registered) {
+                registry.release(registration);
+            }
+        }
+    }
+
+    private void unexportCollected(Registration registration)
+    {
+        // the name stays reserved until released, so no other export can take it meanwhile
+        ObjectName objectName = registration.getObjectName();
+        if (registry.get(objectName) != registration) {
+            return;
+        }
+        try {
+            server.unregisterMBean(objectName);
+        }
+        catch (InstanceNotFoundException | MBeanRegistrationException ignored) {
+            // unregistered elsewhere, or the MBean failed to clean up; the name is released either way
+        }
+        if (registry.release(registration)) {
+            leakedExports.increment();
+        }
+    }
+
+    /**
+     * Returns the number of {@linkplain #exportWeakly weakly exported} objects that were garbage
+     * collected without being unexported, and were unexported by this exporter in the background.
+     */
+    public long getLeakedExports()
+    {
+        return leakedExports.sum();
+    }
+
+    /**
+     * Returns the number of {@linkplain #exportDeferred deferred exports} that outlived their minimum
+     * lifetime and were exported.
+     */
+    public long getMaterializedDeferredExports()
+    {
+        return materializedDeferredExports.sum();
+    }
+
+    /**
+     * Returns the number of {@linkplain #exportDeferred deferred exports} that were unexported, or
+     * whose object was garbage collected, before their minimum lifetime elapsed.
+     */
+    public long getSkippedDeferredExports()
+    {
+        return skippedDeferredExports.sum();
+    }
+
+    /**
+     * Returns the number of {@linkplain #exportDeferred deferred exports} that outlived their minimum
+     * lifetime but could not be exported, for example because the name was taken meanwhile.
+     */
+    public long getFailedDeferredExports()
+    {
+        return failedDeferredExports.sum();
     }
 
     public void unexportWithGeneratedName(Class<?> type)
     {
         requireNonNull(type, "type is null");
-        unexport(objectNameGenerator.generatedNameOf(type));
+        unexport(generatedNameOf(type));
     }
 
     public void unexportWithGeneratedName(Class<?> type, String name)
     {
         requireNonNull(type, "type is null");
         requireNonNull(name, "name is null");
-        unexport(objectNameGenerator.generatedNameOf(type, name));
+        unexport(generatedNameOf(type, name));
     }
 
     public void unexportWithGeneratedName(Class<?> type, Map<String, String> properties)
     {
         requireNonNull(type, "type is null");
         requireNonNull(properties, "properties is null");
-        unexport(objectNameGenerator.generatedNameOf(type, properties));
+        unexport(generatedNameOf(type, properties));
     }
 
     public void unexport(String name)
@@ -174,12 +501,8 @@ public class MBeanExporter
     public void unexport(ObjectName objectName)
     {
         try {
-            synchronized(exportedObjects) {
-                server.unregisterMBean(objectName);
-                exportedObjects.remove(objectName);
-            }
-
-            exportedManagedClasses.remove(objectName);
+            server.unregisterMBean(objectName);
+            registry.remove(objectName);
         }
         catch (MBeanRegistrationException e) {
             throw new JmxException(Reason.MBEAN_REGISTRATION, e.getMessage(), e.getCause());
@@ -207,55 +530,171 @@ public class MBeanExporter
     {
         Map<String, Exception> errors = new HashMap<>();
 
-        synchronized(exportedObjects) {
-            List<ObjectName> toRemove = new ArrayList<>(exportedObjects.size());
-            for (ObjectName objectName : exportedObjects.keySet()) {
-                try {
-                    server.unregisterMBean(objectName);
-                    toRemove.add(objectName);
-                }
-                catch(InstanceNotFoundException e) {
-                    // ignore ... mbean has already been unregistered elsewhere
-                    toRemove.add(objectName);
+        // names still being exported are left to the calls exporting them
+        for (Registration registration : registry.getExported()) {
+            unexport(registration, errors);
+        }
+
+        return errors;
+    }
+
+    /**
+     * Unexports all MBeans that have been exported through this MBeanExporter, unregistering them
+     * in parallel batches, and stops once the timeout has elapsed. Unregistrations already running
+     * when it elapses are left to finish in the background.
+     *
+     * @return the object names that could not be unexported and the corresponding exception, and
+     * the names that were not reached before the timeout
+     */
+    public UnexportAllResult unexportAllAndReportMissing(Duration timeout)
+    {
+        requireNonNull(timeout, "timeout is null");
+        // kept far from overflow, so the deadline can be compared by subtraction
+        long deadline = System.nanoTime() + Math.min(NANOSECONDS.convert(timeout), Long.MAX_VALUE / 4);
+
+        List<Registration> registrations = registry.getExported();
+        Map<String, Exception> errors = new ConcurrentHashMap<>();
+        Set<Registration> reached = ConcurrentHashMap.newKeySet();
+
+        List<List<Registration>> batches = Lists.partition(registrations, UNEXPORT_BATCH_SIZE);
+        int threads = Math.min(batches.size(), Runtime.getRuntime().availableProcessors());
+        if (threads > 0) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "jmxutils-unexport");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<?>> futures = new ArrayList<>(batches.size());
+                for (List<Registration> batch : batches) {
+                    futures.add(executor.submit(() -> {
+                        for (Registration registration : batch) {
+                            if (System.nanoTime() - deadline >= 0) {
+                                return;
+                            }
+                            try {
+                                unexport(registration, errors);
+                            }
+                            catch (RuntimeException e) {
+                                errors.put(registration.getObjectName().toString(), e);
+                            }
+                            reached.add(registration);
+                        }
+                    }));
                 }
-                catch (MBeanRegistrationException e) {
-                    errors.put(objectName.toString(), e);
+                for (Future<?> future : futures) {
+                    future.get(Math.max(deadline - System.nanoTime(), 0), NANOSECONDS);
                 }
             }
+            catch (TimeoutException e) {
+                // the batches stop by themselves at the deadline
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            catch (ExecutionException e) {
+                throw new AssertionError(e.getCause());
+            }
+            finally {
+                executor.shutdown();
+            }
+        }
 
-            exportedObjects.keySet().removeAll(toRemove);
-
-            exportedManagedClasses.keySet().removeAll(toRemove);
+        List<String> unreached = new ArrayList<>();
+        for (Registration registration : registrations) {
+            if (!reached.contains(registration)) {
+                unreached.add(registration.getObjectName().toString());
+            }
         }
+        return new UnexportAllResult(errors, unreached);
+    }
 
-        return errors;
+    private void unexport(Registration registration, Map<String, Exception> errors)
+    {
+        ObjectName objectName = registration.getObjectName();
+        try {
+            server.unregisterMBean(objectName);
+            registry.release(registration);
+        }
+        catch(InstanceNotFoundException e) {
+            // ignore ... mbean has already been unregistered elsewhere
+            registry.release(registration);
+        }
+        catch (MBeanRegistrationException e) {
+            errors.put(objectName.toString(), e);
+        }
     }
 
     public Map<String, Object> getExportedObjects()
     {
-        synchronized (exportedObjects) {
-            ImmutableMap.Builder<String,Object> builder = ImmutableMap.builder();
-            for (Entry<ObjectName, Object> entry : exportedObjects.entrySet()) {
-                builder.put(entry.getKey().toString(), entry.getValue());
+        ImmutableMap.Builder<String,Object> builder = ImmutableMap.builder();
+        for (Registration registration : registry.getExported()) {
+            Object object = registration.getObject();
+            if (object != null) {
+                builder.put(registration.getObjectName().toString(), object);
             }
-            return builder.build();
         }
+        return builder.build();
     }
 
     public Map<String, ManagedClass> getManagedClasses()
     {
         ImmutableMap.Builder<String, ManagedClass> builder = ImmutableMap.builder();
-        for (Entry<ObjectName, ManagedClass> entry : exportedManagedClasses.entrySet()) {
-            builder.put(entry.getKey().toString(), entry.getValue());
+        for (Registration registration : registry.getExported()) {
+            builder.put(registration.getObjectName().toString(), registration.getManagedClass());
         }
         return builder.build();
     }
 
-    public Optional<Object> getExportedObject(ObjectName objectName)
+    /**
+     * Returns the number of failed reads of each attribute of an exported MBean that has failed at least once.
+     */
+    public Map<String, Long> getAttributeFailures(ObjectName objectName)
+    {
+        MBean mbean = getExportedMBean(objectName);
+        return mbean == null ? ImmutableMap.of() : ImmutableMap.copyOf(mbean.getAttributeFailures());
+    }
+
+    /**
+     * Returns the number of bulk reads that gave up waiting for each attribute of an exported MBean
+     * that has missed the {@linkplain MBeanExporterConfig#setAttributeReadDeadline read deadline} at least once.
+     */
+    public Map<String, Long> getAttributeTimeouts(ObjectName objectName)
+    {
+        MBean mbean = getExportedMBean(objectName);
+        return mbean == null ? ImmutableMap.of() : ImmutableMap.copyOf(mbean.getAttributeTimeouts());
+    }
+
+    // null for a lazy MBean that has not been built, and so has not been read
+    private MBean getExportedMBean(ObjectName objectName)
     {
-        synchronized (exportedObjects) {
-            return Optional.ofNullable(exportedObjects.get(objectName));
+        requireNonNull(objectName, "objectName is null");
+        Registration registration = registry.get(objectName);
+        if (registration == null) {
+            throw new JmxException(Reason.INSTANCE_NOT_FOUND, "key not exported: %s", objectName);
         }
+        return registration.getMBean();
+    }
+
+    /**
+     * Returns a reader of the attributes of an exported MBean that reads them in process, without
+     * going through the MBeanServer. The reader keeps reading the object exported when it was
+     * returned, even after the name is unexported.
+     */
+    public AttributeReader getAttributeReader(ObjectName objectName)
+    {
+        requireNonNull(objectName, "objectName is null");
+        Registration registration = registry.get(objectName);
+        if (registration == null) {
+            throw new JmxException(Reason.INSTANCE_NOT_FOUND, "key not exported: %s", objectName);
+        }
+        return new AttributeReader(objectName, registration.buildMBean());
+    }
+
+    public Optional<Object> getExportedObject(ObjectName objectName)
+    {
+        Registration registration = registry.get(objectName);
+        return Optional.ofNullable(registration == null ? null : registration.getObject());
     }
     
     /**
@@ -268,6 +707,21 @@ public class MBeanExporter
         return new MBeanExporter(ManagementFactory.getPlatformMBeanServer());
     }
 
+    private ObjectName generatedNameOf(Class<?> type)
+    {
+        return generatedNames.nameOf(type, () -> createObjectName(objectNameGenerator.generatedNameOf(type)));
+    }
+
+    private ObjectName generatedNameOf(Class<?> type, String name)
+    {
+        return generatedNames.nameOf(type, name, () -> createObjectName(objectNameGenerator.generatedNameOf(type, name)));
+    }
+
+    private ObjectName generatedNameOf(Class<?> type, Map<String, String> properties)
+    {
+        return generatedNames.nameOf(type, properties, () -> createObjectName(objectNameGenerator.generatedNameOf(type, properties)));
+    }
+
     private static ObjectName createObjectName(String name)
     {
         ObjectName objectName;
@@ -279,4 +733,142 @@ public class MBeanExporter
         }
         return objectName;
     }
+
+    private record PreparedExport(ObjectName objectName, Object object, DynamicMBean mbean, ManagedClass managedClass, boolean weak)
+    {
+    }
+
+    // started on the first weak export
+    private static final class CollectedExports
+    {
+        private static final Cleaner CLEANER = Cleaner.create();
+    }
+
+    // started on the first deferred export
+    private static final class BulkExports
+    {
+        private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+        private static ThreadPoolExecutor createExecutor()
+        {
+            int threads = Runtime.getRuntime().availableProcessors();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "jmxutils-export");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // bulk exports are occasional, so idle threads are not kept around between them
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+
+    private static final class DeferredExports
+    {
+        private static final ScheduledThreadPoolExecutor SCHEDULER = createScheduler();
+
+        private static ScheduledThreadPoolExecutor createScheduler()
+        {
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "jmxutils-deferred-export");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // skipped exports must not stay queued until their delay elapses
+            scheduler.setRemoveOnCancelPolicy(true);
+            return scheduler;
+        }
+    }
+
+    /**
+     * An export waiting for its minimum lifetime. The state only moves forward, so the scheduled
+     * export and the handle's unexport agree on which of them unexports the name.
+     */
+    private final class DeferredExport
+    {
+        private static final int PENDING = 0;
+        private static final int EXPORTING = 1;
+        private static final int EXPORTED = 2;
+        // skipped, unexported, or failed
+        private static final int DONE = 3;
+
+        private final ObjectName objectName;
+        private final WeakReference<Object> object;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private volatile ScheduledFuture<?> scheduled;
+
+        private DeferredExport(ObjectName objectName, Object object)
+        {
+            this.objectName = objectName;
+            this.object = new WeakReference<>(object);
+        }
+
+        private void schedule(Duration minimumLifetime)
+        {
+            scheduled = DeferredExports.SCHEDULER.schedule(this::materialize, minimumLifetime.toNanos(), NANOSECONDS);
+        }
+
+        private void materialize()
+        {
+            Object target = object.get();
+            if (target == null) {
+                if (state.compareAndSet(PENDING, DONE)) {
+                    skippedDeferredExports.increment();
+                }
+                return;
+            }
+            if (!state.compareAndSet(PENDING, EXPORTING)) {
+                return;
+            }
+            try {
+                export(objectName, target);
+            }
+            catch (RuntimeException e) {
+                state.set(DONE);
+                failedDeferredExports.increment();
+                return;
+            }
+            materializedDeferredExports.increment();
+            if (!state.compareAndSet(EXPORTING, EXPORTED)) {
+                // unexported while it was being exported
+                unexportQuietly();
+            }
+        }
+
+        private void unexport()
+        {
+            while (true) {
+                int current = state.get();
+                if (current == PENDING && state.compareAndSet(PENDING, DONE)) {
+                    skippedDeferredExports.increment();
+                    ScheduledFuture<?> scheduled = this.scheduled;
+                    if (scheduled != null) {
+                        scheduled.cancel(false);
+                    }
+                    return;
+                }
+                if (current == EXPORTING && state.compareAndSet(EXPORTING, DONE)) {
+                    // the export unexports the name once it is registered
+                    return;
+                }
+                if (current == EXPORTED && state.compareAndSet(EXPORTED, DONE)) {
+                    MBeanExporter.this.unexport(objectName);
+                    return;
+                }
+                if (current == DONE) {
+                    return;
+                }
+            }
+        }
+
+        private void unexportQuietly()
+        {
+            try {
+                MBeanExporter.this.unexport(objectName);
+            }
+            catch (JmxException ignored) {
+                // unexported elsewhere
+            }
+        }
+    }
 }
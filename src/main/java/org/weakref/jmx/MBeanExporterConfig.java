@@ -0,0 +1,153 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import java.time.Duration;
+
+/**
+ * Tuning options for {@link MBeanExporter}. The defaults match the behavior of an exporter
+ * created without a config.
+ */
+public class MBeanExporterConfig
+{
+    private boolean accessorGenerationEnabled;
+    private boolean generatedAdaptersEnabled = true;
+    private boolean coalescedReadsEnabled;
+    private Duration attributeReadDeadline;
+    private boolean staleValuesOnTimeout;
+    private long objectNameCacheSize;
+    private boolean lazyMBeansEnabled;
+
+    public boolean isAccessorGenerationEnabled()
+    {
+        return accessorGenerationEnabled;
+    }
+
+    /**
+     * Dispatch attribute reads, writes and operations through a class generated once per managed class
+     * instead of through method handles. Methods the generated class cannot link against, such as
+     * methods of non-public classes, keep using method handles.
+     */
+    public MBeanExporterConfig setAccessorGenerationEnabled(boolean accessorGenerationEnabled)
+    {
+        this.accessorGenerationEnabled = accessorGenerationEnabled;
+        return this;
+    }
+
+    public boolean isGeneratedAdaptersEnabled()
+    {
+        return generatedAdaptersEnabled;
+    }
+
+    /**
+     * Build MBeans for classes compiled with the {@code jmxutils-processor} annotation processor from
+     * the {@link MBeanAdapter} generated for them, without introspecting the class. Classes without a
+     * generated adapter are always introspected.
+     */
+    public MBeanExporterConfig setGeneratedAdaptersEnabled(boolean generatedAdaptersEnabled)
+    {
+        this.generatedAdaptersEnabled = generatedAdaptersEnabled;
+        return this;
+    }
+
+    public boolean isCoalescedReadsEnabled()
+    {
+        return coalescedReadsEnabled;
+    }
+
+    /**
+     * Let concurrent reads of the same attribute share a single call to its getter. Reads that arrive
+     * while a call is in flight wait for it and receive its result, or the exception it threw.
+     */
+    public MBeanExporterConfig setCoalescedReadsEnabled(boolean coalescedReadsEnabled)
+    {
+        this.coalescedReadsEnabled = coalescedReadsEnabled;
+        return this;
+    }
+
+    public Duration getAttributeReadDeadline()
+    {
+        return attributeReadDeadline;
+    }
+
+    /**
+     * Bound the time {@link javax.management.DynamicMBean#getAttributes} waits for attribute values.
+     * Attributes are read concurrently on background threads, and those not read when the deadline
+     * expires are left out of the result. A read still running from an earlier call is waited for
+     * instead of being started again. Null, the default, reads attributes on the calling thread.
+     * <p>
+     * With a deadline, getters run on a shared, bounded pool of background threads, so they do not
+     * see the ThreadLocals or the access control Subject of the JMX caller.
+     */
+    public MBeanExporterConfig setAttributeReadDeadline(Duration attributeReadDeadline)
+    {
+        if (attributeReadDeadline != null && (attributeReadDeadline.isNegative() || attributeReadDeadline.isZero())) {
+            throw new IllegalArgumentException("attributeReadDeadline must be positive");
+        }
+        this.attributeReadDeadline = attributeReadDeadline;
+        return this;
+    }
+
+    public boolean isStaleValuesOnTimeout()
+    {
+        return staleValuesOnTimeout;
+    }
+
+    /**
+     * Report the last value read for an attribute whose read misses the
+     * {@linkplain #setAttributeReadDeadline deadline}, instead of leaving it out.
+     */
+    public MBeanExporterConfig setStaleValuesOnTimeout(boolean staleValuesOnTimeout)
+    {
+        this.staleValuesOnTimeout = staleValuesOnTimeout;
+        return this;
+    }
+
+    public long getObjectNameCacheSize()
+    {
+        return objectNameCacheSize;
+    }
+
+    /**
+     * The number of generated object names to keep for each type, by the properties they were
+     * generated from, so exporting and unexporting with a generated name does not call the
+     * {@link ObjectNameGenerator} and parse its result every time. Only enable it with a generator
+     * that returns the same name for the same arguments, as the default generator does. Zero, the
+     * default, disables the cache.
+     */
+    public MBeanExporterConfig setObjectNameCacheSize(long objectNameCacheSize)
+    {
+        if (objectNameCacheSize < 0) {
+            throw new IllegalArgumentException("objectNameCacheSize is negative");
+        }
+        this.objectNameCacheSize = objectNameCacheSize;
+        return this;
+    }
+
+    public boolean isLazyMBeansEnabled()
+    {
+        return lazyMBeansEnabled;
+    }
+
+    /**
+     * Register a stand-in for each exported object and build its MBean on the first read of its
+     * MBeanInfo, attributes or operations, instead of when the object is exported. Objects whose
+     * MBeans are never used are never introspected.
+     */
+    public MBeanExporterConfig setLazyMBeansEnabled(boolean lazyMBeansEnabled)
+    {
+        this.lazyMBeansEnabled = lazyMBeansEnabled;
+        return this;
+    }
+}
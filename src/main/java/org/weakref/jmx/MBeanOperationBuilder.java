@@ -19,7 +19,6 @@ import javax.management.Descriptor;
 import javax.management.MBeanOperationInfo;
 import javax.management.MBeanParameterInfo;
 
-import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.util.Arrays;
@@ -35,6 +34,7 @@ public class MBeanOperationBuilder
     private String name;
     private Method concreteMethod;
     private Method annotatedMethod;
+    private MBeanExporterConfig config = new MBeanExporterConfig();
 
     public MBeanOperationBuilder onInstance(Object target)
     {
@@ -60,6 +60,12 @@ public class MBeanOperationBuilder
         return this;
     }
 
+    MBeanOperationBuilder withConfig(MBeanExporterConfig config)
+    {
+        this.config = requireNonNull(config, "config is null");
+        return this;
+    }
+
     public MBeanOperation build()
     {
         requireNonNull(target, "JmxOperation must have a target object");
@@ -80,20 +86,16 @@ public class MBeanOperationBuilder
         Class<?>[] types = concreteMethod.getParameterTypes();
 
         // Parameter annotations used form descriptor come from the annotated method, not the public method
-        Annotation[][] parameterAnnotations;
-        if (annotatedMethod != null) {
-            parameterAnnotations = annotatedMethod.getParameterAnnotations();
-        }
-        else {
-            parameterAnnotations = new Annotation[parameterNames.size()][];
-        }
-
         MBeanParameterInfo[] parameterInfos = new MBeanParameterInfo[parameterNames.size()];
         for (int i = 0; i < parameterNames.size(); i++) {
-            // Parameter Descriptor
-            Descriptor parameterDescriptor = AnnotationUtils.buildDescriptor(parameterAnnotations[i]);
-            // Parameter Description
-            String parameterDescription = AnnotationUtils.getDescription(parameterDescriptor, parameterAnnotations[i]);
+            Descriptor parameterDescriptor = null;
+            String parameterDescription = null;
+            if (annotatedMethod != null) {
+                // Parameter Descriptor
+                parameterDescriptor = AnnotationUtils.buildParameterDescriptor(annotatedMethod, i);
+                // Parameter Description
+                parameterDescription = AnnotationUtils.getParameterDescription(annotatedMethod, i);
+            }
 
             parameterInfos[i] = new MBeanParameterInfo(
                     parameterNames.get(i),
@@ -119,6 +121,7 @@ public class MBeanOperationBuilder
                 MBeanOperationInfo.UNKNOWN,
                 descriptor);
 
-        return new ReflectionMBeanOperation(mbeanOperationInfo, target, concreteMethod);
+        MethodInvoker invoker = MethodInvoker.forTarget(target.getClass(), concreteMethod, config.isAccessorGenerationEnabled());
+        return new ReflectionMBeanOperation(mbeanOperationInfo, target, invoker);
     }
 }
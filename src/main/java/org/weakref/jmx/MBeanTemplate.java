@@ -0,0 +1,195 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import javax.management.MBeanInfo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The MBeanInfo and features of a managed class, built from the first object of the class that is
+ * exported and shared by the MBeans of all later objects. Creating an MBean from a template allocates
+ * only the MBean; its features are bound to the object when it is first used.
+ * <p>
+ * Classes with nested or flattened attributes have no template, as their features depend on the
+ * runtime values of those attributes. Their objects are introspected on every export.
+ */
+final class MBeanTemplate
+{
+    private static final ClassValue<ConcurrentMap<TemplateKey, Optional<MBeanTemplate>>> TEMPLATES = new ClassValue<>()
+    {
+        @Override
+        protected ConcurrentMap<TemplateKey, Optional<MBeanTemplate>> computeValue(Class<?> type)
+        {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final LongAdder templateHits = new LongAdder();
+    private static final LongAdder templateMisses = new LongAdder();
+
+    private final MBeanInfo mbeanInfo;
+    // features rebound to no target, in the order they were built, and the tables built from them
+    private final List<MBeanAttribute> attributes;
+    private final List<MBeanOperation> operations;
+    private final AttributeTable attributeTable;
+    private final OperationIndex operationIndex;
+    private final Duration attributeReadDeadline;
+    private final boolean staleValuesOnTimeout;
+
+    private MBeanTemplate(MBeanInfo mbeanInfo, List<MBeanAttribute> attributes, List<MBeanOperation> operations, MBeanExporterConfig config)
+    {
+        this.mbeanInfo = mbeanInfo;
+        this.attributes = attributes;
+        this.operations = operations;
+        this.attributeTable = new AttributeTable(attributes);
+        this.operationIndex = new OperationIndex(operations);
+        this.attributeReadDeadline = config.getAttributeReadDeadline();
+        this.staleValuesOnTimeout = config.isStaleValuesOnTimeout();
+    }
+
+    public static MBean createMBean(Object target, MBeanExporterConfig config)
+    {
+        return createMBean(ManagedObject.introspect(target), config);
+    }
+
+    public static MBean createMBean(ManagedObject managedObject, MBeanExporterConfig config)
+    {
+        return createMBean(managedObject, config, false);
+    }
+
+    /**
+     * Returns an MBean for the introspected object, from the template of its class when it has one.
+     * A weak MBean refers to the object through a {@link WeakTarget}; the values of its nested and
+     * flattened attributes are still referred to strongly.
+     */
+    public static MBean createMBean(ManagedObject managedObject, MBeanExporterConfig config, boolean weak)
+    {
+        Object target = managedObject.getTarget();
+        ConcurrentMap<TemplateKey, Optional<MBeanTemplate>> templates = TEMPLATES.get(target.getClass());
+        TemplateKey key = TemplateKey.of(config);
+
+        Optional<MBeanTemplate> template = templates.get(key);
+        if (template != null) {
+            templateHits.increment();
+            if (template.isPresent()) {
+                return new MBean(template.get(), weak ? new WeakTarget(target) : target);
+            }
+            return new MBeanBuilder(managedObject, config).build(weak);
+        }
+
+        templateMisses.increment();
+        MBeanBuilder builder = new MBeanBuilder(managedObject, config);
+        template = templates.computeIfAbsent(key, ignored -> builder.buildTemplate());
+        if (template.isPresent()) {
+            return new MBean(template.get(), weak ? new WeakTarget(target) : target);
+        }
+        return builder.build(weak);
+    }
+
+    /**
+     * Returns a template built from features created for {@code target}, or empty if any of them
+     * cannot be rebound to another object of its class.
+     */
+    static Optional<MBeanTemplate> of(String className, String description, Object target, List<MBeanAttribute> attributes, List<MBeanOperation> operations, MBeanExporterConfig config)
+    {
+        for (MBeanAttribute attribute : attributes) {
+            if (!RebindableFeature.isBoundTo(attribute, target)) {
+                return Optional.empty();
+            }
+        }
+        for (MBeanOperation operation : operations) {
+            if (!RebindableFeature.isBoundTo(operation, target)) {
+                return Optional.empty();
+            }
+        }
+
+        // the template does not keep the object it was built from reachable
+        MBeanInfo mbeanInfo = MBean.buildMBeanInfo(className, description, attributes, operations);
+        return Optional.of(new MBeanTemplate(mbeanInfo, rebind(attributes, null, MBeanAttribute.class), rebind(operations, null, MBeanOperation.class), config));
+    }
+
+    public MBeanInfo getMBeanInfo()
+    {
+        return mbeanInfo;
+    }
+
+    public AttributeTable bindAttributes(Object target)
+    {
+        return attributeTable.withAttributes(rebind(attributes, target, MBeanAttribute.class));
+    }
+
+    public OperationIndex bindOperations(Object target)
+    {
+        return operationIndex.withOperations(rebind(operations, target, MBeanOperation.class));
+    }
+
+    public Duration getAttributeReadDeadline()
+    {
+        return attributeReadDeadline;
+    }
+
+    public boolean isStaleValuesOnTimeout()
+    {
+        return staleValuesOnTimeout;
+    }
+
+    private static <T extends MBeanFeature> List<T> rebind(List<T> features, Object target, Class<T> type)
+    {
+        List<T> rebound = new ArrayList<>(features.size());
+        for (T feature : features) {
+            for (MBeanFeature replacement : ((RebindableFeature) feature).rebind(target)) {
+                rebound.add(type.cast(replacement));
+            }
+        }
+        return rebound;
+    }
+
+    static long getTemplateHits()
+    {
+        return templateHits.sum();
+    }
+
+    static long getTemplateMisses()
+    {
+        return templateMisses.sum();
+    }
+
+    /**
+     * The options of an exporter config that change the features built for a class.
+     */
+    private record TemplateKey(
+            boolean accessorGenerationEnabled,
+            boolean generatedAdaptersEnabled,
+            boolean coalescedReadsEnabled,
+            Duration attributeReadDeadline,
+            boolean staleValuesOnTimeout)
+    {
+        private static TemplateKey of(MBeanExporterConfig config)
+        {
+            return new TemplateKey(
+                    config.isAccessorGenerationEnabled(),
+                    config.isGeneratedAdaptersEnabled(),
+                    config.isCoalescedReadsEnabled(),
+                    config.getAttributeReadDeadline(),
+                    config.isStaleValuesOnTimeout());
+        }
+    }
+}
@@ -41,6 +41,12 @@ public class ManagedClass
 
     public static ManagedClass fromExportedObject(Object target)
     {
+        return fromManagedObject(ManagedObject.introspect(target));
+    }
+
+    static ManagedClass fromManagedObject(ManagedObject managedObject)
+    {
+        Object target = managedObject.getTarget();
         ImmutableMap.Builder<String, ManagedAttribute> attributes = ImmutableMap.builder();
         ImmutableMap.Builder<String, ManagedClass> children = ImmutableMap.builder();
 
@@ -58,14 +64,10 @@ public class ManagedClass
                 }
 
                 if (AnnotationUtils.isNested(annotatedMethod) || AnnotationUtils.isFlatten(annotatedMethod)) {
-                    try {
-                        Object childTarget = concreteMethod.invoke(target);
-                        if (childTarget != null) {
-                            children.put(attributeName, fromExportedObject(childTarget));
-                        }
-                    }
-                    catch (ReflectiveOperationException e) {
-                        // Ignore and continue
+                    // read once, along with the values the MBean is built from
+                    ManagedObject child = managedObject.getChild(concreteMethod.getName());
+                    if (child != null) {
+                        children.put(attributeName, fromManagedObject(child));
                     }
                 }
 
@@ -0,0 +1,97 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+import static org.weakref.jmx.ReflectionUtils.isGetter;
+
+/**
+ * An object being exported along with the values of its nested and flattened attributes, each read
+ * once. Both the {@link MBean} and the {@link ManagedClass} of the object are built from it, so they
+ * see the same child objects.
+ */
+final class ManagedObject
+{
+    // concrete getters of the nested and flattened attributes of each class
+    private static final ClassValue<List<Method>> CHILD_GETTERS = new ClassValue<>()
+    {
+        @Override
+        protected List<Method> computeValue(Class<?> type)
+        {
+            List<Method> getters = new ArrayList<>();
+            for (Map.Entry<Method, Method> entry : AnnotationUtils.findManagedMethods(type).entrySet()) {
+                Method annotatedMethod = entry.getValue();
+                if (isGetter(entry.getKey()) && (AnnotationUtils.isNested(annotatedMethod) || AnnotationUtils.isFlatten(annotatedMethod))) {
+                    getters.add(entry.getKey());
+                }
+            }
+            return List.copyOf(getters);
+        }
+    };
+
+    private final Object target;
+    // by getter name; values that were null or could not be read are absent
+    private final Map<String, ManagedObject> children;
+
+    private ManagedObject(Object target, Map<String, ManagedObject> children)
+    {
+        this.target = target;
+        this.children = children;
+    }
+
+    public static ManagedObject introspect(Object target)
+    {
+        requireNonNull(target, "target is null");
+        List<Method> getters = CHILD_GETTERS.get(target.getClass());
+        if (getters.isEmpty()) {
+            return new ManagedObject(target, Map.of());
+        }
+
+        Map<String, ManagedObject> children = new HashMap<>();
+        for (Method getter : getters) {
+            Object value;
+            try {
+                value = getter.invoke(target);
+            }
+            catch (Exception e) {
+                // todo log me
+                continue;
+            }
+            if (value != null) {
+                children.put(getter.getName(), introspect(value));
+            }
+        }
+        return new ManagedObject(target, children);
+    }
+
+    public Object getTarget()
+    {
+        return target;
+    }
+
+    /**
+     * Returns the value of the nested or flattened attribute with the given getter, or null if the
+     * getter returned null or failed.
+     */
+    public ManagedObject getChild(String getterName)
+    {
+        return children.get(getterName);
+    }
+}
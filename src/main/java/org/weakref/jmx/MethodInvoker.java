@@ -0,0 +1,334 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import javax.management.MBeanException;
+import javax.management.ReflectionException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Invokes a managed method through a {@link MethodHandle} resolved once, when the MBean is built.
+ * The handle is adapted to {@code (Object, Object[])Object}, so calls need neither a varargs array nor
+ * the reflective access checks of {@link Method#invoke}. Exceptions are reported exactly as
+ * {@link ReflectionUtils#invoke} reports them.
+ */
+final class MethodInvoker
+{
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final Object[] NO_PARAMS = new Object[0];
+
+    // null when the method is only reachable through a generated MBeanAdapter
+    private final Method method;
+    private final Signature signature;
+    private final Class<?>[] parameterTypes;
+
+    // null when the method is not accessible to this library; such calls go through reflection
+    private final MethodHandle handle;
+
+    // (Object)long, (Object)double and (Object)boolean views of primitive getters, so reads need not box
+    private final MethodHandle longHandle;
+    private final MethodHandle doubleHandle;
+    private final MethodHandle booleanHandle;
+
+    // set when the call is dispatched through a class generated by AccessorGenerator
+    private final ClassAccessor accessor;
+    private final int accessorIndex;
+
+    // MBeanAdapter calls unbox arguments without widening them
+    private final boolean widenArguments;
+
+    private MethodInvoker(Method method, MethodHandle targetHandle, ClassAccessor accessor, int accessorIndex)
+    {
+        this.method = method;
+        this.signature = new Signature(method);
+        this.parameterTypes = method.getParameterTypes();
+        this.handle = targetHandle == null ? null : toGenericHandle(targetHandle, parameterTypes.length);
+        this.longHandle = toPrimitiveHandle(targetHandle, long.class);
+        this.doubleHandle = toPrimitiveHandle(targetHandle, double.class);
+        this.booleanHandle = toPrimitiveHandle(targetHandle, boolean.class);
+        this.accessor = accessor;
+        this.accessorIndex = accessorIndex;
+        this.widenArguments = false;
+    }
+
+    private MethodInvoker(MBeanAdapter adapter, int index, Signature signature, Class<?>[] parameterTypes)
+    {
+        this.method = null;
+        this.signature = signature;
+        this.parameterTypes = parameterTypes.clone();
+        this.handle = null;
+        this.longHandle = null;
+        this.doubleHandle = null;
+        this.booleanHandle = null;
+        this.accessor = adapter::invoke;
+        this.accessorIndex = index;
+        this.widenArguments = true;
+    }
+
+    public static MethodInvoker of(Method method)
+    {
+        requireNonNull(method, "method is null");
+        return new MethodInvoker(method, toTargetHandle(method), null, -1);
+    }
+
+    static MethodInvoker of(Method method, ClassAccessor accessor, int accessorIndex)
+    {
+        requireNonNull(method, "method is null");
+        requireNonNull(accessor, "accessor is null");
+        return new MethodInvoker(method, null, accessor, accessorIndex);
+    }
+
+    /**
+     * Returns an invoker that calls the method with the given index through a generated adapter.
+     */
+    static MethodInvoker of(MBeanAdapter adapter, int index, Signature signature, Class<?>... parameterTypes)
+    {
+        requireNonNull(adapter, "adapter is null");
+        requireNonNull(signature, "signature is null");
+        requireNonNull(parameterTypes, "parameterTypes is null");
+        return new MethodInvoker(adapter, index, signature, parameterTypes);
+    }
+
+    /**
+     * Returns an invoker for a managed method of {@code targetClass}, dispatched through the class
+     * generated for {@code targetClass} when {@code generated} is set.
+     */
+    public static MethodInvoker forTarget(Class<?> targetClass, Method method, boolean generated)
+    {
+        if (generated) {
+            return AccessorGenerator.invokerFor(targetClass, method);
+        }
+        return of(method);
+    }
+
+    /**
+     * Returns the invoked method, or null when the invoker dispatches through a generated adapter.
+     */
+    public Method getMethod()
+    {
+        return method;
+    }
+
+    public Signature getSignature()
+    {
+        return signature;
+    }
+
+    public Class<?>[] getParameterTypes()
+    {
+        return parameterTypes.clone();
+    }
+
+    boolean isGenerated()
+    {
+        return accessor != null;
+    }
+
+    public Object invoke(Object target)
+            throws MBeanException, ReflectionException
+    {
+        return invoke(target, NO_PARAMS);
+    }
+
+    public Object invoke(Object target, Object[] params)
+            throws MBeanException, ReflectionException
+    {
+        if (handle == null && accessor == null) {
+            return ReflectionUtils.invoke(target, method, params);
+        }
+
+        requireNonNull(target, "target is null");
+        requireNonNull(params, "params is null");
+        checkArguments(params);
+        if (widenArguments) {
+            params = widenArguments(params);
+        }
+
+        try {
+            if (accessor != null) {
+                return accessor.invoke(accessorIndex, target, params);
+            }
+            return (Object) handle.invokeExact(target, params);
+        }
+        catch (Throwable e) {
+            // arguments have been checked, so anything thrown here comes from the method itself
+            throw ReflectionUtils.propagateTargetException(signature, e);
+        }
+    }
+
+    /**
+     * Calls a getter for a bulk read. Any failure is reported as {@link BulkReadableAttribute#FAILED}
+     * without wrapping the exception thrown by the getter.
+     */
+    Object invokeOrFailed(Object target)
+    {
+        try {
+            if (accessor != null) {
+                return accessor.invoke(accessorIndex, target, NO_PARAMS);
+            }
+            if (handle != null) {
+                return (Object) handle.invokeExact(target, NO_PARAMS);
+            }
+            return method.invoke(target, NO_PARAMS);
+        }
+        catch (Throwable e) {
+            return BulkReadableAttribute.FAILED;
+        }
+    }
+
+    private void checkArguments(Object[] params)
+    {
+        if (params.length != parameterTypes.length) {
+            throw ReflectionUtils.invalidArguments(signature, "wrong number of arguments");
+        }
+        for (int i = 0; i < params.length; i++) {
+            if (!ReflectionUtils.isValidArgument(params[i], parameterTypes[i])) {
+                throw ReflectionUtils.invalidArguments(signature, "argument type mismatch");
+            }
+        }
+    }
+
+    private Object[] widenArguments(Object[] params)
+    {
+        Object[] widened = params;
+        for (int i = 0; i < params.length; i++) {
+            Object value = ReflectionUtils.widenArgument(params[i], parameterTypes[i]);
+            if (value != params[i]) {
+                if (widened == params) {
+                    widened = params.clone();
+                }
+                widened[i] = value;
+            }
+        }
+        return widened;
+    }
+
+    /**
+     * Calls a getter returning {@code long}, {@code int}, {@code short}, {@code byte} or {@code char}
+     * without boxing the result when the method is accessible through a method handle.
+     */
+    public long invokeLong(Object target)
+            throws MBeanException, ReflectionException
+    {
+        if (longHandle == null) {
+            Object value = invoke(target);
+            if (value instanceof Character character) {
+                return character;
+            }
+            return ((Number) value).longValue();
+        }
+
+        requireNonNull(target, "target is null");
+        try {
+            return (long) longHandle.invokeExact(target);
+        }
+        catch (Throwable e) {
+            throw ReflectionUtils.propagateTargetException(signature, e);
+        }
+    }
+
+    /**
+     * Calls a getter returning a numeric primitive or {@code char} without boxing the result when
+     * the method is accessible through a method handle.
+     */
+    public double invokeDouble(Object target)
+            throws MBeanException, ReflectionException
+    {
+        if (doubleHandle == null) {
+            Object value = invoke(target);
+            if (value instanceof Character character) {
+                return character;
+            }
+            return ((Number) value).doubleValue();
+        }
+
+        requireNonNull(target, "target is null");
+        try {
+            return (double) doubleHandle.invokeExact(target);
+        }
+        catch (Throwable e) {
+            throw ReflectionUtils.propagateTargetException(signature, e);
+        }
+    }
+
+    /**
+     * Calls a getter returning {@code boolean} without boxing the result when the method is
+     * accessible through a method handle.
+     */
+    public boolean invokeBoolean(Object target)
+            throws MBeanException, ReflectionException
+    {
+        if (booleanHandle == null) {
+            return (Boolean) invoke(target);
+        }
+
+        requireNonNull(target, "target is null");
+        try {
+            return (boolean) booleanHandle.invokeExact(target);
+        }
+        catch (Throwable e) {
+            throw ReflectionUtils.propagateTargetException(signature, e);
+        }
+    }
+
+    // returns a handle taking the target, ignored for static methods, followed by the method parameters
+    private static MethodHandle toTargetHandle(Method method)
+    {
+        MethodHandle handle;
+        try {
+            handle = LOOKUP.unreflect(method).asFixedArity();
+        }
+        catch (IllegalAccessException e) {
+            return null;
+        }
+
+        if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        return handle;
+    }
+
+    private static MethodHandle toGenericHandle(MethodHandle targetHandle, int parameterCount)
+    {
+        return targetHandle.asType(MethodType.genericMethodType(parameterCount + 1))
+                .asSpreader(Object[].class, parameterCount);
+    }
+
+    private static MethodHandle toPrimitiveHandle(MethodHandle targetHandle, Class<?> primitiveType)
+    {
+        if (targetHandle == null || targetHandle.type().parameterCount() != 1) {
+            return null;
+        }
+
+        Class<?> returnType = targetHandle.type().returnType();
+        if (!returnType.isPrimitive() || returnType == void.class) {
+            return null;
+        }
+        // only widening conversions; boolean converts to nothing else
+        if ((returnType == boolean.class) != (primitiveType == boolean.class)) {
+            return null;
+        }
+        if (primitiveType == long.class && (returnType == float.class || returnType == double.class)) {
+            return null;
+        }
+        return targetHandle.asType(MethodType.methodType(primitiveType, Object.class));
+    }
+}
@@ -21,7 +21,7 @@ import javax.management.MBeanAttributeInfo;
 import javax.management.MBeanException;
 import javax.management.ReflectionException;
 
-class NestedMBeanAttribute implements MBeanAttribute
+class NestedMBeanAttribute implements MBeanAttribute, BulkReadableAttribute
 {
     private final MBeanAttribute delegate;
     private final MBeanAttributeInfo info;
@@ -59,6 +59,33 @@ class NestedMBeanAttribute implements MBeanAttribute
         return delegate.getValue();
     }
 
+    @Override
+    public Object getValueOrFailed()
+    {
+        return BulkReadableAttribute.getValueOrFailed(delegate);
+    }
+
+    @Override
+    public long getLong()
+            throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        return delegate.getLong();
+    }
+
+    @Override
+    public double getDouble()
+            throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        return delegate.getDouble();
+    }
+
+    @Override
+    public boolean getBoolean()
+            throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        return delegate.getBoolean();
+    }
+
     @Override
     public void setValue(Object value)
             throws AttributeNotFoundException, InvalidAttributeValueException, MBeanException, ReflectionException
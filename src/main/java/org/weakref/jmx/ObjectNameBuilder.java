@@ -1,9 +1,9 @@
 package org.weakref.jmx;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
 import java.util.regex.Pattern;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -13,29 +13,24 @@ import static org.weakref.jmx.ObjectNames.quoteValueIfNecessary;
 public class ObjectNameBuilder
 {
     private static final Pattern BAD_PACKAGENAME_PATTERN = Pattern.compile("[:?*]");
-    private final StringBuilder objectName;
-    private final Set<String> properties = new HashSet<>();
+    private final String domain;
+    // names and quoted values, alternating; names usually have a handful of properties
+    private final List<String> properties = new ArrayList<>(4);
 
     public ObjectNameBuilder(String domain)
     {
         requireNonNull(domain, "domain is null");
         checkArgument(!BAD_PACKAGENAME_PATTERN.matcher(domain).find(), "domain is invalid");
-        this.objectName = new StringBuilder(domain);
+        this.domain = domain;
     }
 
     public ObjectNameBuilder withProperty(String name, String value)
     {
-        checkArgument(!properties.contains(name), "Duplicate property name: %s", name);
-
-        if (properties.isEmpty()) {
-            objectName.append(":");
-        }
-        else {
-            objectName.append(",");
+        for (int i = 0; i < properties.size(); i += 2) {
+            checkArgument(!properties.get(i).equals(name), "Duplicate property name: %s", name);
         }
-
-        objectName.append(name).append('=').append(quoteValueIfNecessary(value));
         properties.add(name);
+        properties.add(quoteValueIfNecessary(value));
         return this;
     }
 
@@ -49,6 +44,17 @@ public class ObjectNameBuilder
 
     public String build()
     {
+        int length = domain.length() + 1;
+        for (String part : properties) {
+            length += part.length() + 1;
+        }
+        StringBuilder objectName = new StringBuilder(length).append(domain);
+        for (int i = 0; i < properties.size(); i += 2) {
+            objectName.append(i == 0 ? ':' : ',')
+                    .append(properties.get(i))
+                    .append('=')
+                    .append(properties.get(i + 1));
+        }
         return objectName.toString();
     }
 }
@@ -0,0 +1,101 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
+
+import javax.management.ObjectName;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+/**
+ * The names an exporter generated, by the type and properties they were generated from, so
+ * exporting or unexporting by type and name is a lookup instead of a call to the
+ * {@link ObjectNameGenerator} and a parse. The cache keeps a bounded number of names for each type;
+ * evicted names are generated again.
+ * <p>
+ * Types are weakly referenced and the cached names do not refer to them, so the cache does not
+ * keep classes, or their class loaders, from being unloaded.
+ * <p>
+ * Names are not interned across keys: equal names generated with their properties in a different
+ * order keep their own string form.
+ */
+final class ObjectNameCache
+{
+    private final long maximumSizePerType;
+    // weak keys compare by identity, which is how classes compare anyway
+    private final Cache<Class<?>, Cache<Key, ObjectName>> names;
+
+    public ObjectNameCache(long maximumSizePerType)
+    {
+        this.maximumSizePerType = maximumSizePerType;
+        this.names = maximumSizePerType == 0 ? null : CacheBuilder.newBuilder()
+                .weakKeys()
+                .build();
+    }
+
+    public ObjectName nameOf(Class<?> type, Supplier<ObjectName> generator)
+    {
+        return nameOf(type, new Key(null, null), generator);
+    }
+
+    public ObjectName nameOf(Class<?> type, String name, Supplier<ObjectName> generator)
+    {
+        return nameOf(type, new Key(name, null), generator);
+    }
+
+    public ObjectName nameOf(Class<?> type, Map<String, String> properties, Supplier<ObjectName> generator)
+    {
+        // property order is part of the generated name, so the key keeps it
+        List<Map.Entry<String, String>> entries = properties.entrySet().stream()
+                .map(entry -> Maps.immutableEntry(entry.getKey(), entry.getValue()))
+                .collect(toImmutableList());
+        return nameOf(type, new Key(null, entries), generator);
+    }
+
+    private ObjectName nameOf(Class<?> type, Key key, Supplier<ObjectName> generator)
+    {
+        if (names == null) {
+            return generator.get();
+        }
+        Cache<Key, ObjectName> typeNames;
+        try {
+            typeNames = names.get(type, () -> CacheBuilder.newBuilder()
+                    .maximumSize(maximumSizePerType)
+                    .build());
+        }
+        catch (ExecutionException e) {
+            // creating a cache does not throw
+            throw new AssertionError(e.getCause());
+        }
+        ObjectName objectName = typeNames.getIfPresent(key);
+        if (objectName == null) {
+            objectName = generator.get();
+            typeNames.put(key, objectName);
+        }
+        return objectName;
+    }
+
+    // properties is only set for names generated from a property map, so the three forms never collide
+    private record Key(String name, List<Map.Entry<String, String>> properties)
+    {
+    }
+}
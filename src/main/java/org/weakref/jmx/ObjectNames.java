@@ -63,26 +63,26 @@ public final class ObjectNames
 
     static String quoteValueIfNecessary(String name)
     {
-        boolean needQuote = false;
-        StringBuilder builder = new StringBuilder("\"");
+        // most values need no quoting, so scan before copying anything
+        int first = 0;
+        while (first < name.length() && !needsQuote(name.charAt(first))) {
+            first++;
+        }
+        if (first == name.length()) {
+            return name;
+        }
+
+        StringBuilder builder = new StringBuilder(name.length() + 8).append('\"');
         for (int i = 0; i < name.length(); ++i) {
             char c = name.charAt(i);
             switch (c) {
-                case ':':
-                case ',':
-                case '=':
-                    needQuote = true;
-                    builder.append(c);
-                    break;
                 case '\"':
                 case '?':
                 case '*':
-                    needQuote = true;
                     builder.append('\\');
                     builder.append(c);
                     break;
                 case '\n':
-                    needQuote = true;
                     builder.append("\\n");
                     break;
                 case '\\':
@@ -92,11 +92,15 @@ public final class ObjectNames
                     builder.append(c);
             }
         }
+        return builder.append('\"').toString();
+    }
 
-        if (needQuote) {
-            name = builder.append('\"').toString();
-        }
-        return name;
+    private static boolean needsQuote(char c)
+    {
+        return switch (c) {
+            case ':', ',', '=', '\"', '?', '*', '\n' -> true;
+            default -> false;
+        };
     }
 
     public static ObjectNameBuilder builder(Class<?> clazz)
@@ -0,0 +1,154 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operations of an MBean indexed by name and then by parameter types, so looking up the target of
+ * {@link MBean#invoke} compares the requested signature in place instead of building a key for it.
+ * The most recently matched operation is checked first.
+ */
+final class OperationIndex
+{
+    private final MBeanOperation[] operations;
+    private final Collection<MBeanOperation> operationList;
+
+    // index -> index of the operation in the collection the index was built from
+    private final int[] sources;
+    private final Map<String, Entry[]> entriesByName;
+
+    // benign race: any published entry is fully built and valid
+    private Entry lastMatch;
+
+    public OperationIndex(Collection<MBeanOperation> operations)
+    {
+        // like a map keyed by signature, a later operation replaces an earlier one with the same signature
+        Map<Signature, Integer> bySignature = new LinkedHashMap<>();
+        int source = 0;
+        for (MBeanOperation operation : operations) {
+            bySignature.put(operation.getSignature(), source++);
+        }
+        this.sources = bySignature.values().stream().mapToInt(Integer::intValue).toArray();
+        this.operations = select(List.copyOf(operations), sources);
+        this.operationList = Collections.unmodifiableList(Arrays.asList(this.operations));
+
+        Map<String, List<Entry>> entries = new HashMap<>();
+        int index = 0;
+        for (Signature signature : bySignature.keySet()) {
+            entries.computeIfAbsent(signature.actionName(), name -> new ArrayList<>())
+                    .add(new Entry(signature.actionName(), signature.parameterTypes().toArray(new String[0]), index++));
+        }
+
+        Map<String, Entry[]> entriesByName = new HashMap<>();
+        for (Map.Entry<String, List<Entry>> entry : entries.entrySet()) {
+            entriesByName.put(entry.getKey(), entry.getValue().toArray(new Entry[0]));
+        }
+        this.entriesByName = entriesByName;
+    }
+
+    private OperationIndex(OperationIndex index, MBeanOperation[] operations)
+    {
+        this.operations = operations;
+        this.operationList = Collections.unmodifiableList(Arrays.asList(operations));
+        this.sources = index.sources;
+        this.entriesByName = index.entriesByName;
+    }
+
+    /**
+     * Returns an index of the given operations that shares the lookup structure of this index. The
+     * operations must have the signatures, in the same order, of those this index was built from.
+     */
+    public OperationIndex withOperations(List<MBeanOperation> operations)
+    {
+        MBeanOperation[] selected = select(operations, sources);
+        for (int index = 0; index < selected.length; index++) {
+            if (!selected[index].getSignature().equals(this.operations[index].getSignature())) {
+                throw new IllegalArgumentException("Expected operation " + this.operations[index].getSignature() + " but was " + selected[index].getSignature());
+            }
+        }
+        return new OperationIndex(this, selected);
+    }
+
+    private static MBeanOperation[] select(List<MBeanOperation> operations, int[] sources)
+    {
+        MBeanOperation[] selected = new MBeanOperation[sources.length];
+        for (int index = 0; index < sources.length; index++) {
+            selected[index] = operations.get(sources[index]);
+        }
+        return selected;
+    }
+
+    public Collection<MBeanOperation> getOperations()
+    {
+        return operationList;
+    }
+
+    /**
+     * Returns the operation with the given name and parameter types, or null.
+     */
+    public MBeanOperation get(String name, String[] parameterTypes)
+    {
+        Entry entry = lastMatch;
+        if (entry != null && entry.matches(name, parameterTypes)) {
+            return operations[entry.index];
+        }
+
+        Entry[] candidates = entriesByName.get(name);
+        if (candidates == null) {
+            return null;
+        }
+        for (Entry candidate : candidates) {
+            if (candidate.matches(name, parameterTypes)) {
+                lastMatch = candidate;
+                return operations[candidate.index];
+            }
+        }
+        return null;
+    }
+
+    private static final class Entry
+    {
+        private final String name;
+        private final String[] parameterTypes;
+        private final int index;
+
+        private Entry(String name, String[] parameterTypes, int index)
+        {
+            this.name = name;
+            this.parameterTypes = parameterTypes;
+            this.index = index;
+        }
+
+        private boolean matches(String name, String[] parameterTypes)
+        {
+            if (parameterTypes.length != this.parameterTypes.length || !this.name.equals(name)) {
+                return false;
+            }
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (!this.parameterTypes[i].equals(parameterTypes[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
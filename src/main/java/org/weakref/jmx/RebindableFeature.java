@@ -0,0 +1,49 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import java.util.List;
+
+/**
+ * A feature built for one target that can be recreated for another object of the same class
+ * without introspecting the class again. See {@link MBeanTemplate}.
+ */
+interface RebindableFeature
+{
+    /**
+     * Whether the feature calls methods of {@code target} itself, rather than of an object reached
+     * through it. Features that only report the state of another feature are bound wherever it is.
+     */
+    boolean isBoundTo(Object target);
+
+    /**
+     * Returns the features replacing this one for {@code target}. A feature that only reports the
+     * state of another feature returns none, as it is recreated along with that feature. A null
+     * target gives features that are never used, except to be rebound again.
+     */
+    List<MBeanFeature> rebind(Object target);
+
+    static boolean isBoundTo(MBeanFeature feature, Object target)
+    {
+        return feature instanceof RebindableFeature rebindable && rebindable.isBoundTo(target);
+    }
+
+    /**
+     * Rebinds a feature that is recreated as a single attribute.
+     */
+    static MBeanAttribute rebindAttribute(MBeanAttribute attribute, Object target)
+    {
+        return (MBeanAttribute) ((RebindableFeature) attribute).rebind(target).get(0);
+    }
+}
@@ -16,7 +16,6 @@
 package org.weakref.jmx;
 
 import static java.util.Objects.requireNonNull;
-import static org.weakref.jmx.ReflectionUtils.invoke;
 
 import javax.management.AttributeNotFoundException;
 import javax.management.InvalidAttributeValueException;
@@ -24,22 +23,51 @@ import javax.management.MBeanAttributeInfo;
 import javax.management.MBeanException;
 import javax.management.ReflectionException;
 import java.lang.reflect.Method;
+import java.util.List;
 
-class ReflectionMBeanAttribute implements MBeanAttribute
+class ReflectionMBeanAttribute implements MBeanAttribute, BulkReadableAttribute, RebindableFeature
 {
     private final MBeanAttributeInfo info;
+    // the exported object, or a WeakTarget referring to it
     private final Object target;
     private final String name;
-    private final Method getter;
-    private final Method setter;
+    private final MethodInvoker getter;
+    private final MethodInvoker setter;
+    private final Class<?> setterType;
+    private final boolean readableAsLong;
+    private final boolean readableAsDouble;
+    private final boolean readableAsBoolean;
 
     public ReflectionMBeanAttribute(MBeanAttributeInfo info, Object target, Method getter, Method setter)
+    {
+        this(info, target, getter == null ? null : MethodInvoker.of(getter), setter == null ? null : MethodInvoker.of(setter));
+    }
+
+    public ReflectionMBeanAttribute(MBeanAttributeInfo info, Object target, MethodInvoker getter, MethodInvoker setter)
     {
         this.info = requireNonNull(info, "info is null");
         this.target = requireNonNull(target, "target is null");
         this.name = info.getName();
         this.getter = getter;
         this.setter = setter;
+        this.setterType = setter == null ? null : setter.getParameterTypes()[0];
+        this.readableAsLong = ReflectionUtils.isReadableAs(info.getType(), long.class);
+        this.readableAsDouble = ReflectionUtils.isReadableAs(info.getType(), double.class);
+        this.readableAsBoolean = ReflectionUtils.isReadableAs(info.getType(), boolean.class);
+    }
+
+    private ReflectionMBeanAttribute(ReflectionMBeanAttribute attribute, Object target)
+    {
+        // null for the unbound copy kept by a template
+        this.info = attribute.info;
+        this.target = target;
+        this.name = attribute.name;
+        this.getter = attribute.getter;
+        this.setter = attribute.setter;
+        this.setterType = attribute.setterType;
+        this.readableAsLong = attribute.readableAsLong;
+        this.readableAsDouble = attribute.readableAsDouble;
+        this.readableAsBoolean = attribute.readableAsBoolean;
     }
 
     @Override
@@ -50,7 +78,19 @@ class ReflectionMBeanAttribute implements MBeanAttribute
 
     public Object getTarget()
     {
-        return target;
+        return WeakTarget.resolveOrNull(target);
+    }
+
+    @Override
+    public boolean isBoundTo(Object target)
+    {
+        return this.target == target;
+    }
+
+    @Override
+    public List<MBeanFeature> rebind(Object target)
+    {
+        return List.of(new ReflectionMBeanAttribute(this, target));
     }
 
     @Override
@@ -66,10 +106,55 @@ class ReflectionMBeanAttribute implements MBeanAttribute
         if (getter == null) {
             throw new AttributeNotFoundException(name + " is write-only");
         }
-        Object result = invoke(target, getter);
+        Object result = getter.invoke(WeakTarget.resolve(target));
         return result;
     }
 
+    @Override
+    public Object getValueOrFailed()
+    {
+        Object target = WeakTarget.resolveOrNull(this.target);
+        if (getter == null || target == null) {
+            return FAILED;
+        }
+        return getter.invokeOrFailed(target);
+    }
+
+    @Override
+    public long getLong()
+            throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        checkReadable(readableAsLong, long.class);
+        return getter.invokeLong(WeakTarget.resolve(target));
+    }
+
+    @Override
+    public double getDouble()
+            throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        checkReadable(readableAsDouble, double.class);
+        return getter.invokeDouble(WeakTarget.resolve(target));
+    }
+
+    @Override
+    public boolean getBoolean()
+            throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        checkReadable(readableAsBoolean, boolean.class);
+        return getter.invokeBoolean(WeakTarget.resolve(target));
+    }
+
+    private void checkReadable(boolean readableAs, Class<?> primitiveType)
+            throws AttributeNotFoundException
+    {
+        if (getter == null) {
+            throw new AttributeNotFoundException(name + " is write-only");
+        }
+        if (!readableAs) {
+            throw new UnsupportedOperationException("Attribute " + name + " of type " + info.getType() + " can not be read as " + primitiveType.getName());
+        }
+    }
+
     @Override
     public void setValue(Object value)
             throws AttributeNotFoundException, InvalidAttributeValueException, MBeanException, ReflectionException
@@ -77,9 +162,9 @@ class ReflectionMBeanAttribute implements MBeanAttribute
         if (setter == null) {
             throw new AttributeNotFoundException(name + " is read-only");
         }
-        if (!ReflectionUtils.isAssignable(value, setter.getParameterTypes()[0])) {
+        if (!ReflectionUtils.isAssignable(value, setterType)) {
             throw new InvalidAttributeValueException("Can not assign " + value.getClass() + " to attribute " + name);
         }
-        invoke(target, setter, value);
+        setter.invoke(WeakTarget.resolve(target), new Object[] {value});
     }
 }
\ No newline at end of file
@@ -19,23 +19,39 @@ import javax.management.MBeanException;
 import javax.management.MBeanOperationInfo;
 import javax.management.ReflectionException;
 import java.lang.reflect.Method;
+import java.util.List;
 
 import static java.util.Objects.requireNonNull;
 
-class ReflectionMBeanOperation implements MBeanOperation
+class ReflectionMBeanOperation implements MBeanOperation, RebindableFeature
 {
     private final MBeanOperationInfo info;
+    // the exported object, or a WeakTarget referring to it
     private final Object target;
-    private final Method method;
+    private final MethodInvoker invoker;
     private final Signature signature;
 
     public ReflectionMBeanOperation(MBeanOperationInfo info, Object target, Method method)
+    {
+        this(info, target, MethodInvoker.of(requireNonNull(method, "method is null")));
+    }
+
+    public ReflectionMBeanOperation(MBeanOperationInfo info, Object target, MethodInvoker invoker)
     {
         this.info = requireNonNull(info, "info is null");
         this.target = requireNonNull(target, "target is null");
-        this.method = requireNonNull(method, "method is null");
+        this.invoker = requireNonNull(invoker, "invoker is null");
 
-        this.signature = new Signature(method);
+        this.signature = invoker.getSignature();
+    }
+
+    private ReflectionMBeanOperation(ReflectionMBeanOperation operation, Object target)
+    {
+        // null for the unbound copy kept by a template
+        this.info = operation.info;
+        this.target = target;
+        this.invoker = operation.invoker;
+        this.signature = operation.signature;
     }
 
     @Override
@@ -46,7 +62,19 @@ class ReflectionMBeanOperation implements MBeanOperation
 
     public Object getTarget()
     {
-        return target;
+        return WeakTarget.resolveOrNull(target);
+    }
+
+    @Override
+    public boolean isBoundTo(Object target)
+    {
+        return this.target == target;
+    }
+
+    @Override
+    public List<MBeanFeature> rebind(Object target)
+    {
+        return List.of(new ReflectionMBeanOperation(this, target));
     }
 
     @Override
@@ -57,14 +85,14 @@ class ReflectionMBeanOperation implements MBeanOperation
 
     public Method getMethod()
     {
-        return method;
+        return invoker.getMethod();
     }
 
     @Override
     public Object invoke(Object[] params)
             throws MBeanException, ReflectionException
     {
-        Object result = ReflectionUtils.invoke(target, method, params);
+        Object result = invoker.invoke(WeakTarget.resolve(target), params);
         return result;
     }
 }
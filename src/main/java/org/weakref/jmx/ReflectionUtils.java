@@ -24,6 +24,7 @@ import java.lang.reflect.Method;
 import java.util.Map;
 import java.util.LinkedHashMap;
 import java.util.Collections;
+import java.util.Set;
 
 import static java.util.Objects.requireNonNull;
 
@@ -34,6 +35,9 @@ final class ReflectionUtils
     }
 
     private static final Map<Class<?>, Class<?>> primitiveToWrapper;
+    private static final Map<Class<?>, Class<?>> wrapperToPrimitive;
+    private static final Map<Class<?>, Set<Class<?>>> primitiveWidenings;
+    private static final Map<String, Class<?>> primitiveTypes;
 
     static {
         Map<Class<?>, Class<?>> map = new LinkedHashMap<>();
@@ -46,6 +50,30 @@ final class ReflectionUtils
         map.put(float.class, Float.class);
         map.put(double.class, Double.class);
         primitiveToWrapper = Collections.unmodifiableMap(map);
+
+        Map<Class<?>, Class<?>> inverse = new LinkedHashMap<>();
+        for (Map.Entry<Class<?>, Class<?>> entry : map.entrySet()) {
+            inverse.put(entry.getValue(), entry.getKey());
+        }
+        wrapperToPrimitive = Collections.unmodifiableMap(inverse);
+
+        // JLS 5.1.2 widening primitive conversions
+        Map<Class<?>, Set<Class<?>>> widenings = new LinkedHashMap<>();
+        widenings.put(boolean.class, Set.of());
+        widenings.put(char.class, Set.of(int.class, long.class, float.class, double.class));
+        widenings.put(byte.class, Set.of(short.class, int.class, long.class, float.class, double.class));
+        widenings.put(short.class, Set.of(int.class, long.class, float.class, double.class));
+        widenings.put(int.class, Set.of(long.class, float.class, double.class));
+        widenings.put(long.class, Set.of(float.class, double.class));
+        widenings.put(float.class, Set.of(double.class));
+        widenings.put(double.class, Set.of());
+        primitiveWidenings = Collections.unmodifiableMap(widenings);
+
+        Map<String, Class<?>> types = new LinkedHashMap<>();
+        for (Class<?> type : map.keySet()) {
+            types.put(type.getName(), type);
+        }
+        primitiveTypes = Collections.unmodifiableMap(types);
     }
 
     public static Object invoke(Object target, Method method, Object... params)
@@ -59,36 +87,7 @@ final class ReflectionUtils
             return method.invoke(target, params);
         }
         catch (InvocationTargetException e) {
-            // unwrap exception
-            Throwable targetException = e.getTargetException();
-            if (targetException instanceof RuntimeException runtimeException) {
-                throw new MBeanException(
-                        runtimeException,
-                        "RuntimeException occurred while invoking " + toSimpleName(method));
-            }
-            else if (targetException instanceof ReflectionException exception) {
-                // allow ReflectionException to passthrough
-                throw exception;
-            }
-            else if (targetException instanceof MBeanException exception) {
-                // allow MBeanException to passthrough
-                throw exception;
-            }
-            else if (targetException instanceof Exception exception) {
-                throw new MBeanException(
-                        exception,
-                        "Exception occurred while invoking " + toSimpleName(method));
-            }
-            else if (targetException instanceof Error error) {
-                throw new RuntimeErrorException(
-                        error,
-                        "Error occurred while invoking " + toSimpleName(method));
-            }
-            else {
-                throw new RuntimeErrorException(
-                        new AssertionError(targetException),
-                        "Unexpected throwable occurred while invoking " + toSimpleName(method));
-            }
+            throw propagateTargetException(new Signature(method), e.getTargetException());
         }
         catch (RuntimeException e) {
             throw new RuntimeOperationsException(e, "RuntimeException occurred while invoking " + toSimpleName(method));
@@ -104,6 +103,51 @@ final class ReflectionUtils
         }
     }
 
+    /**
+     * Maps an exception thrown by the managed method itself to the exception reported through JMX.
+     * This method never returns normally; the return type allows callers to write {@code throw propagateTargetException(...)}.
+     */
+    static RuntimeException propagateTargetException(Signature signature, Throwable targetException)
+            throws MBeanException, ReflectionException
+    {
+        if (targetException instanceof RuntimeException runtimeException) {
+            throw new MBeanException(
+                    runtimeException,
+                    "RuntimeException occurred while invoking " + signature);
+        }
+        else if (targetException instanceof ReflectionException exception) {
+            // allow ReflectionException to passthrough
+            throw exception;
+        }
+        else if (targetException instanceof MBeanException exception) {
+            // allow MBeanException to passthrough
+            throw exception;
+        }
+        else if (targetException instanceof Exception exception) {
+            throw new MBeanException(
+                    exception,
+                    "Exception occurred while invoking " + signature);
+        }
+        else if (targetException instanceof Error error) {
+            throw new RuntimeErrorException(
+                    error,
+                    "Error occurred while invoking " + signature);
+        }
+        else {
+            throw new RuntimeErrorException(
+                    new AssertionError(targetException),
+                    "Unexpected throwable occurred while invoking " + signature);
+        }
+    }
+
+    /**
+     * Reports arguments that {@link Method#invoke} would reject with an {@link IllegalArgumentException}.
+     */
+    static RuntimeOperationsException invalidArguments(Signature signature, String message)
+    {
+        return new RuntimeOperationsException(new IllegalArgumentException(message), "RuntimeException occurred while invoking " + signature);
+    }
+
     private static String toSimpleName(Method method)
     {
         return new Signature(method).toString();
@@ -147,6 +191,62 @@ final class ReflectionUtils
         return setter.getParameterCount() == 1;
     }
 
+    /**
+     * Checks an argument using the conversions {@link Method#invoke} applies: unboxing followed
+     * by an optional widening primitive conversion.
+     */
+    public static boolean isValidArgument(Object value, Class<?> type)
+    {
+        if (!type.isPrimitive()) {
+            return value == null || type.isInstance(value);
+        }
+        if (value == null) {
+            return false;
+        }
+
+        Class<?> valueType = wrapperToPrimitive.get(value.getClass());
+        return valueType != null && (valueType == type || primitiveWidenings.get(valueType).contains(type));
+    }
+
+    /**
+     * Boxes a valid argument of a primitive parameter into the wrapper of the parameter type,
+     * applying the widening conversion {@link #isValidArgument} permits.
+     */
+    static Object widenArgument(Object value, Class<?> type)
+    {
+        if (!type.isPrimitive() || primitiveToWrapper.get(type) == value.getClass()) {
+            return value;
+        }
+
+        if (value instanceof Character character) {
+            value = (int) character;
+        }
+        Number number = (Number) value;
+        if (type == short.class) {
+            return number.shortValue();
+        }
+        if (type == int.class) {
+            return number.intValue();
+        }
+        if (type == long.class) {
+            return number.longValue();
+        }
+        if (type == float.class) {
+            return number.floatValue();
+        }
+        return number.doubleValue();
+    }
+
+    /**
+     * Checks whether a value of the named attribute type converts to the primitive type through an
+     * identity or widening primitive conversion.
+     */
+    static boolean isReadableAs(String attributeType, Class<?> primitiveType)
+    {
+        Class<?> type = primitiveTypes.get(attributeType);
+        return type != null && (type == primitiveType || primitiveWidenings.get(type).contains(primitiveType));
+    }
+
     public static boolean isAssignable(Object value, Class<?> type)
     {
         if (type.isPrimitive()) {
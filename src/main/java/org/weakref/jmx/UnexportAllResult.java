@@ -0,0 +1,65 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The outcome of {@link MBeanExporter#unexportAllAndReportMissing(java.time.Duration)}.
+ */
+public final class UnexportAllResult
+{
+    private final Map<String, Exception> errors;
+    private final List<String> unreached;
+
+    UnexportAllResult(Map<String, Exception> errors, List<String> unreached)
+    {
+        this.errors = ImmutableMap.copyOf(requireNonNull(errors, "errors is null"));
+        this.unreached = ImmutableList.copyOf(requireNonNull(unreached, "unreached is null"));
+    }
+
+    /**
+     * Returns the object names that could not be unexported and the corresponding exception.
+     */
+    public Map<String, Exception> getErrors()
+    {
+        return errors;
+    }
+
+    /**
+     * Returns the object names that were not unexported before the timeout elapsed. They are still
+     * exported, unless an unregistration already running at the timeout completed afterwards.
+     */
+    public List<String> getUnreached()
+    {
+        return unreached;
+    }
+
+    public boolean isComplete()
+    {
+        return errors.isEmpty() && unreached.isEmpty();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "errors " + errors.keySet() + ", unreached " + unreached.size();
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.weakref.jmx;
+
+import javax.management.MBeanException;
+
+import java.lang.ref.WeakReference;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A weak reference to an exported object that features are bound to in place of the object, so
+ * its MBean does not keep it reachable. See {@link MBeanExporter#exportWeakly}.
+ */
+final class WeakTarget
+        extends WeakReference<Object>
+{
+    public WeakTarget(Object target)
+    {
+        super(requireNonNull(target, "target is null"));
+    }
+
+    /**
+     * Returns the object a feature is bound to, failing if it is a weak target whose object has
+     * been collected.
+     */
+    public static Object resolve(Object target)
+            throws MBeanException
+    {
+        if (!(target instanceof WeakTarget weakTarget)) {
+            return target;
+        }
+        Object referent = weakTarget.get();
+        if (referent == null) {
+            IllegalStateException exception = new IllegalStateException("Exported object has been garbage collected");
+            throw new MBeanException(exception, exception.getMessage());
+        }
+        return referent;
+    }
+
+    /**
+     * Returns the object a feature is bound to, or null if it is a weak target whose object has
+     * been collected.
+     */
+    public static Object resolveOrNull(Object target)
+    {
+        if (target instanceof WeakTarget weakTarget) {
+            return weakTarget.get();
+        }
+        return target;
+    }
+}
@@ -21,6 +21,7 @@ import com.google.inject.Key;
 import com.google.inject.Scopes;
 import com.google.inject.TypeLiteral;
 import org.weakref.jmx.MBeanExporter;
+import org.weakref.jmx.MBeanExporterConfig;
 import org.weakref.jmx.ObjectNameGenerator;
 
 import static com.google.inject.multibindings.Multibinder.newSetBinder;
@@ -40,6 +41,7 @@ public class MBeanModule
         bind(MBeanExporter.class).in(Scopes.SINGLETON);
 
         newOptionalBinder(binder(), ObjectNameGenerator.class);
+        newOptionalBinder(binder(), MBeanExporterConfig.class);
         newSetBinder(binder(), new TypeLiteral<SetMapping<?>>() {});
         newSetBinder(binder(), new TypeLiteral<MapMapping<?, ?>>() {});
 
@@ -18,9 +18,9 @@ import javax.management.QueryExp;
 import javax.management.ReflectionException;
 import javax.management.loading.ClassLoaderRepository;
 import java.io.ObjectInputStream;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
@@ -31,7 +31,7 @@ import static java.util.stream.Collectors.toMap;
 public class TestingMBeanServer
         implements MBeanServer
 {
-    private final Map<ObjectName, DynamicMBean> mbeans = new HashMap<>();
+    private final Map<ObjectName, DynamicMBean> mbeans = new ConcurrentHashMap<>();
 
     @Override
     public ObjectInstance registerMBean(Object object, ObjectName name)
@@ -46,12 +46,10 @@ public class TestingMBeanServer
             throw new UnsupportedOperationException("Only DynamicMBeans supported at this time");
         }
 
-        if (mbeans.containsKey(name)) {
+        if (mbeans.putIfAbsent(name, mbean) != null) {
             throw new InstanceAlreadyExistsException(format("MBean already registered: %s", name));
         }
 
-        mbeans.put(name, mbean);
-
         return new ObjectInstance(name, mbean.getMBeanInfo().getClassName());
     }
 
@@ -0,0 +1,289 @@
+package org.weakref.jmx;
+
+import org.testng.annotations.Test;
+import org.weakref.jmx.testing.TestingMBeanServer;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.ObjectInstance;
+import javax.management.ObjectName;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import static org.weakref.jmx.Util.getUniqueObjectName;
+
+public class TestAsyncMBeanExporter
+{
+    @Test
+    public void testExportAndUnexport()
+            throws Exception
+    {
+        TestingMBeanServer server = new TestingMBeanServer();
+        AsyncMBeanExporter exporter = new AsyncMBeanExporter(new MBeanExporter(server));
+        try {
+            MBeanExport export = exporter.export(getUniqueObjectName(), new SimpleObject());
+            exporter.flush().get(10, TimeUnit.SECONDS);
+            assertTrue(server.isRegistered(export.getObjectName()));
+
+            export.unexport();
+            exporter.flush().get(10, TimeUnit.SECONDS);
+            assertFalse(server.isRegistered(export.getObjectName()));
+            assertEquals(exporter.getAppliedRequests(), 2);
+            assertEquals(exporter.getQueueDepth(), 0);
+        }
+        finally {
+            exporter.close();
+        }
+    }
+
+    @Test
+    public void testQueuedExportIsCancelledByUnexport()
+            throws Exception
+    {
+        CountDownLatch registering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Set<ObjectName> registered = ConcurrentHashMap.newKeySet();
+        ObjectName slowName = getUniqueObjectName();
+        TestingMBeanServer server = new TestingMBeanServer()
+        {
+            @Override
+            public ObjectInstance registerMBean(Object object, ObjectName name)
+                    throws InstanceAlreadyExistsException
+            {
+                registered.add(name);
+                if (name.equals(slowName)) {
+                    registering.countDown();
+                    try {
+                        release.await();
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.registerMBean(object, name);
+            }
+        };
+        AsyncMBeanExporter exporter = new AsyncMBeanExporter(new MBeanExporter(server));
+        try {
+            exporter.export(slowName, new SimpleObject());
+            assertTrue(registering.await(10, TimeUnit.SECONDS));
+
+            // queued behind the slow registration, so both land in the next batch
+            ObjectName name = getUniqueObjectName();
+            AsyncMBeanExporter.QueuedExport cancelled = exporter.export(name, new SimpleObject());
+            CompletableFuture<Void> unexported = exporter.unexport(name);
+            assertEquals(exporter.getQueueDepth(), 2);
+            TimeUnit.MILLISECONDS.sleep(5);
+            assertTrue(exporter.getQueueLagMillis() > 0);
+
+            release.countDown();
+            exporter.flush().get(10, TimeUnit.SECONDS);
+            assertFalse(registered.contains(name));
+            assertTrue(server.isRegistered(slowName));
+            assertEquals(exporter.getCancelledRequests(), 1);
+            assertTrue(cancelled.getExported().isCancelled());
+            // the unexport is still applied, and finding nothing to remove is not a failure
+            assertTrue(unexported.isDone() && !unexported.isCompletedExceptionally());
+            assertEquals(exporter.getAppliedRequests(), 2);
+            assertEquals(exporter.getFailedRequests(), 0);
+        }
+        finally {
+            release.countDown();
+            exporter.close();
+        }
+    }
+
+    @Test
+    public void testFailedRequestsAreReported()
+            throws Exception
+    {
+        AsyncMBeanExporter exporter = new AsyncMBeanExporter(new MBeanExporter(new TestingMBeanServer()));
+        try {
+            CompletableFuture<Void> unexported = exporter.unexport(getUniqueObjectName());
+            exporter.flush().get(10, TimeUnit.SECONDS);
+            assertEquals(exporter.getFailedRequests(), 1);
+            try {
+                unexported.get(10, TimeUnit.SECONDS);
+                fail("expected ExecutionException");
+            }
+            catch (ExecutionException e) {
+                assertEquals(((JmxException) e.getCause()).getReason(), JmxException.Reason.INSTANCE_NOT_FOUND);
+            }
+        }
+        finally {
+            exporter.close();
+        }
+    }
+
+    @Test
+    public void testRepeatedExportsAreAppliedInOrder()
+            throws Exception
+    {
+        CountDownLatch registering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ObjectName slowName = getUniqueObjectName();
+        TestingMBeanServer server = blockingServer(slowName, registering, release);
+        AsyncMBeanExporter exporter = new AsyncMBeanExporter(new MBeanExporter(server));
+        try {
+            exporter.export(slowName, new SimpleObject());
+            assertTrue(registering.await(10, TimeUnit.SECONDS));
+
+            // applied in order, the second export fails on the taken name and the unexport removes the first
+            ObjectName name = getUniqueObjectName();
+            AsyncMBeanExporter.QueuedExport first = exporter.export(name, new SimpleObject());
+            AsyncMBeanExporter.QueuedExport second = exporter.export(name, new SimpleObject());
+            CompletableFuture<Void> unexported = exporter.unexport(name);
+
+            release.countDown();
+            exporter.flush().get(10, TimeUnit.SECONDS);
+            assertFalse(server.isRegistered(name));
+            assertTrue(first.getExported().isDone() && !first.getExported().isCompletedExceptionally());
+            assertTrue(second.getExported().isCompletedExceptionally());
+            assertTrue(unexported.isDone() && !unexported.isCompletedExceptionally());
+            assertEquals(exporter.getCancelledRequests(), 0);
+        }
+        finally {
+            release.countDown();
+            exporter.close();
+        }
+    }
+
+    @Test
+    public void testCancelledExportStillUnexportsEarlierExport()
+            throws Exception
+    {
+        CountDownLatch registering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ObjectName slowName = getUniqueObjectName();
+        TestingMBeanServer server = blockingServer(slowName, registering, release);
+        AsyncMBeanExporter exporter = new AsyncMBeanExporter(new MBeanExporter(server));
+        try {
+            ObjectName name = getUniqueObjectName();
+            exporter.export(name, new SimpleObject()).getExported().get(10, TimeUnit.SECONDS);
+            exporter.export(slowName, new SimpleObject());
+            assertTrue(registering.await(10, TimeUnit.SECONDS));
+
+            // applied in order, the export would fail on the taken name and the unexport remove the earlier export
+            AsyncMBeanExporter.QueuedExport cancelled = exporter.export(name, new SimpleObject());
+            CompletableFuture<Void> unexported = exporter.unexport(name);
+
+            release.countDown();
+            exporter.flush().get(10, TimeUnit.SECONDS);
+            assertFalse(server.isRegistered(name));
+            assertTrue(cancelled.getExported().isCancelled());
+            assertTrue(unexported.isDone() && !unexported.isCompletedExceptionally());
+            assertEquals(exporter.getCancelledRequests(), 1);
+        }
+        finally {
+            release.countDown();
+            exporter.close();
+        }
+    }
+
+    @Test
+    public void testErrorFailsOnlyItsRequest()
+            throws Exception
+    {
+        ObjectName brokenName = getUniqueObjectName();
+        TestingMBeanServer server = new TestingMBeanServer()
+        {
+            @Override
+            public ObjectInstance registerMBean(Object object, ObjectName name)
+                    throws InstanceAlreadyExistsException
+            {
+                if (name.equals(brokenName)) {
+                    throw new NoClassDefFoundError("broken");
+                }
+                return super.registerMBean(object, name);
+            }
+        };
+        AsyncMBeanExporter exporter = new AsyncMBeanExporter(new MBeanExporter(server));
+        try {
+            AsyncMBeanExporter.QueuedExport broken = exporter.export(brokenName, new SimpleObject());
+            try {
+                broken.getExported().get(10, TimeUnit.SECONDS);
+                fail("expected ExecutionException");
+            }
+            catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof NoClassDefFoundError);
+            }
+
+            AsyncMBeanExporter.QueuedExport later = exporter.export(getUniqueObjectName(), new SimpleObject());
+            later.getExported().get(10, TimeUnit.SECONDS);
+            assertTrue(server.isRegistered(later.getObjectName()));
+            assertEquals(exporter.getFailedRequests(), 1);
+        }
+        finally {
+            exporter.close();
+        }
+    }
+
+    @Test
+    public void testCloseAppliesEveryAcceptedRequest()
+            throws Exception
+    {
+        AsyncMBeanExporter exporter = new AsyncMBeanExporter(new MBeanExporter(new TestingMBeanServer()));
+        List<CompletableFuture<Void>> accepted = new CopyOnWriteArrayList<>();
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            for (int i = 0; i < 4; i++) {
+                callers.execute(() -> {
+                    try {
+                        start.await();
+                        while (true) {
+                            accepted.add(exporter.export(getUniqueObjectName(), new SimpleObject()).getExported());
+                        }
+                    }
+                    catch (IllegalStateException | InterruptedException e) {
+                        // closed
+                    }
+                });
+            }
+            start.countDown();
+            TimeUnit.MILLISECONDS.sleep(20);
+            exporter.close();
+        }
+        finally {
+            callers.shutdown();
+            assertTrue(callers.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        for (CompletableFuture<Void> future : accepted) {
+            assertTrue(future.isDone());
+        }
+    }
+
+    private static TestingMBeanServer blockingServer(ObjectName slowName, CountDownLatch registering, CountDownLatch release)
+    {
+        return new TestingMBeanServer()
+        {
+            @Override
+            public ObjectInstance registerMBean(Object object, ObjectName name)
+                    throws InstanceAlreadyExistsException
+            {
+                if (name.equals(slowName)) {
+                    registering.countDown();
+                    try {
+                        release.await();
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.registerMBean(object, name);
+            }
+        };
+    }
+}
@@ -0,0 +1,126 @@
+package org.weakref.jmx;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.weakref.jmx.testing.TestingMBeanServer;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.MBeanException;
+import javax.management.ObjectName;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+public class TestAttributeFailures
+{
+    @DataProvider(name = "configs")
+    public Object[][] configs()
+    {
+        return new Object[][] {
+                {new MBeanExporterConfig()},
+                {new MBeanExporterConfig().setAccessorGenerationEnabled(true)},
+        };
+    }
+
+    @Test(dataProvider = "configs")
+    public void testBulkReadSkipsFailures(MBeanExporterConfig config)
+    {
+        MBean mbean = MBeanBuilder.from(new Failing(), config).build();
+
+        AttributeList values = mbean.getAttributes(new String[] {"Broken", "Value", "WriteOnly", "Missing", "Child.Broken", "Child.Value"});
+        assertEquals(values.asList(), List.of(new Attribute("Value", 1), new Attribute("Child.Value", 1)));
+
+        mbean.getAttributes(new String[] {"Broken", "Value"});
+        assertEquals(mbean.getAttributeFailures(), Map.of("Broken", 2L, "Child.Broken", 1L));
+        assertEquals(mbean.getAttributeFailures(mbean.getAttributeOrdinal("Value")), 0);
+    }
+
+    @Test(dataProvider = "configs")
+    public void testSingleReadCountsFailures(MBeanExporterConfig config)
+            throws Exception
+    {
+        MBean mbean = MBeanBuilder.from(new Failing(), config).build();
+
+        try {
+            mbean.getAttribute("Broken");
+            fail("expected MBeanException");
+        }
+        catch (MBeanException e) {
+            assertEquals(e.getCause().getMessage(), "broken");
+        }
+        assertEquals(mbean.getAttributeFailures(mbean.getAttributeOrdinal("Broken")), 1);
+        assertEquals(mbean.getAttribute("Value"), 1);
+        assertEquals(mbean.getAttributeFailures(), Map.of("Broken", 1L));
+    }
+
+    @Test
+    public void testExporterReportsFailures()
+            throws Exception
+    {
+        TestingMBeanServer server = new TestingMBeanServer();
+        MBeanExporter exporter = new MBeanExporter(server, Optional.empty());
+        ObjectName name = new ObjectName("test:name=Failing");
+        exporter.export(name, new Failing());
+
+        server.getAttributes(name, new String[] {"Broken", "Value"});
+        assertEquals(exporter.getAttributeFailures(name), Map.of("Broken", 1L));
+
+        exporter.unexport(name);
+        try {
+            exporter.getAttributeFailures(name);
+            fail("expected JmxException");
+        }
+        catch (JmxException e) {
+            assertEquals(e.getReason(), JmxException.Reason.INSTANCE_NOT_FOUND);
+        }
+    }
+
+    public static class Failing
+    {
+        private final Child child = new Child();
+
+        @Managed
+        public int getBroken()
+        {
+            throw new IllegalStateException("broken");
+        }
+
+        @Managed
+        public int getValue()
+        {
+            return 1;
+        }
+
+        @Managed
+        public void setWriteOnly(int value)
+        {
+        }
+
+        @Nested
+        public Child getChild()
+        {
+            return child;
+        }
+    }
+
+    public static class Child
+    {
+        @Managed
+        public String getBroken()
+                throws Exception
+        {
+            throw new Exception("broken");
+        }
+
+        @Managed
+        public int getValue()
+        {
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.weakref.jmx;
+
+import org.testng.annotations.Test;
+
+import javax.management.AttributeNotFoundException;
+import javax.management.MBeanAttributeInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+public class TestAttributeLookup
+{
+    @Test
+    public void testLookupByNameAndOrdinal()
+            throws Exception
+    {
+        List<MBeanAttribute> attributes = new ArrayList<>();
+        for (int i = 500; i > 0; i--) {
+            attributes.add(new ConstantAttribute("Attribute" + i, i));
+        }
+        MBean mbean = new MBean("Test", "test", attributes, List.of());
+
+        for (int i = 1; i <= 500; i++) {
+            String name = "Attribute" + i;
+            assertEquals(mbean.getAttribute(name), i);
+
+            int ordinal = mbean.getAttributeOrdinal(name);
+            assertEquals(mbean.getAttribute(ordinal), i);
+            assertEquals(mbean.getAttributes().get(ordinal).getName(), name);
+        }
+
+        assertEquals(mbean.getAttributeOrdinal("Attribute0"), -1);
+        assertEquals(mbean.getAttributeOrdinal(""), -1);
+        assertNotFound(mbean, "Attribute501");
+        assertOrdinalNotFound(mbean, -1);
+        assertOrdinalNotFound(mbean, 500);
+    }
+
+    @Test
+    public void testOrdering()
+    {
+        List<MBeanAttribute> attributes = List.of(
+                new ConstantAttribute("B", 1),
+                new ConstantAttribute("C", 2),
+                new ConstantAttribute("A", 3));
+        MBean mbean = new MBean("Test", "test", attributes, List.of());
+
+        // MBeanInfo keeps declaration order, ordinals follow name order
+        List<String> infoNames = new ArrayList<>();
+        for (MBeanAttributeInfo info : mbean.getMBeanInfo().getAttributes()) {
+            infoNames.add(info.getName());
+        }
+        assertEquals(infoNames, List.of("B", "C", "A"));
+
+        List<String> names = new ArrayList<>();
+        for (MBeanAttribute attribute : mbean.getAttributes()) {
+            names.add(attribute.getName());
+        }
+        assertEquals(names, List.of("A", "B", "C"));
+        assertEquals(mbean.getAttributeOrdinal("A"), 0);
+        assertEquals(mbean.getAttributeOrdinal("C"), 2);
+    }
+
+    @Test
+    public void testDuplicateNames()
+            throws Exception
+    {
+        MBeanAttribute replacement = new ConstantAttribute("A", 2);
+        MBean mbean = new MBean("Test", "test", List.of(new ConstantAttribute("A", 1), replacement), List.of());
+
+        assertEquals(mbean.getAttributes().size(), 1);
+        assertSame(mbean.getAttributes().get(0), replacement);
+        assertEquals(mbean.getAttribute("A"), 2);
+    }
+
+    @Test
+    public void testEmpty()
+            throws Exception
+    {
+        MBean mbean = new MBean("Test", "test", List.of(), List.of());
+        assertEquals(mbean.getAttributeOrdinal("A"), -1);
+        assertNotFound(mbean, "A");
+        assertOrdinalNotFound(mbean, 0);
+    }
+
+    private static void assertNotFound(MBean mbean, String name)
+            throws Exception
+    {
+        try {
+            mbean.getAttribute(name);
+            fail("expected AttributeNotFoundException");
+        }
+        catch (AttributeNotFoundException expected) {
+        }
+    }
+
+    private static void assertOrdinalNotFound(MBean mbean, int ordinal)
+            throws Exception
+    {
+        try {
+            mbean.getAttribute(ordinal);
+            fail("expected AttributeNotFoundException");
+        }
+        catch (AttributeNotFoundException expected) {
+        }
+    }
+
+    private static class ConstantAttribute
+            implements MBeanAttribute
+    {
+        private final String name;
+        private final int value;
+
+        private ConstantAttribute(String name, int value)
+        {
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        public MBeanAttributeInfo getInfo()
+        {
+            return new MBeanAttributeInfo(name, "int", name, true, false, false);
+        }
+
+        @Override
+        public String getName()
+        {
+            return name;
+        }
+
+        @Override
+        public Object getValue()
+        {
+            return value;
+        }
+
+        @Override
+        public void setValue(Object value)
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
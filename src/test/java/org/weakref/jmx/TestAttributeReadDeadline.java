@@ -0,0 +1,136 @@
+package org.weakref.jmx;
+
+import org.testng.annotations.Test;
+import org.weakref.jmx.testing.TestingMBeanServer;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.ObjectName;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestAttributeReadDeadline
+{
+    private static final String[] NAMES = {"Fast", "Slow", "Broken"};
+
+    @Test
+    public void testStragglersAreLeftOut()
+    {
+        Blocking object = new Blocking();
+        MBean mbean = MBeanBuilder.from(object, config(false)).build();
+        try {
+            AttributeList values = mbean.getAttributes(NAMES);
+            assertEquals(values.asList(), List.of(new Attribute("Fast", 1)));
+            assertEquals(mbean.getAttributeTimeouts(), Map.of("Slow", 1L));
+            assertEquals(mbean.getAttributeFailures(), Map.of("Broken", 1L));
+
+            // the blocked read is waited for again instead of being started again
+            mbean.getAttributes(NAMES);
+            assertEquals(object.slowCalls.get(), 1);
+            assertEquals(mbean.getAttributeTimeouts(), Map.of("Slow", 2L));
+        }
+        finally {
+            object.release.countDown();
+        }
+    }
+
+    @Test
+    public void testStaleValues()
+            throws Exception
+    {
+        Blocking object = new Blocking();
+        object.release.countDown();
+        MBean mbean = MBeanBuilder.from(object, config(true)).build();
+
+        assertEquals(mbean.getAttributes(NAMES).asList(), List.of(new Attribute("Fast", 1), new Attribute("Slow", 1)));
+
+        object.release = new CountDownLatch(1);
+        try {
+            // the slow attribute misses the deadline and reports its last value
+            assertEquals(mbean.getAttributes(NAMES).asList(), List.of(new Attribute("Fast", 2), new Attribute("Slow", 1)));
+            assertEquals(mbean.getAttributeTimeouts(), Map.of("Slow", 1L));
+        }
+        finally {
+            object.release.countDown();
+        }
+    }
+
+    @Test
+    public void testExporterReportsTimeouts()
+            throws Exception
+    {
+        Blocking object = new Blocking();
+        TestingMBeanServer server = new TestingMBeanServer();
+        MBeanExporter exporter = new MBeanExporter(server, Optional.empty(), Optional.of(config(false)));
+        ObjectName name = new ObjectName("test:name=Blocking");
+        exporter.export(name, object);
+        try {
+            server.getAttributes(name, NAMES);
+            assertEquals(exporter.getAttributeTimeouts(name), Map.of("Slow", 1L));
+        }
+        finally {
+            object.release.countDown();
+        }
+    }
+
+    @Test
+    public void testDisabledByDefault()
+            throws Exception
+    {
+        MBean mbean = MBeanBuilder.from(new Blocking()).build();
+        assertEquals(mbean.getAttributeTimeouts(), Map.of());
+        assertTrue(new MBeanExporterConfig().getAttributeReadDeadline() == null);
+
+        try {
+            new MBeanExporterConfig().setAttributeReadDeadline(Duration.ZERO);
+            fail("expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private static MBeanExporterConfig config(boolean staleValuesOnTimeout)
+    {
+        return new MBeanExporterConfig()
+                .setAttributeReadDeadline(Duration.ofMillis(200))
+                .setStaleValuesOnTimeout(staleValuesOnTimeout);
+    }
+
+    public static class Blocking
+    {
+        private final AtomicInteger fastCalls = new AtomicInteger();
+        private final AtomicInteger slowCalls = new AtomicInteger();
+        private volatile CountDownLatch release = new CountDownLatch(1);
+
+        @Managed
+        public int getFast()
+        {
+            return fastCalls.incrementAndGet();
+        }
+
+        @Managed
+        public int getSlow()
+                throws InterruptedException
+        {
+            CountDownLatch latch = release;
+            int call = slowCalls.incrementAndGet();
+            latch.await();
+            return call;
+        }
+
+        @Managed
+        public int getBroken()
+        {
+            throw new IllegalStateException("broken");
+        }
+    }
+}
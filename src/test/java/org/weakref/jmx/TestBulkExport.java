@@ -0,0 +1,130 @@
+package org.weakref.jmx;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.weakref.jmx.testing.TestingMBeanServer;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import static org.weakref.jmx.Util.getUniqueObjectName;
+
+public class TestBulkExport
+{
+    private MBeanServer server;
+    private MBeanExporter exporter;
+
+    @BeforeMethod
+    public void setup()
+    {
+        server = new TestingMBeanServer();
+        exporter = new MBeanExporter(server);
+    }
+
+    @Test
+    public void testExportAll()
+            throws Exception
+    {
+        Map<ObjectName, Object> objects = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            objects.put(getUniqueObjectName(), new SimpleObject());
+        }
+
+        BulkExportResult result = exporter.exportAll(objects);
+        assertTrue(result.isSuccessful());
+        assertEquals(result.getExported(), objects.keySet());
+        for (ObjectName name : objects.keySet()) {
+            assertTrue(server.isRegistered(name));
+            assertEquals(exporter.getExportedObject(name).get(), objects.get(name));
+        }
+        assertEquals(exporter.getManagedClasses().size(), 100);
+    }
+
+    @Test
+    public void testExportAllReportsFailures()
+    {
+        ObjectName existing = getUniqueObjectName();
+        exporter.export(existing, new SimpleObject());
+
+        ObjectName first = getUniqueObjectName();
+        ObjectName missing = getUniqueObjectName();
+        ObjectName last = getUniqueObjectName();
+        Map<ObjectName, Object> objects = new LinkedHashMap<>();
+        objects.put(first, new SimpleObject());
+        objects.put(existing, new SimpleObject());
+        objects.put(missing, null);
+        objects.put(last, new SimpleObject());
+
+        BulkExportResult result = exporter.exportAll(objects);
+        assertFalse(result.isSuccessful());
+        assertFalse(result.isRolledBack());
+        assertEquals(result.getExported(), Set.of(first, last));
+        assertEquals(result.getFailures().keySet(), Set.of(existing, missing));
+        assertEquals(((JmxException) result.getFailures().get(existing)).getReason(), JmxException.Reason.INSTANCE_ALREADY_EXISTS);
+        assertTrue(server.isRegistered(first));
+        assertTrue(server.isRegistered(last));
+    }
+
+    @Test
+    public void testAllOrNothingRollsBack()
+    {
+        ObjectName existing = getUniqueObjectName();
+        exporter.export(existing, new SimpleObject());
+
+        ObjectName first = getUniqueObjectName();
+        ObjectName last = getUniqueObjectName();
+        Map<ObjectName, Object> objects = new LinkedHashMap<>();
+        objects.put(first, new SimpleObject());
+        objects.put(existing, new SimpleObject());
+        objects.put(last, new SimpleObject());
+
+        BulkExportResult result = exporter.exportAllOrNothing(objects);
+        assertTrue(result.isRolledBack());
+        assertEquals(result.getExported(), Set.of());
+        assertEquals(result.getFailures().keySet(), Set.of(existing));
+        assertFalse(server.isRegistered(first));
+        assertFalse(server.isRegistered(last));
+        assertTrue(server.isRegistered(existing));
+        assertEquals(exporter.getExportedObjects().size(), 1);
+    }
+
+    @Test
+    public void testAllOrNothingRegistersNothingWhenIntrospectionFails()
+    {
+        ObjectName first = getUniqueObjectName();
+        ObjectName missing = getUniqueObjectName();
+        Map<ObjectName, Object> objects = new LinkedHashMap<>();
+        objects.put(first, new SimpleObject());
+        objects.put(missing, null);
+
+        BulkExportResult result = exporter.exportAllOrNothing(objects);
+        assertFalse(result.isRolledBack());
+        assertEquals(result.getFailures().keySet(), Set.of(missing));
+        assertFalse(server.isRegistered(first));
+    }
+
+    @Test
+    public void testNullNameIsRejectedBeforeExporting()
+    {
+        ObjectName name = getUniqueObjectName();
+        Map<ObjectName, Object> objects = new LinkedHashMap<>();
+        objects.put(name, new SimpleObject());
+        objects.put(null, new SimpleObject());
+
+        try {
+            exporter.exportAll(objects);
+            fail("expected NullPointerException");
+        }
+        catch (NullPointerException expected) {
+        }
+        assertFalse(server.isRegistered(name));
+    }
+}
@@ -0,0 +1,244 @@
+package org.weakref.jmx;
+
+import com.google.common.base.Ticker;
+import org.testng.annotations.Test;
+
+import javax.management.Attribute;
+import javax.management.Descriptor;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestCachedAttributes
+{
+    @Test
+    public void testAnnotatedAttributeIsCached()
+            throws Exception
+    {
+        Expensive object = new Expensive();
+        MBean mbean = MBeanBuilder.from(object).build();
+
+        assertEquals(mbean.getAttribute("Value"), 1);
+        assertEquals(mbean.getAttribute("Value"), 1);
+        assertEquals(object.reads, 1);
+        assertEquals(mbean.getAttribute("Value.CacheHits"), 1L);
+        assertEquals(mbean.getAttribute("Value.CacheMisses"), 1L);
+
+        // uncached attributes get no statistics
+        assertEquals(mbean.getAttributeOrdinal("Uncached.CacheHits"), -1);
+
+        Descriptor descriptor = info(mbean, "Value").getDescriptor();
+        assertEquals(descriptor.getFieldValue(Cached.TTL_FIELD), 1L);
+        assertEquals(descriptor.getFieldValue(Cached.TTL_UNIT_FIELD), "HOURS");
+        assertEquals(info(mbean, "Value.CacheHits").getType(), "long");
+    }
+
+    @Test
+    public void testExpiration()
+            throws Exception
+    {
+        Expensive object = new Expensive();
+        TestingTicker ticker = new TestingTicker();
+        List<MBeanAttribute> attributes = cached(object, ticker);
+        MBeanAttribute value = attributes.get(0);
+
+        assertEquals(value.getValue(), 1);
+        ticker.advance(TimeUnit.HOURS.toNanos(1) - 1);
+        assertEquals(value.getValue(), 1);
+        assertEquals(value.getLong(), 1);
+        ticker.advance(1);
+        assertEquals(value.getValue(), 2);
+
+        assertEquals(attributes.get(1).getValue(), 2L);
+        assertEquals(attributes.get(2).getLong(), 2L);
+    }
+
+    @Test
+    public void testSetDiscardsCachedValue()
+            throws Exception
+    {
+        Expensive object = new Expensive();
+        MBean mbean = MBeanBuilder.from(object).build();
+
+        assertEquals(mbean.getAttribute("Value"), 1);
+        mbean.setAttribute(new Attribute("Value", 10));
+        assertEquals(mbean.getAttribute("Value"), 12);
+        assertEquals(mbean.getAttribute("Value.CacheMisses"), 2L);
+    }
+
+    @Test
+    public void testFailuresAreNotCached()
+            throws Exception
+    {
+        Expensive object = new Expensive();
+        object.fail = true;
+        MBean mbean = MBeanBuilder.from(object).build();
+
+        try {
+            mbean.getAttribute("Value");
+            fail("expected MBeanException");
+        }
+        catch (MBeanException expected) {
+        }
+        assertTrue(mbean.getAttributes(new String[] {"Value"}).isEmpty());
+
+        object.fail = false;
+        assertEquals(mbean.getAttributes(new String[] {"Value"}).asList(), List.of(new Attribute("Value", 3)));
+        assertEquals(mbean.getAttribute("Value"), 3);
+        assertEquals(mbean.getAttribute("Value.CacheMisses"), 3L);
+        assertEquals(mbean.getAttribute("Value.CacheHits"), 1L);
+    }
+
+    @Test
+    public void testCachedAloneIsNotManaged()
+            throws Exception
+    {
+        MBean mbean = MBeanBuilder.from(new Expensive()).build();
+        assertEquals(mbean.getAttributeOrdinal("Unmanaged"), -1);
+        assertEquals(mbean.getAttributeOrdinal("Unmanaged.CacheHits"), -1);
+    }
+
+    @Test
+    public void testReadOverlappingSetIsNotCached()
+            throws Exception
+    {
+        Blocking object = new Blocking();
+        MBean mbean = MBeanBuilder.from(object).build();
+
+        object.reading = new CountDownLatch(1);
+        object.release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> read = executor.submit(() -> mbean.getAttribute("Value"));
+            assertTrue(object.reading.await(10, TimeUnit.SECONDS));
+            mbean.setAttribute(new Attribute("Value", 2));
+            object.release.countDown();
+            assertEquals(read.get(10, TimeUnit.SECONDS), 0);
+        }
+        finally {
+            object.release.countDown();
+            executor.shutdownNow();
+        }
+
+        // the read began before the set, so its value must not be served afterwards
+        object.reading = null;
+        assertEquals(mbean.getAttribute("Value"), 2);
+        assertEquals(mbean.getAttribute("Value"), 2);
+        assertEquals(mbean.getAttribute("Value.CacheMisses"), 2L);
+    }
+
+    private static List<MBeanAttribute> cached(Expensive object, Ticker ticker)
+    {
+        List<MBeanAttribute> attributes = new ArrayList<>();
+        for (MBeanAttribute attribute : MBeanBuilder.from(object).build().getAttributes()) {
+            if (attribute.getName().equals("Value")) {
+                Collection<MBeanAttribute> cached = CachingMBeanAttribute.withCaching(((CachingMBeanAttribute) attribute).getDelegate(), ticker);
+                attributes.addAll(cached);
+            }
+        }
+        assertEquals(attributes.size(), 3);
+        return attributes;
+    }
+
+    private static MBeanAttributeInfo info(MBean mbean, String name)
+    {
+        for (MBeanAttributeInfo info : mbean.getMBeanInfo().getAttributes()) {
+            if (info.getName().equals(name)) {
+                return info;
+            }
+        }
+        throw new AssertionError("no attribute " + name);
+    }
+
+    private static class TestingTicker
+            extends Ticker
+    {
+        private long time;
+
+        @Override
+        public long read()
+        {
+            return time;
+        }
+
+        public void advance(long nanos)
+        {
+            time += nanos;
+        }
+    }
+
+    public static class Expensive
+    {
+        private int reads;
+        private int offset;
+        private boolean fail;
+
+        @Managed
+        @Cached(ttl = 1, unit = TimeUnit.HOURS)
+        public int getValue()
+        {
+            reads++;
+            if (fail) {
+                throw new IllegalStateException("fail");
+            }
+            return reads + offset;
+        }
+
+        @Managed
+        public void setValue(int value)
+        {
+            offset = value;
+        }
+
+        @Managed
+        public int getUncached()
+        {
+            return 0;
+        }
+
+        @Cached(ttl = 1, unit = TimeUnit.HOURS)
+        public int getUnmanaged()
+        {
+            return 0;
+        }
+    }
+
+    public static class Blocking
+    {
+        private volatile int value;
+        private volatile CountDownLatch reading;
+        private volatile CountDownLatch release;
+
+        @Managed
+        @Cached(ttl = 1, unit = TimeUnit.HOURS)
+        public int getValue()
+                throws InterruptedException
+        {
+            int current = value;
+            CountDownLatch latch = reading;
+            if (latch != null) {
+                latch.countDown();
+                release.await();
+            }
+            return current;
+        }
+
+        @Managed
+        public void setValue(int value)
+        {
+            this.value = value;
+        }
+    }
+}
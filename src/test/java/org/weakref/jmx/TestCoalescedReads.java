@@ -0,0 +1,173 @@
+package org.weakref.jmx;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.management.MBeanException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestCoalescedReads
+{
+    private static final int READERS = 3;
+
+    private ExecutorService executor;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        executor = Executors.newFixedThreadPool(READERS);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentReadsShareOneCall()
+            throws Exception
+    {
+        Slow slow = new Slow();
+        MBean mbean = MBeanBuilder.from(new Holder(slow), new MBeanExporterConfig().setCoalescedReadsEnabled(true)).build();
+
+        for (String attribute : List.of("Value", "Nested.Value")) {
+            slow.reset();
+            List<Future<Object>> reads = readConcurrently(mbean, attribute, slow);
+            slow.release();
+            for (Future<Object> read : reads) {
+                assertEquals(read.get(10, TimeUnit.SECONDS), 1);
+            }
+            assertEquals(slow.calls.get(), 1, attribute);
+        }
+
+        // reads after the shared call completed call the getter again
+        assertEquals(mbean.getAttribute("Value"), 2);
+    }
+
+    @Test
+    public void testFailureIsShared()
+            throws Exception
+    {
+        Slow slow = new Slow();
+        slow.fail = true;
+        MBean mbean = MBeanBuilder.from(new Holder(slow), new MBeanExporterConfig().setCoalescedReadsEnabled(true)).build();
+
+        List<Future<Object>> reads = readConcurrently(mbean, "Value", slow);
+        slow.release();
+        for (Future<Object> read : reads) {
+            try {
+                read.get(10, TimeUnit.SECONDS);
+                fail("expected failure");
+            }
+            catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof MBeanException, e.getCause().toString());
+            }
+        }
+        assertEquals(slow.calls.get(), 1);
+    }
+
+    @Test
+    public void testDisabledByDefault()
+            throws Exception
+    {
+        Slow slow = new Slow();
+        slow.release();
+        MBean mbean = MBeanBuilder.from(new Holder(slow)).build();
+
+        assertEquals(mbean.getAttribute("Value"), 1);
+        assertEquals(mbean.getAttribute("Value"), 2);
+    }
+
+    private List<Future<Object>> readConcurrently(MBean mbean, String attribute, Slow slow)
+            throws InterruptedException
+    {
+        CountDownLatch started = new CountDownLatch(READERS);
+        List<Future<Object>> reads = new ArrayList<>();
+        for (int i = 0; i < READERS; i++) {
+            reads.add(executor.submit(() -> {
+                started.countDown();
+                return mbean.getAttribute(attribute);
+            }));
+        }
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertTrue(slow.entered.await(10, TimeUnit.SECONDS));
+        // give the other readers time to join the call in flight
+        Thread.sleep(100);
+        return reads;
+    }
+
+    public static class Holder
+    {
+        private final Slow slow;
+
+        public Holder(Slow slow)
+        {
+            this.slow = slow;
+        }
+
+        @Flatten
+        public Slow getFlat()
+        {
+            return slow;
+        }
+
+        @Nested
+        public Slow getNested()
+        {
+            return slow;
+        }
+    }
+
+    public static class Slow
+    {
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile CountDownLatch entered;
+        private volatile CountDownLatch release;
+        private volatile boolean fail;
+
+        public Slow()
+        {
+            reset();
+        }
+
+        void reset()
+        {
+            calls.set(0);
+            entered = new CountDownLatch(1);
+            release = new CountDownLatch(1);
+        }
+
+        void release()
+        {
+            release.countDown();
+        }
+
+        @Managed
+        public int getValue()
+                throws InterruptedException
+        {
+            entered.countDown();
+            release.await();
+            int call = calls.incrementAndGet();
+            if (fail) {
+                throw new IllegalStateException("fail");
+            }
+            return call;
+        }
+    }
+}
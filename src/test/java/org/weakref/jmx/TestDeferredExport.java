@@ -0,0 +1,112 @@
+package org.weakref.jmx;
+
+import org.testng.annotations.Test;
+import org.weakref.jmx.testing.TestingMBeanServer;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import java.lang.ref.Reference;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.weakref.jmx.Util.getUniqueObjectName;
+
+public class TestDeferredExport
+{
+    @Test
+    public void testLongLivedObjectIsExported()
+            throws Exception
+    {
+        MBeanServer server = new TestingMBeanServer();
+        MBeanExporter exporter = new MBeanExporter(server);
+        ObjectName name = getUniqueObjectName();
+
+        SimpleObject object = new SimpleObject();
+        MBeanExport export = exporter.exportDeferred(name, object, Duration.ofMillis(50));
+        assertFalse(server.isRegistered(name));
+
+        await(exporter::getMaterializedDeferredExports, 1);
+        assertTrue(server.isRegistered(name));
+        assertEquals(exporter.getExportedObject(name).orElseThrow(), object);
+        assertEquals(exporter.getSkippedDeferredExports(), 0);
+
+        export.unexport();
+        assertFalse(server.isRegistered(name));
+        assertTrue(exporter.getExportedObjects().isEmpty());
+    }
+
+    @Test
+    public void testUnexportBeforeLifetimeSkipsExport()
+            throws Exception
+    {
+        MBeanServer server = new TestingMBeanServer();
+        MBeanExporter exporter = new MBeanExporter(server);
+        ObjectName name = getUniqueObjectName();
+
+        SimpleObject object = new SimpleObject();
+        exporter.exportDeferred(name, object, Duration.ofMillis(50)).unexport();
+        assertEquals(exporter.getSkippedDeferredExports(), 1);
+
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertFalse(server.isRegistered(name));
+        assertEquals(exporter.getMaterializedDeferredExports(), 0);
+    }
+
+    @Test
+    public void testCollectedObjectIsSkipped()
+            throws Exception
+    {
+        MBeanServer server = new TestingMBeanServer();
+        MBeanExporter exporter = new MBeanExporter(server);
+        ObjectName name = getUniqueObjectName();
+
+        exporter.exportDeferred(name, new SimpleObject(), Duration.ofMillis(200));
+        awaitCollectedThenSkipped(exporter);
+        assertFalse(server.isRegistered(name));
+        assertEquals(exporter.getMaterializedDeferredExports(), 0);
+    }
+
+    @Test
+    public void testTakenNameIsCountedAsFailed()
+            throws Exception
+    {
+        MBeanExporter exporter = new MBeanExporter(new TestingMBeanServer());
+        ObjectName name = getUniqueObjectName();
+        SimpleObject object = new SimpleObject();
+
+        exporter.exportDeferred(name, object, Duration.ofMillis(50));
+        exporter.export(name, new SimpleObject());
+
+        await(exporter::getFailedDeferredExports, 1);
+        assertEquals(exporter.getMaterializedDeferredExports(), 0);
+        // keeps the object reachable until the export was attempted
+        Reference.reachabilityFence(object);
+    }
+
+    private static void awaitCollectedThenSkipped(MBeanExporter exporter)
+            throws InterruptedException
+    {
+        // collection is only checked when the lifetime elapses, so keep collecting until then
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (exporter.getSkippedDeferredExports() < 1 && System.nanoTime() < deadline) {
+            System.gc();
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(exporter.getSkippedDeferredExports(), 1);
+    }
+
+    private static void await(LongSupplier counter, long expected)
+            throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (counter.getAsLong() < expected && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(counter.getAsLong(), expected);
+    }
+}
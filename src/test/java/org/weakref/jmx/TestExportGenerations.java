@@ -0,0 +1,140 @@
+package org.weakref.jmx;
+
+import org.testng.annotations.Test;
+import org.weakref.jmx.testing.TestingMBeanServer;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.ObjectName;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.weakref.jmx.Util.getUniqueObjectName;
+
+public class TestExportGenerations
+{
+    @Test
+    public void testOnlyChangesAreApplied()
+            throws Exception
+    {
+        AtomicInteger unregistrations = new AtomicInteger();
+        TestingMBeanServer server = new TestingMBeanServer()
+        {
+            @Override
+            public void unregisterMBean(ObjectName name)
+                    throws InstanceNotFoundException
+            {
+                unregistrations.incrementAndGet();
+                super.unregisterMBean(name);
+            }
+        };
+        MBeanExporter exporter = new MBeanExporter(server);
+        ExportGenerations generations = exporter.newExportGenerations();
+
+        ObjectName kept = getUniqueObjectName();
+        ObjectName swapped = getUniqueObjectName();
+        ObjectName dropped = getUniqueObjectName();
+        SimpleObject keptObject = new SimpleObject();
+        Map<ObjectName, Object> first = new LinkedHashMap<>();
+        first.put(kept, keptObject);
+        first.put(swapped, new SimpleObject());
+        first.put(dropped, new SimpleObject());
+
+        GenerationResult result = generations.apply(first);
+        assertTrue(result.isSuccessful());
+        assertEquals(result.getGeneration(), 1);
+        assertEquals(result.getAdded(), first.keySet());
+
+        ObjectName added = getUniqueObjectName();
+        SimpleObject swappedObject = new SimpleObject();
+        swappedObject.setIntegerValue(9);
+        Map<ObjectName, Object> second = new LinkedHashMap<>();
+        second.put(kept, keptObject);
+        second.put(swapped, swappedObject);
+        second.put(added, new SimpleObject());
+
+        result = generations.apply(second);
+        assertTrue(result.isSuccessful());
+        assertEquals(result.getGeneration(), 2);
+        assertEquals(result.getAdded(), Set.of(added));
+        assertEquals(result.getReplaced(), Set.of(swapped));
+        assertEquals(result.getRemoved(), Set.of(dropped));
+        assertEquals(result.getUnchanged(), Set.of(kept));
+
+        // only the dropped name left the server; the swapped one changed in place
+        assertEquals(unregistrations.get(), 1);
+        assertFalse(server.isRegistered(dropped));
+        assertEquals(server.getAttribute(swapped, "IntegerValue"), 9);
+        assertEquals(generations.getExported(), second.keySet());
+
+        result = generations.apply(Map.of());
+        assertEquals(result.getRemoved(), second.keySet());
+        assertTrue(exporter.getExportedObjects().isEmpty());
+    }
+
+    @Test
+    public void testFailedAddIsReported()
+    {
+        TestingMBeanServer server = new TestingMBeanServer();
+        ObjectName taken = getUniqueObjectName();
+        new MBeanExporter(server).export(taken, new SimpleObject());
+
+        ExportGenerations generations = new MBeanExporter(server).newExportGenerations();
+        GenerationResult result = generations.apply(Map.of(taken, new SimpleObject()));
+        assertEquals(result.getFailures().keySet(), Set.of(taken));
+        assertTrue(generations.getExported().isEmpty());
+    }
+
+    @Test
+    public void testNameUnexportedElsewhereIsExportedAgain()
+    {
+        TestingMBeanServer server = new TestingMBeanServer();
+        MBeanExporter exporter = new MBeanExporter(server);
+        ExportGenerations generations = exporter.newExportGenerations();
+        ObjectName name = getUniqueObjectName();
+        generations.apply(Map.of(name, new SimpleObject()));
+        exporter.unexport(name);
+
+        SimpleObject object = new SimpleObject();
+        GenerationResult result = generations.apply(Map.of(name, object));
+        assertTrue(result.isSuccessful());
+        assertEquals(result.getAdded(), Set.of(name));
+        assertTrue(server.isRegistered(name));
+        assertSame(exporter.getExportedObject(name).orElseThrow(), object);
+    }
+
+    @Test
+    public void testFailedRemovalIsReported()
+    {
+        ObjectName stuck = getUniqueObjectName();
+        TestingMBeanServer server = new TestingMBeanServer()
+        {
+            @Override
+            public void unregisterMBean(ObjectName name)
+                    throws InstanceNotFoundException
+            {
+                if (name.equals(stuck)) {
+                    throw new IllegalStateException("stuck");
+                }
+                super.unregisterMBean(name);
+            }
+        };
+        ExportGenerations generations = new MBeanExporter(server).newExportGenerations();
+        ObjectName dropped = getUniqueObjectName();
+        generations.apply(Map.of(stuck, new SimpleObject(), dropped, new SimpleObject()));
+
+        ObjectName added = getUniqueObjectName();
+        GenerationResult result = generations.apply(Map.of(added, new SimpleObject()));
+        assertEquals(result.getGeneration(), 2);
+        assertEquals(result.getFailures().keySet(), Set.of(stuck));
+        assertEquals(result.getAdded(), Set.of(added));
+        assertEquals(result.getRemoved(), Set.of(dropped));
+        assertEquals(generations.getExported(), Set.of(stuck, added));
+    }
+}
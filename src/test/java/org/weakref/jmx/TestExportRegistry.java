@@ -0,0 +1,140 @@
+package org.weakref.jmx;
+
+import org.testng.annotations.Test;
+import org.weakref.jmx.testing.TestingMBeanServer;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.ObjectInstance;
+import javax.management.ObjectName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import static org.weakref.jmx.Util.getUniqueObjectName;
+
+public class TestExportRegistry
+{
+    @Test
+    public void testConcurrentExportsOfOneName()
+            throws Exception
+    {
+        MBeanExporter exporter = new MBeanExporter(new TestingMBeanServer());
+        ObjectName name = getUniqueObjectName();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        exporter.export(name, new SimpleObject());
+                        return true;
+                    }
+                    catch (JmxException e) {
+                        assertEquals(e.getReason(), JmxException.Reason.INSTANCE_ALREADY_EXISTS);
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int exported = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(10, TimeUnit.SECONDS)) {
+                    exported++;
+                }
+            }
+            assertEquals(exported, 1);
+            assertEquals(exporter.getExportedObjects().size(), 1);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testNoLockHeldWhileRegistering()
+            throws Exception
+    {
+        CountDownLatch registering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ObjectName slowName = getUniqueObjectName();
+        TestingMBeanServer server = new TestingMBeanServer()
+        {
+            @Override
+            public ObjectInstance registerMBean(Object object, ObjectName name)
+                    throws InstanceAlreadyExistsException
+            {
+                if (name.equals(slowName)) {
+                    registering.countDown();
+                    try {
+                        release.await();
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.registerMBean(object, name);
+            }
+        };
+        MBeanExporter exporter = new MBeanExporter(server);
+
+        Thread slow = new Thread(() -> exporter.export(slowName, new SimpleObject()));
+        slow.start();
+        assertTrue(registering.await(10, TimeUnit.SECONDS));
+
+        // the reserved name is taken, other names and reads proceed
+        try {
+            exporter.export(slowName, new SimpleObject());
+            fail("expected JmxException");
+        }
+        catch (JmxException e) {
+            assertEquals(e.getReason(), JmxException.Reason.INSTANCE_ALREADY_EXISTS);
+        }
+        ObjectName other = getUniqueObjectName();
+        exporter.export(other, new SimpleObject());
+        assertEquals(exporter.getExportedObjects().keySet(), Set.of(other.toString()));
+        assertFalse(exporter.getExportedObject(slowName).isPresent());
+
+        release.countDown();
+        slow.join(10_000);
+        assertTrue(exporter.getExportedObject(slowName).isPresent());
+        assertTrue(exporter.unexportAllAndReportMissing().isEmpty());
+        assertTrue(exporter.getExportedObjects().isEmpty());
+    }
+
+    @Test
+    public void testFailedRegistrationReleasesName()
+            throws Exception
+    {
+        TestingMBeanServer server = new TestingMBeanServer();
+        MBeanExporter exporter = new MBeanExporter(server);
+        ObjectName name = getUniqueObjectName();
+        new MBeanExporter(server).export(name, new SimpleObject());
+
+        try {
+            exporter.export(name, new SimpleObject());
+            fail("expected JmxException");
+        }
+        catch (JmxException e) {
+            assertEquals(e.getReason(), JmxException.Reason.INSTANCE_ALREADY_EXISTS);
+        }
+        assertTrue(exporter.getExportedObjects().isEmpty());
+
+        server.unregisterMBean(name);
+        exporter.export(name, new SimpleObject());
+        assertTrue(exporter.getExportedObject(name).isPresent());
+    }
+}
@@ -20,6 +20,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import org.weakref.jmx.testing.TestingMBeanServer;
 
+import javax.management.Attribute;
 import javax.management.AttributeNotFoundException;
 import javax.management.InstanceNotFoundException;
 import javax.management.InvalidAttributeValueException;
@@ -82,7 +83,7 @@ public class TestExporter extends AbstractMbeanTest<TestExporter.NamedObject>
     protected void setAttribute(NamedObject namedObject, String attributeName, Object value)
             throws InstanceNotFoundException, AttributeNotFoundException, InvalidAttributeValueException, MBeanException, ReflectionException
     {
-        server.setAttribute(namedObject.objectName, new javax.management.Attribute(attributeName, value));
+        server.setAttribute(namedObject.objectName, new Attribute(attributeName, value));
     }
 
     @Override
@@ -145,6 +146,36 @@ public class TestExporter extends AbstractMbeanTest<TestExporter.NamedObject>
         }
         assertEquals(exporter.getExportedObjects().size(), 1);
     }
+
+    @Test
+    void testNestedValuesReadOnce()
+            throws Exception
+    {
+        MBeanExporter exporter = new MBeanExporter(server);
+        ObjectName name = getUniqueObjectName();
+        FreshChildObject object = new FreshChildObject();
+        exporter.export(name, object);
+
+        assertEquals(object.reads, 1);
+        Object child = exporter.getManagedClasses().get(name.getCanonicalName()).getChildren().get("Child").getTarget();
+        server.setAttribute(name, new Attribute("Child.IntegerValue", 42));
+        assertEquals(((SimpleObject) child).getIntegerValue(), 42);
+
+        exporter.unexport(name);
+    }
+
+    public static class FreshChildObject
+    {
+        private int reads;
+
+        @Managed
+        @Nested
+        public SimpleObject getChild()
+        {
+            reads++;
+            return new SimpleObject();
+        }
+    }
 }
 
 
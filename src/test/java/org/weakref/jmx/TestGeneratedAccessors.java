@@ -0,0 +1,135 @@
+package org.weakref.jmx;
+
+import org.testng.annotations.Test;
+
+import javax.management.AttributeNotFoundException;
+import javax.management.InvalidAttributeValueException;
+import javax.management.MBeanException;
+import javax.management.MBeanInfo;
+import javax.management.ReflectionException;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestGeneratedAccessors
+        extends AbstractMbeanTest<Object>
+{
+    private final MBeanExporterConfig config = new MBeanExporterConfig().setAccessorGenerationEnabled(true);
+
+    public TestGeneratedAccessors()
+    {
+        objects = new ArrayList<>();
+        objects.add(new SimpleObject());
+        objects.add(new CustomAnnotationObject());
+        objects.add(new FlattenObject());
+        objects.add(new CustomFlattenAnnotationObject());
+        objects.add(new NestedObject());
+        objects.add(new CustomNestedAnnotationObject());
+    }
+
+    @Override
+    protected Object getObject(Object o)
+    {
+        return o;
+    }
+
+    @Override
+    protected MBeanInfo getMBeanInfo(Object object)
+    {
+        return MBeanBuilder.from(object, config).build().getMBeanInfo();
+    }
+
+    @Override
+    protected Object getAttribute(Object object, String attributeName)
+            throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        return MBeanBuilder.from(object, config).build().getAttribute(attributeName);
+    }
+
+    @Override
+    protected void setAttribute(Object object, String attributeName, Object value)
+            throws AttributeNotFoundException, InvalidAttributeValueException, MBeanException, ReflectionException
+    {
+        MBeanBuilder.from(object, config).build().setAttribute(new javax.management.Attribute(attributeName, value));
+    }
+
+    @Override
+    protected Object invoke(Object object, Object value, String operationName)
+            throws MBeanException, ReflectionException
+    {
+        return MBeanBuilder.from(object, config).build().invoke(operationName, new Object[] {value}, new String[] {Object.class.getName()});
+    }
+
+    @Test
+    public void testAccessorIsGeneratedOncePerClass()
+            throws Exception
+    {
+        Method getter = SimpleObject.class.getMethod("getIntegerValue");
+        MethodInvoker invoker = AccessorGenerator.invokerFor(SimpleObject.class, getter);
+        assertTrue(invoker.isGenerated());
+        assertSame(AccessorGenerator.invokerFor(SimpleObject.class, getter), invoker);
+
+        SimpleObject object = new SimpleObject();
+        object.setIntegerValue(42);
+        assertEquals(invoker.invoke(object), 42);
+    }
+
+    @Test
+    public void testWideningAndExceptions()
+            throws Exception
+    {
+        MethodInvoker add = AccessorGenerator.invokerFor(Operations.class, Operations.class.getMethod("add", long.class, double.class));
+        assertTrue(add.isGenerated());
+        assertEquals(add.invoke(new Operations(), new Object[] {'a', 1}), 98.0);
+
+        MethodInvoker fail = AccessorGenerator.invokerFor(Operations.class, Operations.class.getMethod("fail"));
+        assertTrue(fail.isGenerated());
+        try {
+            fail.invoke(new Operations());
+            fail("expected MBeanException");
+        }
+        catch (MBeanException e) {
+            assertEquals(e.getCause().getClass(), IllegalStateException.class);
+        }
+    }
+
+    @Test
+    public void testInaccessibleClassFallsBack()
+            throws Exception
+    {
+        Method getter = Hidden.class.getMethod("getValue");
+        MethodInvoker invoker = AccessorGenerator.invokerFor(Hidden.class, getter);
+        assertFalse(invoker.isGenerated());
+        assertEquals(invoker.invoke(new Hidden()), "hidden");
+    }
+
+    public static class Operations
+    {
+        @Managed
+        public double add(long a, double b)
+        {
+            return a + b;
+        }
+
+        @Managed
+        public void fail()
+        {
+            throw new IllegalStateException("fail");
+        }
+    }
+
+    private static class Hidden
+    {
+        @Managed
+        public String getValue()
+        {
+            return "hidden";
+        }
+    }
+}
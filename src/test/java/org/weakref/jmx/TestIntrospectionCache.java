@@ -0,0 +1,100 @@
+package org.weakref.jmx;
+
+import org.testng.annotations.Test;
+
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestIntrospectionCache
+{
+    @Test
+    public void testManagedMethodsAreCachedPerClass()
+    {
+        IntrospectionCacheStats stats = new IntrospectionCacheStats();
+        long hits = stats.getManagedMethodsHits();
+        long misses = stats.getManagedMethodsMisses();
+
+        Map<Method, Method> first = AnnotationUtils.findManagedMethods(Introspected.class);
+        assertEquals(stats.getManagedMethodsMisses(), misses + 1);
+
+        assertSame(AnnotationUtils.findManagedMethods(Introspected.class), first);
+        MBeanBuilder.from(new Introspected()).build();
+        ManagedClass.fromExportedObject(new Introspected());
+        assertEquals(stats.getManagedMethodsMisses(), misses + 1);
+        assertTrue(stats.getManagedMethodsHits() >= hits + 3);
+
+        assertEquals(first.size(), 1);
+        try {
+            first.clear();
+            fail("expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    public void testMethodMetadataIsCachedAndShared()
+            throws Exception
+    {
+        IntrospectionCacheStats stats = new IntrospectionCacheStats();
+        long misses = stats.getMethodMetadataMisses();
+
+        MBean first = MBeanBuilder.from(new Described()).build();
+        MBean second = MBeanBuilder.from(new Described()).build();
+        assertEquals(stats.getMethodMetadataMisses(), misses + 2);
+
+        MBeanAttributeInfo firstValue = first.getMBeanInfo().getAttributes()[0];
+        MBeanAttributeInfo secondValue = second.getMBeanInfo().getAttributes()[0];
+        assertEquals(firstValue.getDescription(), "the value");
+        assertSame(firstValue.getDescriptor(), secondValue.getDescriptor());
+
+        MBeanOperationInfo operation = first.getMBeanInfo().getOperations()[0];
+        assertEquals(operation.getDescription(), "an operation");
+        MBeanParameterInfo parameter = operation.getSignature()[0];
+        assertSame(parameter.getDescriptor(), second.getMBeanInfo().getOperations()[0].getSignature()[0].getDescriptor());
+
+        // equal descriptors of different methods are one instance
+        assertSame(firstValue.getDescriptor(), AnnotationUtils.buildDescriptor(Introspected.class.getMethod("getValue")));
+    }
+
+    @Test
+    public void testStatsAreManaged()
+            throws Exception
+    {
+        MBean mbean = MBeanBuilder.from(new IntrospectionCacheStats()).build();
+        assertTrue((Long) mbean.getAttribute("ManagedMethodsMisses") > 0);
+    }
+
+    public static class Described
+    {
+        @Managed(description = "the value")
+        public int getValue()
+        {
+            return 0;
+        }
+
+        @Managed(description = "an operation")
+        public void add(int amount)
+        {
+        }
+    }
+
+    // a class no other test introspects
+    public static class Introspected
+    {
+        @Managed
+        public int getValue()
+        {
+            return 0;
+        }
+    }
+}
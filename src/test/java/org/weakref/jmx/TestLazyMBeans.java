@@ -0,0 +1,107 @@
+package org.weakref.jmx;
+
+import org.testng.annotations.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.weakref.jmx.Util.getUniqueObjectName;
+
+public class TestLazyMBeans
+{
+    @Test
+    public void testMBeanIsBuiltOnFirstUse()
+            throws Exception
+    {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        MBeanExporter exporter = lazyExporter(server);
+        ObjectName name = getUniqueObjectName();
+
+        CountingNestedObject object = new CountingNestedObject();
+        exporter.export(name, object);
+        assertTrue(server.isRegistered(name));
+        assertEquals(object.nestedReads.get(), 0);
+        assertTrue(exporter.getAttributeFailures(name).isEmpty());
+        assertEquals(object.nestedReads.get(), 0);
+
+        assertEquals(server.getAttribute(name, "Value"), 7);
+        assertEquals(object.nestedReads.get(), 1);
+        assertTrue(server.getMBeanInfo(name).getAttributes().length > 1);
+        assertEquals(server.getObjectInstance(name).getClassName(), CountingNestedObject.class.getName());
+        assertEquals(server.getAttribute(name, "Nested.IntegerValue"), 0);
+        assertTrue(exporter.getManagedClasses().get(name.toString()).getAttributeNames().contains("Value"));
+        assertEquals(object.nestedReads.get(), 1);
+
+        exporter.unexport(name);
+        assertFalse(server.isRegistered(name));
+    }
+
+    @Test
+    public void testConcurrentFirstUseBuildsOnce()
+            throws Exception
+    {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        MBeanExporter exporter = lazyExporter(server);
+        ObjectName name = getUniqueObjectName();
+        CountingNestedObject object = new CountingNestedObject();
+        exporter.export(name, object);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return server.getAttribute(name, "Value");
+                }));
+            }
+            start.countDown();
+            for (Future<Object> result : results) {
+                assertEquals(result.get(10, TimeUnit.SECONDS), 7);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        assertEquals(object.nestedReads.get(), 1);
+    }
+
+    private static MBeanExporter lazyExporter(MBeanServer server)
+    {
+        return new MBeanExporter(server, Optional.empty(), Optional.of(new MBeanExporterConfig().setLazyMBeansEnabled(true)));
+    }
+
+    public static class CountingNestedObject
+    {
+        private final AtomicInteger nestedReads = new AtomicInteger();
+        private final SimpleObject nested = new SimpleObject();
+
+        @Managed
+        public int getValue()
+        {
+            return 7;
+        }
+
+        @Nested
+        public SimpleObject getNested()
+        {
+            nestedReads.incrementAndGet();
+            return nested;
+        }
+    }
+}
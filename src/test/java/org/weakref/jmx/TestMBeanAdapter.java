@@ -0,0 +1,177 @@
+package org.weakref.jmx;
+
+import org.testng.annotations.Test;
+
+import javax.management.Attribute;
+import javax.management.ImmutableDescriptor;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanException;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestMBeanAdapter
+{
+    @Test
+    public void testAdapterIsUsed()
+            throws Exception
+    {
+        Adapted object = new Adapted();
+        MBean mbean = MBeanBuilder.from(object).build();
+
+        MBeanInfo info = mbean.getMBeanInfo();
+        assertEquals(info.getClassName(), Adapted.class.getName());
+        assertEquals(info.getDescription(), "adapted");
+
+        mbean.setAttribute(new Attribute("Value", 42));
+        assertEquals(mbean.getAttribute("Value"), 42);
+        assertEquals(object.getValue(), 42);
+        assertEquals(Adapted_MBeanAdapter.calls, 2);
+
+        // arguments of primitive parameters reach the adapter boxed in the parameter type
+        assertEquals(mbean.invoke("add", new Object[] {1, 'a'}, new String[] {"long", "long"}), 98L);
+
+        // nested objects are built for their own class
+        object.getNested().setStringValue("nested");
+        assertEquals(mbean.getAttribute("Nested.StringValue"), "nested");
+    }
+
+    @Test
+    public void testExceptions()
+            throws Exception
+    {
+        MBean mbean = MBeanBuilder.from(new Adapted()).build();
+        try {
+            mbean.invoke("fail", new Object[0], new String[0]);
+            fail("expected MBeanException");
+        }
+        catch (MBeanException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertEquals(e.getMessage(), "RuntimeException occurred while invoking fail()");
+        }
+    }
+
+    @Test
+    public void testFallbackToReflection()
+            throws Exception
+    {
+        MBean subclass = MBeanBuilder.from(new AdaptedSubclass()).build();
+        assertNull(subclass.getMBeanInfo().getDescription());
+        assertEquals(subclass.getAttribute("Value"), 0);
+
+        MBean disabled = MBeanBuilder.from(new Adapted(), new MBeanExporterConfig().setGeneratedAdaptersEnabled(false)).build();
+        assertNull(disabled.getMBeanInfo().getDescription());
+    }
+
+    public static class Adapted
+    {
+        private final SimpleObject nested = new SimpleObject();
+        private int value;
+
+        @Managed
+        public int getValue()
+        {
+            return value;
+        }
+
+        @Managed
+        public void setValue(int value)
+        {
+            this.value = value;
+        }
+
+        @Managed
+        public long add(long a, long b)
+        {
+            return a + b;
+        }
+
+        @Managed
+        public void fail()
+        {
+            throw new IllegalStateException();
+        }
+
+        @Managed
+        @Nested
+        public SimpleObject getNested()
+        {
+            return nested;
+        }
+    }
+
+    public static class AdaptedSubclass
+            extends Adapted
+    {
+    }
+
+    // what the annotation processor would generate for Adapted
+    public static class Adapted_MBeanAdapter
+            implements MBeanAdapter
+    {
+        private static int calls;
+
+        private static final List<AdaptedAttribute> ATTRIBUTES = List.of(
+                MBeanAdapter.nested("Nested", 4, "getNested"),
+                MBeanAdapter.attribute(
+                        new MBeanAttributeInfo("Value", "int", null, true, true, false, ImmutableDescriptor.EMPTY_DESCRIPTOR),
+                        0, "getValue", 1, "setValue", int.class));
+
+        private static final List<AdaptedOperation> OPERATIONS = List.of(
+                MBeanAdapter.operation(
+                        new MBeanOperationInfo("add", null, new MBeanParameterInfo[] {
+                                new MBeanParameterInfo("a", "long", null),
+                                new MBeanParameterInfo("b", "long", null)}, "long", MBeanOperationInfo.UNKNOWN),
+                        2, long.class, long.class),
+                MBeanAdapter.operation(new MBeanOperationInfo("fail", null, new MBeanParameterInfo[0], "void", MBeanOperationInfo.UNKNOWN), 3));
+
+        @Override
+        public String getDescription()
+        {
+            return "adapted";
+        }
+
+        @Override
+        public List<AdaptedAttribute> getAttributes()
+        {
+            return ATTRIBUTES;
+        }
+
+        @Override
+        public List<AdaptedOperation> getOperations()
+        {
+            return OPERATIONS;
+        }
+
+        @Override
+        public Object invoke(int method, Object target, Object[] params)
+        {
+            Adapted adapted = (Adapted) target;
+            switch (method) {
+                case 0:
+                    calls++;
+                    return adapted.getValue();
+                case 1:
+                    calls++;
+                    adapted.setValue((Integer) params[0]);
+                    return null;
+                case 2:
+                    return adapted.add((Long) params[0], (Long) params[1]);
+                case 3:
+                    adapted.fail();
+                    return null;
+                case 4:
+                    return adapted.getNested();
+                default:
+                    throw new IndexOutOfBoundsException(method);
+            }
+        }
+    }
+}
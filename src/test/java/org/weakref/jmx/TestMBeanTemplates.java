@@ -0,0 +1,163 @@
+package org.weakref.jmx;
+
+import org.testng.annotations.Test;
+
+import javax.management.Attribute;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestMBeanTemplates
+{
+    @Test
+    public void testMBeanInfoIsShared()
+            throws Exception
+    {
+        IntrospectionCacheStats stats = new IntrospectionCacheStats();
+        long misses = stats.getMBeanTemplateMisses();
+        long hits = stats.getMBeanTemplateHits();
+
+        MBeanExporterConfig config = new MBeanExporterConfig();
+        Counter firstCounter = new Introspected(1);
+        Counter secondCounter = new Introspected(2);
+        MBean first = MBeanTemplate.createMBean(firstCounter, config);
+        MBean second = MBeanTemplate.createMBean(secondCounter, config);
+        assertEquals(stats.getMBeanTemplateMisses(), misses + 1);
+        assertEquals(stats.getMBeanTemplateHits(), hits + 1);
+
+        assertSame(first.getMBeanInfo(), second.getMBeanInfo());
+        assertTrue(first.getAttributeFailures().isEmpty());
+
+        assertEquals(first.getAttribute("Value"), 1L);
+        assertEquals(second.getAttribute("Value"), 2L);
+
+        second.setAttribute(new Attribute("Value", 5L));
+        second.invoke("add", new Object[] {3L}, new String[] {long.class.getName()});
+        assertEquals(secondCounter.getValue(), 8L);
+        assertEquals(firstCounter.getValue(), 1L);
+    }
+
+    @Test
+    public void testConfigSelectsTemplate()
+    {
+        MBean plain = MBeanTemplate.createMBean(new Counter(1), new MBeanExporterConfig());
+        MBean coalesced = MBeanTemplate.createMBean(new Counter(1), new MBeanExporterConfig().setCoalescedReadsEnabled(true));
+        assertNotSame(plain.getMBeanInfo(), coalesced.getMBeanInfo());
+        assertTrue(coalesced.getAttributes().get(0) instanceof CoalescingMBeanAttribute);
+        assertTrue(plain.getAttributes().get(0) instanceof ReflectionMBeanAttribute);
+    }
+
+    @Test
+    public void testCachedValuesArePerObject()
+            throws Exception
+    {
+        MBeanExporterConfig config = new MBeanExporterConfig();
+        MBean first = MBeanTemplate.createMBean(new CachedCounter(1), config);
+        MBean second = MBeanTemplate.createMBean(new CachedCounter(2), config);
+
+        assertEquals(first.getAttribute("Value"), 1L);
+        assertEquals(first.getAttribute("Value"), 1L);
+        assertEquals(second.getAttribute("Value"), 2L);
+        assertEquals(first.getAttribute("Value.CacheHits"), 1L);
+        assertEquals(second.getAttribute("Value.CacheHits"), 0L);
+    }
+
+    @Test
+    public void testNestedValuesOfDifferentTypes()
+            throws Exception
+    {
+        MBeanExporterConfig config = new MBeanExporterConfig();
+        MBean first = MBeanTemplate.createMBean(new Holder(new Counter(1)), config);
+        MBean second = MBeanTemplate.createMBean(new Holder(new CachedCounter(2)), config);
+        MBean third = MBeanTemplate.createMBean(new Holder(null), config);
+
+        assertNotSame(first.getMBeanInfo(), second.getMBeanInfo());
+        assertEquals(first.getAttribute("Child.Value"), 1L);
+        assertEquals(second.getAttribute("Child.Value"), 2L);
+        assertEquals(second.getAttribute("Child.Value.CacheHits"), 0L);
+        assertEquals(first.getAttribute("Name"), "holder");
+        assertEquals(third.getMBeanInfo().getAttributes().length, 1);
+    }
+
+    public static class Counter
+    {
+        private long value;
+
+        public Counter(long value)
+        {
+            this.value = value;
+        }
+
+        @Managed
+        public long getValue()
+        {
+            return value;
+        }
+
+        @Managed
+        public void setValue(long value)
+        {
+            this.value = value;
+        }
+
+        @Managed
+        public void add(long amount)
+        {
+            value += amount;
+        }
+    }
+
+    // a class no other test exports
+    public static class Introspected
+            extends Counter
+    {
+        public Introspected(long value)
+        {
+            super(value);
+        }
+    }
+
+    public static class CachedCounter
+    {
+        private final long value;
+
+        public CachedCounter(long value)
+        {
+            this.value = value;
+        }
+
+        @Managed
+        @Cached(ttl = 1, unit = TimeUnit.HOURS)
+        public long getValue()
+        {
+            return value;
+        }
+    }
+
+    public static class Holder
+    {
+        private final Object child;
+
+        public Holder(Object child)
+        {
+            this.child = child;
+        }
+
+        @Managed
+        public String getName()
+        {
+            return "holder";
+        }
+
+        @Managed
+        @Nested
+        public Object getChild()
+        {
+            return child;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.weakref.jmx;
+
+import org.testng.annotations.Test;
+
+import javax.management.MBeanException;
+import javax.management.ReflectionException;
+import javax.management.RuntimeErrorException;
+import javax.management.RuntimeOperationsException;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+public class TestMethodInvoker
+{
+    @Test
+    public void testInvoke()
+            throws Exception
+    {
+        Target target = new Target();
+        assertEquals(invoker("getValue").invoke(target), 42);
+        assertEquals(invoker("add", long.class, long.class).invoke(target, new Object[] {1L, 2L}), 3L);
+        assertNull(invoker("reset").invoke(target));
+        assertEquals(invoker("join", String[].class).invoke(target, new Object[] {new String[] {"a", "b"}}), "a,b");
+        assertEquals(invoker("staticValue").invoke(target), "static");
+    }
+
+    @Test
+    public void testWideningConversion()
+            throws Exception
+    {
+        Target target = new Target();
+        Object[] params = {1, (byte) 2};
+        assertEquals(invoker("add", long.class, long.class).invoke(target, params), 3L);
+        assertEquals(ReflectionUtils.invoke(target, Target.class.getMethod("add", long.class, long.class), params), 3L);
+    }
+
+    @Test
+    public void testArgumentMismatch()
+            throws Exception
+    {
+        assertSameFailure("add", new Class<?>[] {long.class, long.class}, new Object[] {1L});
+        assertSameFailure("add", new Class<?>[] {long.class, long.class}, new Object[] {1L, null});
+        assertSameFailure("add", new Class<?>[] {long.class, long.class}, new Object[] {1L, 2.0});
+        assertSameFailure("join", new Class<?>[] {String[].class}, new Object[] {"a"});
+    }
+
+    @Test
+    public void testExceptionMapping()
+            throws Exception
+    {
+        assertSameFailure("throwRuntimeException", new Class<?>[0], new Object[0]);
+        assertSameFailure("throwCheckedException", new Class<?>[0], new Object[0]);
+        assertSameFailure("throwError", new Class<?>[0], new Object[0]);
+
+        MBeanException passthrough = (MBeanException) invokeAndCatch(invoker("throwMBeanException"), new Object[0]);
+        assertSame(passthrough, Target.MBEAN_EXCEPTION);
+    }
+
+    private static void assertSameFailure(String name, Class<?>[] parameterTypes, Object[] params)
+            throws Exception
+    {
+        Method method = Target.class.getMethod(name, parameterTypes);
+
+        Exception expected;
+        try {
+            ReflectionUtils.invoke(new Target(), method, params);
+            throw new AssertionError("expected exception");
+        }
+        catch (MBeanException | ReflectionException | RuntimeOperationsException | RuntimeErrorException e) {
+            expected = e;
+        }
+
+        Exception actual = invokeAndCatch(MethodInvoker.of(method), params);
+        assertEquals(actual.getClass(), expected.getClass());
+        assertEquals(actual.getMessage(), expected.getMessage());
+        assertEquals(actual.getCause().getClass(), expected.getCause().getClass());
+    }
+
+    private static Exception invokeAndCatch(MethodInvoker invoker, Object[] params)
+    {
+        try {
+            invoker.invoke(new Target(), params);
+            fail("expected exception");
+            return null;
+        }
+        catch (MBeanException | ReflectionException | RuntimeOperationsException | RuntimeErrorException e) {
+            return e;
+        }
+    }
+
+    private static MethodInvoker invoker(String name, Class<?>... parameterTypes)
+            throws NoSuchMethodException
+    {
+        return MethodInvoker.of(Target.class.getMethod(name, parameterTypes));
+    }
+
+    public static class Target
+    {
+        static final MBeanException MBEAN_EXCEPTION = new MBeanException(new Exception("passthrough"));
+
+        public int getValue()
+        {
+            return 42;
+        }
+
+        public long add(long a, long b)
+        {
+            return a + b;
+        }
+
+        public void reset()
+        {
+        }
+
+        public String join(String... values)
+        {
+            return String.join(",", values);
+        }
+
+        public static String staticValue()
+        {
+            return "static";
+        }
+
+        public void throwRuntimeException()
+        {
+            throw new IllegalStateException("runtime");
+        }
+
+        public void throwCheckedException()
+                throws IOException
+        {
+            throw new IOException("checked");
+        }
+
+        public void throwError()
+        {
+            throw new AssertionError("error");
+        }
+
+        public void throwMBeanException()
+                throws MBeanException
+        {
+            throw MBEAN_EXCEPTION;
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.testng.annotations.Test;
 import java.lang.annotation.Annotation;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
 
 public class TestObjectNameBuilder
 {
@@ -90,4 +91,11 @@ public class TestObjectNameBuilder
                 ObjectNames.builder(SimpleObject.class).withProperty("foo", "bar,baz").build(),
                 "org.weakref.jmx:name=SimpleObject,foo=\"bar,baz\"");
     }
+
+    @Test
+    public void testUnquotedValueIsNotCopied()
+    {
+        String value = "plain-value\\with.backslash";
+        assertSame(ObjectNames.quoteValueIfNecessary(value), value);
+    }
 }
@@ -0,0 +1,121 @@
+package org.weakref.jmx;
+
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+import org.weakref.jmx.testing.TestingMBeanServer;
+
+import javax.management.MBeanServer;
+
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestObjectNameCache
+{
+    @Test
+    public void testGeneratedNameIsCached()
+    {
+        CountingGenerator generator = new CountingGenerator();
+        MBeanServer server = new TestingMBeanServer();
+        MBeanExporter exporter = cachingExporter(server, generator);
+
+        MBeanExport export = exporter.exportWithGeneratedName(new SimpleObject(), SimpleObject.class, "cached");
+        assertTrue(server.isRegistered(export.getObjectName()));
+        exporter.unexportWithGeneratedName(SimpleObject.class, "cached");
+        assertFalse(server.isRegistered(export.getObjectName()));
+
+        assertSame(exporter.exportWithGeneratedName(new SimpleObject(), SimpleObject.class, "cached").getObjectName(), export.getObjectName());
+        assertEquals(generator.calls.get(), 1);
+    }
+
+    @Test
+    public void testPropertyOrderIsPartOfTheKey()
+    {
+        CountingGenerator generator = new CountingGenerator();
+        MBeanExporter exporter = cachingExporter(new TestingMBeanServer(), generator);
+
+        Map<String, String> typeFirst = ImmutableMap.of("type", "a", "name", "b");
+        Map<String, String> nameFirst = ImmutableMap.of("name", "b", "type", "a");
+        MBeanExport first = exporter.exportWithGeneratedName(new SimpleObject(), SimpleObject.class, typeFirst);
+        first.unexport();
+        MBeanExport second = exporter.exportWithGeneratedName(new SimpleObject(), SimpleObject.class, nameFirst);
+
+        // equal names, generated separately, keep the order they were generated in
+        assertEquals(first.getObjectName(), second.getObjectName());
+        assertNotEquals(first.getObjectName().toString(), second.getObjectName().toString());
+        assertEquals(generator.calls.get(), 2);
+    }
+
+    @Test
+    public void testDisabledByDefault()
+    {
+        CountingGenerator generator = new CountingGenerator();
+        MBeanExporter exporter = new MBeanExporter(new TestingMBeanServer(), Optional.of(generator));
+
+        exporter.exportWithGeneratedName(new SimpleObject(), SimpleObject.class, "uncached");
+        exporter.unexportWithGeneratedName(SimpleObject.class, "uncached");
+        assertEquals(generator.calls.get(), 2);
+    }
+
+    @Test
+    public void testTypeIsNotPinned()
+            throws Exception
+    {
+        MBeanExporter exporter = cachingExporter(new TestingMBeanServer(), new CountingGenerator());
+        WeakReference<Class<?>> type = exportWithUnloadableType(exporter);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (type.get() != null && System.nanoTime() < deadline) {
+            System.gc();
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertNull(type.get());
+    }
+
+    // a copy of the type in its own class loader, referred to only from this frame
+    private static WeakReference<Class<?>> exportWithUnloadableType(MBeanExporter exporter)
+            throws Exception
+    {
+        URL classes = TestObjectNameCache.class.getProtectionDomain().getCodeSource().getLocation();
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {classes}, ClassLoader.getPlatformClassLoader())) {
+            Class<?> type = loader.loadClass(UnloadableType.class.getName());
+            assertNotSame(type, UnloadableType.class);
+            exporter.exportWithGeneratedName(new SimpleObject(), type, "unloadable").unexport();
+            return new WeakReference<>(type);
+        }
+    }
+
+    private static MBeanExporter cachingExporter(MBeanServer server, ObjectNameGenerator generator)
+    {
+        return new MBeanExporter(server, Optional.of(generator), Optional.of(new MBeanExporterConfig().setObjectNameCacheSize(16)));
+    }
+
+    public static class UnloadableType
+    {
+    }
+
+    private static class CountingGenerator
+            implements ObjectNameGenerator
+    {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public String generatedNameOf(Class<?> type, Map<String, String> properties)
+        {
+            calls.incrementAndGet();
+            return ObjectNameGenerator.defaultObjectNameGenerator().generatedNameOf(type, properties);
+        }
+    }
+}
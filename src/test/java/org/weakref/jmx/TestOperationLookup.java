@@ -0,0 +1,115 @@
+package org.weakref.jmx;
+
+import org.testng.annotations.Test;
+
+import javax.management.MBeanException;
+import javax.management.ServiceNotFoundException;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestOperationLookup
+{
+    @Test
+    public void testOverloads()
+            throws Exception
+    {
+        MBean mbean = MBeanBuilder.from(new Overloaded()).build();
+
+        // alternate between overloads so both the cached and the indexed paths are taken
+        for (int i = 0; i < 3; i++) {
+            assertEquals(mbean.invoke("echo", null, null), "none");
+            assertEquals(mbean.invoke("echo", new Object[] {1}, new String[] {"int"}), "int");
+            assertEquals(mbean.invoke("echo", new Object[] {1}, new String[] {Integer.class.getName()}), "Integer");
+            assertEquals(mbean.invoke("echo", new Object[] {1, "a"}, new String[] {"int", String.class.getName()}), "int, String");
+            assertEquals(mbean.invoke("other", new Object[] {1}, new String[] {"int"}), "other");
+        }
+
+        Set<Signature> signatures = new HashSet<>();
+        for (MBeanOperation operation : mbean.getOperations()) {
+            signatures.add(operation.getSignature());
+        }
+        assertEquals(signatures, Set.of(
+                new Signature("echo"),
+                new Signature("echo", "int"),
+                new Signature("echo", Integer.class.getName()),
+                new Signature("echo", "int", String.class.getName()),
+                new Signature("other", "int")));
+    }
+
+    @Test
+    public void testNotFound()
+            throws Exception
+    {
+        MBean mbean = MBeanBuilder.from(new Overloaded()).build();
+
+        assertNotFound(mbean, "missing", new String[0], "Operation missing() not found");
+        assertNotFound(mbean, "echo", new String[] {"long"}, "Operation echo(long) not found");
+        assertNotFound(mbean, "echo", new String[] {"int", "int"}, "Operation echo(int, int) not found");
+        assertNotFound(mbean, "other", new String[0], "Operation other() not found");
+    }
+
+    @Test
+    public void testNullArgType()
+            throws Exception
+    {
+        MBean mbean = MBeanBuilder.from(new Overloaded()).build();
+        try {
+            mbean.invoke("echo", new Object[] {1}, new String[] {null});
+            fail("expected NullPointerException");
+        }
+        catch (NullPointerException e) {
+            assertEquals(e.getMessage(), "argTypes[0] is null");
+        }
+    }
+
+    private static void assertNotFound(MBean mbean, String name, String[] argTypes, String message)
+            throws Exception
+    {
+        try {
+            mbean.invoke(name, new Object[argTypes.length], argTypes);
+            fail("expected MBeanException");
+        }
+        catch (MBeanException e) {
+            assertEquals(e.getMessage(), message);
+            assertTrue(e.getCause() instanceof ServiceNotFoundException);
+        }
+    }
+
+    public static class Overloaded
+    {
+        @Managed
+        public String echo()
+        {
+            return "none";
+        }
+
+        @Managed
+        public String echo(int value)
+        {
+            return "int";
+        }
+
+        @Managed
+        public String echo(Integer value)
+        {
+            return "Integer";
+        }
+
+        @Managed
+        public String echo(int value, String text)
+        {
+            return "int, String";
+        }
+
+        @Managed
+        public String other(int value)
+        {
+            return "other";
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.weakref.jmx;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import javax.management.AttributeNotFoundException;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestPrimitiveAttributes
+{
+    @DataProvider(name = "configs")
+    public Object[][] configs()
+    {
+        return new Object[][] {
+                {new MBeanExporterConfig()},
+                {new MBeanExporterConfig().setAccessorGenerationEnabled(true)},
+        };
+    }
+
+    @Test(dataProvider = "configs")
+    public void testNumericAttributes(MBeanExporterConfig config)
+            throws Exception
+    {
+        SimpleObject object = new SimpleObject();
+        object.setByteValue((byte) 3);
+        object.setShortValue((short) -4);
+        object.setIntegerValue(Integer.MAX_VALUE);
+        object.setLongValue(Long.MIN_VALUE);
+        object.setFloatValue(1.5f);
+        object.setDoubleValue(-2.25);
+        MBean mbean = MBeanBuilder.from(object, config).build();
+
+        assertEquals(attribute(mbean, "ByteValue").getLong(), 3);
+        assertEquals(attribute(mbean, "ShortValue").getLong(), -4);
+        assertEquals(attribute(mbean, "IntegerValue").getLong(), Integer.MAX_VALUE);
+        assertEquals(attribute(mbean, "LongValue").getLong(), Long.MIN_VALUE);
+
+        assertEquals(attribute(mbean, "IntegerValue").getDouble(), (double) Integer.MAX_VALUE);
+        assertEquals(attribute(mbean, "FloatValue").getDouble(), 1.5);
+        assertEquals(attribute(mbean, "DoubleValue").getDouble(), -2.25);
+    }
+
+    @Test(dataProvider = "configs")
+    public void testBooleanAttribute(MBeanExporterConfig config)
+            throws Exception
+    {
+        SimpleObject object = new SimpleObject();
+        MBean mbean = MBeanBuilder.from(object, config).build();
+
+        assertFalse(attribute(mbean, "BooleanValue").getBoolean());
+        object.setBooleanValue(true);
+        assertTrue(attribute(mbean, "BooleanValue").getBoolean());
+    }
+
+    @Test
+    public void testNestedAttribute()
+            throws Exception
+    {
+        NestedObject object = new NestedObject();
+        object.getSimpleObject().setLongValue(42);
+        MBean mbean = MBeanBuilder.from(object).build();
+
+        assertEquals(attribute(mbean, "SimpleObject.LongValue").getLong(), 42);
+        assertEquals(attribute(mbean, "SimpleObject.LongValue").getDouble(), 42.0);
+    }
+
+    @Test
+    public void testIncompatibleTypes()
+            throws Exception
+    {
+        MBean mbean = MBeanBuilder.from(new SimpleObject()).build();
+
+        assertUnsupported(() -> attribute(mbean, "DoubleValue").getLong());
+        assertUnsupported(() -> attribute(mbean, "IntegerBoxedValue").getLong());
+        assertUnsupported(() -> attribute(mbean, "StringValue").getDouble());
+        assertUnsupported(() -> attribute(mbean, "IntegerValue").getBoolean());
+        assertUnsupported(() -> attribute(mbean, "BooleanValue").getLong());
+
+        try {
+            attribute(mbean, "WriteOnly").getLong();
+            fail("expected AttributeNotFoundException");
+        }
+        catch (AttributeNotFoundException expected) {
+        }
+    }
+
+    private static MBeanAttribute attribute(MBean mbean, String name)
+    {
+        for (MBeanAttribute attribute : mbean.getAttributes()) {
+            if (attribute.getName().equals(name)) {
+                return attribute;
+            }
+        }
+        throw new AssertionError("no attribute " + name);
+    }
+
+    private static void assertUnsupported(PrimitiveRead read)
+            throws Exception
+    {
+        try {
+            read.run();
+            fail("expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    private interface PrimitiveRead
+    {
+        void run()
+                throws Exception;
+    }
+}
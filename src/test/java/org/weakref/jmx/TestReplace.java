@@ -0,0 +1,170 @@
+package org.weakref.jmx;
+
+import org.testng.annotations.Test;
+import org.weakref.jmx.testing.TestingMBeanServer;
+
+import javax.management.Attribute;
+import javax.management.DynamicMBean;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.ObjectInstance;
+import javax.management.ObjectName;
+
+import java.lang.ref.WeakReference;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import static org.weakref.jmx.Util.getUniqueObjectName;
+
+public class TestReplace
+{
+    @Test
+    public void testReplaceInPlace()
+            throws Exception
+    {
+        CountingServer server = new CountingServer();
+        MBeanExporter exporter = new MBeanExporter(server);
+        ObjectName name = getUniqueObjectName();
+
+        SimpleObject original = new SimpleObject();
+        original.setIntegerValue(1);
+        exporter.export(name, original);
+
+        SimpleObject replacement = new SimpleObject();
+        replacement.setIntegerValue(2);
+        assertTrue(exporter.replace(name, replacement));
+
+        assertEquals(server.getAttribute(name, "IntegerValue"), 2);
+        server.setAttribute(name, new Attribute("IntegerValue", 3));
+        assertEquals(replacement.getIntegerValue(), 3);
+        assertEquals(original.getIntegerValue(), 1);
+        assertSame(exporter.getExportedObject(name).orElseThrow(), replacement);
+        assertEquals(server.unregistrations.get(), 0);
+
+        exporter.unexport(name);
+        assertFalse(server.isRegistered(name));
+    }
+
+    @Test
+    public void testReplacedObjectCanBeCollected()
+            throws Exception
+    {
+        CountingServer server = new CountingServer();
+        MBeanExporter exporter = new MBeanExporter(server);
+        ObjectName name = getUniqueObjectName();
+
+        SimpleObject original = new SimpleObject();
+        WeakReference<SimpleObject> reference = new WeakReference<>(original);
+        exporter.export(name, original);
+        // binds the MBean to the original
+        assertEquals(server.getAttribute(name, "IntegerValue"), 0);
+        assertTrue(exporter.replace(name, new SimpleObject()));
+        original = null;
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (reference.get() != null && System.nanoTime() < deadline) {
+            System.gc();
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertNull(reference.get());
+        assertTrue(server.isRegistered(name));
+    }
+
+    @Test
+    public void testReplaceLazyMBeanInPlace()
+            throws Exception
+    {
+        MBeanExporter exporter = new MBeanExporter(new CountingServer(), Optional.empty(), Optional.of(new MBeanExporterConfig().setLazyMBeansEnabled(true)));
+        ObjectName name = getUniqueObjectName();
+        exporter.export(name, new SimpleObject());
+
+        SimpleObject replacement = new SimpleObject();
+        replacement.setIntegerValue(5);
+        assertTrue(exporter.replace(name, replacement));
+        assertSame(exporter.getExportedObject(name).orElseThrow(), replacement);
+    }
+
+    @Test
+    public void testReplaceWithDifferentClassReregisters()
+            throws Exception
+    {
+        CountingServer server = new CountingServer();
+        MBeanExporter exporter = new MBeanExporter(server);
+        ObjectName name = getUniqueObjectName();
+        exporter.export(name, new SimpleObject());
+
+        assertFalse(exporter.replace(name, new NestedObject()));
+        assertEquals(server.unregistrations.get(), 1);
+        assertTrue(server.isRegistered(name));
+        assertEquals(server.getMBeanInfo(name).getClassName(), NestedObject.class.getName());
+        assertEquals(exporter.getManagedClasses().get(name.toString()).getTargetClass(), NestedObject.class);
+    }
+
+    @Test
+    public void testFailedReregistrationRestoresPrevious()
+            throws Exception
+    {
+        CountingServer server = new CountingServer();
+        MBeanExporter exporter = new MBeanExporter(server);
+        ObjectName name = getUniqueObjectName();
+        SimpleObject original = new SimpleObject();
+        exporter.export(name, original);
+
+        server.rejectedClassName = NestedObject.class.getName();
+        try {
+            exporter.replace(name, new NestedObject());
+            fail("expected JmxException");
+        }
+        catch (JmxException e) {
+            assertEquals(e.getReason(), JmxException.Reason.INSTANCE_ALREADY_EXISTS);
+        }
+        assertTrue(server.isRegistered(name));
+        assertEquals(server.getMBeanInfo(name).getClassName(), SimpleObject.class.getName());
+        assertSame(exporter.getExportedObject(name).orElseThrow(), original);
+    }
+
+    @Test
+    public void testReplaceNotExported()
+    {
+        MBeanExporter exporter = new MBeanExporter(new TestingMBeanServer());
+        try {
+            exporter.replace(getUniqueObjectName(), new SimpleObject());
+            fail("expected JmxException");
+        }
+        catch (JmxException e) {
+            assertEquals(e.getReason(), JmxException.Reason.INSTANCE_NOT_FOUND);
+        }
+    }
+
+    private static class CountingServer
+            extends TestingMBeanServer
+    {
+        private final AtomicInteger unregistrations = new AtomicInteger();
+        private volatile String rejectedClassName;
+
+        @Override
+        public ObjectInstance registerMBean(Object object, ObjectName name)
+                throws InstanceAlreadyExistsException
+        {
+            if (((DynamicMBean) object).getMBeanInfo().getClassName().equals(rejectedClassName)) {
+                throw new InstanceAlreadyExistsException(name.toString());
+            }
+            return super.registerMBean(object, name);
+        }
+
+        @Override
+        public void unregisterMBean(ObjectName name)
+                throws InstanceNotFoundException
+        {
+            unregistrations.incrementAndGet();
+            super.unregisterMBean(name);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.weakref.jmx;
+
+import org.testng.annotations.Test;
+import org.weakref.jmx.testing.TestingMBeanServer;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.weakref.jmx.Util.getUniqueObjectName;
+
+public class TestUnexportAll
+{
+    @Test
+    public void testUnexportAllInParallel()
+    {
+        MBeanServer server = new TestingMBeanServer();
+        MBeanExporter exporter = new MBeanExporter(server);
+        Map<ObjectName, Object> objects = new LinkedHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            objects.put(getUniqueObjectName(), new SimpleObject());
+        }
+        assertTrue(exporter.exportAll(objects).isSuccessful());
+
+        UnexportAllResult result = exporter.unexportAllAndReportMissing(Duration.ofSeconds(30));
+        assertTrue(result.isComplete());
+        assertTrue(exporter.getExportedObjects().isEmpty());
+        for (ObjectName name : objects.keySet()) {
+            assertFalse(server.isRegistered(name));
+        }
+    }
+
+    @Test
+    public void testTimeoutReportsUnreachedNames()
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        MBeanServer server = new TestingMBeanServer()
+        {
+            @Override
+            public void unregisterMBean(ObjectName name)
+                    throws InstanceNotFoundException
+            {
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.unregisterMBean(name);
+            }
+        };
+        MBeanExporter exporter = new MBeanExporter(server);
+        Map<ObjectName, Object> objects = new LinkedHashMap<>();
+        for (int i = 0; i < 10; i++) {
+            objects.put(getUniqueObjectName(), new SimpleObject());
+        }
+        exporter.exportAll(objects);
+
+        try {
+            long start = System.nanoTime();
+            UnexportAllResult result = exporter.unexportAllAndReportMissing(Duration.ofMillis(100));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+            assertTrue(result.getErrors().isEmpty());
+            assertEquals(result.getUnreached().size(), 10);
+            assertFalse(result.isComplete());
+        }
+        finally {
+            release.countDown();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.weakref.jmx;
+
+import org.testng.annotations.Test;
+import org.weakref.jmx.testing.TestingMBeanServer;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.weakref.jmx.Util.getUniqueObjectName;
+
+public class TestWeakExport
+{
+    @Test
+    public void testCollectedObjectIsUnexported()
+            throws Exception
+    {
+        MBeanServer server = new TestingMBeanServer();
+        MBeanExporter exporter = new MBeanExporter(server);
+        ObjectName name = getUniqueObjectName();
+
+        SimpleObject object = new SimpleObject();
+        object.setIntegerValue(42);
+        exporter.exportWeakly(name, object);
+        assertEquals(server.getAttribute(name, "IntegerValue"), 42);
+        assertEquals(exporter.getLeakedExports(), 0);
+
+        object = null;
+        awaitCollected(exporter, 1);
+        assertFalse(server.isRegistered(name));
+        assertTrue(exporter.getExportedObjects().isEmpty());
+
+        // the name is free again
+        exporter.exportWeakly(name, new SimpleObject());
+    }
+
+    @Test
+    public void testCollectedObjectWithNestedAttributeIsUnexported()
+            throws Exception
+    {
+        MBeanServer server = new TestingMBeanServer();
+        MBeanExporter exporter = new MBeanExporter(server);
+        ObjectName name = getUniqueObjectName();
+
+        NestedObject object = new NestedObject();
+        exporter.exportWeakly(name, object);
+        assertTrue(server.isRegistered(name));
+
+        object = null;
+        awaitCollected(exporter, 1);
+        assertFalse(server.isRegistered(name));
+    }
+
+    @Test
+    public void testExplicitUnexportIsNotALeak()
+            throws Exception
+    {
+        MBeanServer server = new TestingMBeanServer();
+        MBeanExporter exporter = new MBeanExporter(server);
+        ObjectName name = getUniqueObjectName();
+
+        SimpleObject object = new SimpleObject();
+        exporter.exportWeakly(name, object);
+        exporter.unexport(name);
+        object = null;
+
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(exporter.getLeakedExports(), 0);
+    }
+
+    private static void awaitCollected(MBeanExporter exporter, long leaked)
+            throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (exporter.getLeakedExports() < leaked && System.nanoTime() < deadline) {
+            System.gc();
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(exporter.getLeakedExports(), leaked);
+    }
+}
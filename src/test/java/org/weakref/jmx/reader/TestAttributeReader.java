@@ -0,0 +1,115 @@
+package org.weakref.jmx.reader;
+
+import org.testng.annotations.Test;
+import org.weakref.jmx.AttributeReader;
+import org.weakref.jmx.JmxException;
+import org.weakref.jmx.MBeanExporter;
+import org.weakref.jmx.NestedObject;
+import org.weakref.jmx.SimpleObject;
+import org.weakref.jmx.testing.TestingMBeanServer;
+
+import javax.management.AttributeNotFoundException;
+import javax.management.ObjectName;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import static org.weakref.jmx.Util.getUniqueObjectName;
+
+public class TestAttributeReader
+{
+    @Test
+    public void testPrimitiveReads()
+            throws Exception
+    {
+        MBeanExporter exporter = new MBeanExporter(new TestingMBeanServer());
+        ObjectName name = getUniqueObjectName();
+        SimpleObject object = new SimpleObject();
+        object.setLongValue(Long.MIN_VALUE);
+        object.setIntegerValue(7);
+        object.setDoubleValue(-2.25);
+        exporter.export(name, object);
+
+        AttributeReader reader = exporter.getAttributeReader(name);
+        assertEquals(reader.getObjectName(), name);
+        assertEquals(reader.getLong("LongValue"), Long.MIN_VALUE);
+        assertEquals(reader.getLong("IntegerValue"), 7);
+        assertEquals(reader.getDouble("DoubleValue"), -2.25);
+        assertFalse(reader.getBoolean("BooleanValue"));
+        object.setBooleanValue(true);
+        assertTrue(reader.getBoolean("BooleanValue"));
+        assertEquals(reader.getValue("StringValue"), object.getStringValue());
+
+        try {
+            reader.getLong("DoubleValue");
+            fail("expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException expected) {
+        }
+        try {
+            reader.getLong("Missing");
+            fail("expected AttributeNotFoundException");
+        }
+        catch (AttributeNotFoundException expected) {
+        }
+    }
+
+    @Test
+    public void testReadsByOrdinal()
+            throws Exception
+    {
+        MBeanExporter exporter = new MBeanExporter(new TestingMBeanServer());
+        ObjectName name = getUniqueObjectName();
+        SimpleObject object = new SimpleObject();
+        object.setLongValue(5);
+        object.setDoubleValue(0.5);
+        exporter.export(name, object);
+
+        AttributeReader reader = exporter.getAttributeReader(name);
+        int longValue = reader.getAttributeOrdinal("LongValue");
+        int doubleValue = reader.getAttributeOrdinal("DoubleValue");
+        int booleanValue = reader.getAttributeOrdinal("BooleanValue");
+        assertEquals(reader.getLong(longValue), 5);
+        assertEquals(reader.getValue(longValue), 5L);
+        assertEquals(reader.getDouble(doubleValue), 0.5);
+        assertFalse(reader.getBoolean(booleanValue));
+
+        object.setLongValue(6);
+        assertEquals(reader.getLong(longValue), 6);
+
+        assertEquals(reader.getAttributeOrdinal("Missing"), -1);
+        try {
+            reader.getLong(-1);
+            fail("expected AttributeNotFoundException");
+        }
+        catch (AttributeNotFoundException expected) {
+        }
+    }
+
+    @Test
+    public void testNestedAttribute()
+            throws Exception
+    {
+        MBeanExporter exporter = new MBeanExporter(new TestingMBeanServer());
+        ObjectName name = getUniqueObjectName();
+        NestedObject object = new NestedObject();
+        object.getSimpleObject().setLongValue(42);
+        exporter.export(name, object);
+
+        assertEquals(exporter.getAttributeReader(name).getLong("SimpleObject.LongValue"), 42);
+    }
+
+    @Test
+    public void testNotExported()
+    {
+        MBeanExporter exporter = new MBeanExporter(new TestingMBeanServer());
+        try {
+            exporter.getAttributeReader(getUniqueObjectName());
+            fail("expected JmxException");
+        }
+        catch (JmxException e) {
+            assertEquals(e.getReason(), JmxException.Reason.INSTANCE_NOT_FOUND);
+        }
+    }
+}